@@ -0,0 +1,299 @@
+package com.medical.jms.producer;
+
+import com.medical.jms.model.MedicalResult;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Rendu du texte des alertes à partir d'un modèle compilé une fois : segments littéraux
+ * et champs ({patientName}, {value}...) écrits directement dans un StringBuilder réutilisé
+ * par thread. La seule allocation par alerte est la String finale du message.
+ * La date passe par un DateTimeFormatter (thread-safe) et reste en cache tant que
+ * les alertes tombent dans la même seconde.
+ */
+public final class AlertMessageFormatter {
+
+    public static final String ALERT_TEMPLATE =
+            " ALERTE MÉDICALE CRITIQUE\n" +
+                    "────────────────────────────\n" +
+                    "Patient: {patientName} ({patientId})\n" +
+                    "Test: {testType}\n" +
+                    "Valeur: {value} {unit}\n" +
+                    "Statut: {status}\n" +
+                    "Date: {date}\n" +
+                    "────────────────────────────";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Au-delà, la valeur en centièmes ne tient plus exactement dans un long : rendu par String.format
+    private static final double MAX_FAST_VALUE = 1e15;
+    // Un tampon devenu plus grand (note ou nom démesuré) n'est pas conservé
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+
+    private enum Field {
+        PATIENT_NAME("patientName"), PATIENT_ID("patientId"), TEST_TYPE("testType"), VALUE("value"),
+        UNIT("unit"), STATUS("status"), DATE("date");
+
+        final String placeholder;
+
+        Field(String placeholder) {
+            this.placeholder = placeholder;
+        }
+    }
+
+    // Tampons propres à un thread
+    private static final class Buffers {
+        StringBuilder text = new StringBuilder(256);
+        long cachedSecond = Long.MIN_VALUE;
+        final char[] cachedDate = new char[32];
+        int cachedDateLength;
+    }
+
+    // literals[i] précède fields[i] ; le dernier littéral termine le message
+    private final String[] literals;
+    private final Field[] fields;
+    private final ZoneId zone;
+    private final char decimalSeparator;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    public AlertMessageFormatter() {
+        this(ALERT_TEMPLATE);
+    }
+
+    /**
+     * @throws IllegalArgumentException si le modèle contient un champ inconnu ou non fermé
+     */
+    public AlertMessageFormatter(String template) {
+        List<String> literalList = new ArrayList<>();
+        List<Field> fieldList = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = template.indexOf('{', pos);
+            if (open < 0) break;
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Champ non fermé à la position " + open);
+            }
+            literalList.add(template.substring(pos, open));
+            fieldList.add(fieldOf(template.substring(open + 1, close)));
+            pos = close + 1;
+        }
+        literalList.add(template.substring(pos));
+
+        this.literals = literalList.toArray(new String[0]);
+        this.fields = fieldList.toArray(new Field[0]);
+        this.zone = ZoneId.systemDefault();
+        // Même séparateur décimal que String.format("%.2f") dans la locale courante
+        this.decimalSeparator = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT))
+                .getDecimalSeparator();
+    }
+
+    private static Field fieldOf(String placeholder) {
+        for (Field field : Field.values()) {
+            if (field.placeholder.equals(placeholder)) return field;
+        }
+        throw new IllegalArgumentException("Champ inconnu dans le modèle: {" + placeholder + "}");
+    }
+
+    public String format(MedicalResult alert) {
+        Buffers buf = buffers.get();
+        StringBuilder out = buf.text;
+        out.setLength(0);
+        render(alert, out, buf);
+        String message = out.toString();
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            buf.text = new StringBuilder(256);
+        }
+        return message;
+    }
+
+    /** Ajoute le texte de l'alerte à out. */
+    public void formatTo(MedicalResult alert, StringBuilder out) {
+        render(alert, out, buffers.get());
+    }
+
+    private void render(MedicalResult alert, StringBuilder out, Buffers buf) {
+        for (int i = 0; i < fields.length; i++) {
+            out.append(literals[i]);
+            switch (fields[i]) {
+                case PATIENT_NAME: out.append(alert.getPatientName()); break;
+                case PATIENT_ID:   out.append(alert.getPatientId()); break;
+                case TEST_TYPE:    out.append(alert.getTestType()); break;
+                case VALUE:        appendValue(out, alert.getValue()); break;
+                case UNIT:         out.append(alert.getUnit()); break;
+                case STATUS:       out.append(alert.isCritical() ? "CRITIQUE" : "Normal"); break;
+                case DATE:         appendDate(out, alert.getTimestamp(), buf); break;
+            }
+        }
+        out.append(literals[fields.length]);
+    }
+
+    // Équivalent de %.2f sans passer par Formatter : arrondi demi vers le haut de l'écriture décimale
+    // de la valeur (Double.toString), pas de sa valeur binaire
+    private void appendValue(StringBuilder out, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_FAST_VALUE) {
+            out.append(String.format("%.2f", value));
+            return;
+        }
+        double scaled = Math.abs(value) * 100;
+        long cents = Math.round(scaled);
+        // Près d'un demi-centime (1.005 vaut 1.00499999... en binaire), l'arrondi du double peut différer :
+        // on arrondit alors l'écriture décimale, comme Formatter (1.005 -> 1.01)
+        if (Math.abs(scaled - Math.floor(scaled) - 0.5) <= 8 * Math.ulp(scaled)) {
+            cents = new BigDecimal(Double.toString(Math.abs(value))).setScale(2, RoundingMode.HALF_UP)
+                    .unscaledValue().longValue();
+        }
+        // Comme Formatter, le signe est conservé même si l'arrondi donne zéro (-0.004 -> -0.00)
+        if (Double.doubleToRawLongBits(value) < 0) out.append('-');
+        out.append(cents / 100).append(decimalSeparator);
+        long fraction = cents % 100;
+        if (fraction < 10) out.append('0');
+        out.append(fraction);
+    }
+
+    private void appendDate(StringBuilder out, Date timestamp, Buffers buf) {
+        if (timestamp == null) {
+            out.append("null");
+            return;
+        }
+        long second = Math.floorDiv(timestamp.getTime(), 1000);
+        if (second != buf.cachedSecond) {
+            int start = out.length();
+            DATE_FORMAT.formatTo(Instant.ofEpochSecond(second).atZone(zone), out);
+            buf.cachedDateLength = Math.min(out.length() - start, buf.cachedDate.length);
+            out.getChars(start, start + buf.cachedDateLength, buf.cachedDate, 0);
+            buf.cachedSecond = second;
+            return;
+        }
+        out.append(buf.cachedDate, 0, buf.cachedDateLength);
+    }
+
+    // ===== BANC D'ESSAI =====
+
+    // Ancien formatage d'AlertProducer, conservé pour comparaison
+    private static String legacyFormat(MedicalResult alert) {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        String timestamp = sdf.format(alert.getTimestamp());
+
+        return String.format(
+                " ALERTE MÉDICALE CRITIQUE\n" +
+                        "────────────────────────────\n" +
+                        "Patient: %s (%s)\n" +
+                        "Test: %s\n" +
+                        "Valeur: %.2f %s\n" +
+                        "Statut: %s\n" +
+                        "Date: %s\n" +
+                        "────────────────────────────",
+                alert.getPatientName(),
+                alert.getPatientId(),
+                alert.getTestType(),
+                alert.getValue(),
+                alert.getUnit(),
+                alert.isCritical() ? "CRITIQUE" : "Normal",
+                timestamp
+        );
+    }
+
+    // Octets alloués par le thread courant (extension HotSpot de ThreadMXBean)
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Usage : AlertMessageFormatter [itérations]
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        AlertMessageFormatter formatter = new AlertMessageFormatter();
+
+        System.out.println(" BANC D'ESSAI FORMATAGE DES ALERTES");
+        System.out.println("=====================================\n");
+
+        MedicalResult[] alerts = {
+                new MedicalResult("PAT001", "Ali Ben Mohamed", "Glycémie", "1.45", "g/L", "", true),
+                new MedicalResult("PAT002", "Fatima Zohra", "Tension", "160", "mmHg", "", true),
+                new MedicalResult("PAT003", "Marie Curie", "Cholestérol", "-0.004", "g/L", "", false),
+                new MedicalResult("PAT004", "Paul Martin", "Créatinine", "0.125", "mg/dL", "", true)
+        };
+
+        // 1. Même texte que l'ancien formatage
+        System.out.println("1. Comparaison des messages...");
+        for (MedicalResult alert : alerts) {
+            boolean same = legacyFormat(alert).equals(formatter.format(alert));
+            System.out.println("   " + (same ? "= " : "≠ ") + alert.getPatientId() + " " + alert.getValue());
+        }
+
+        // Valeurs à 3 décimales (demi-centimes) et valeurs quelconques : même rendu que %.2f
+        Random random = new Random(42);
+        StringBuilder value = new StringBuilder();
+        int differences = 0;
+        int checked = 0;
+        for (int i = 0; i < 200_000; i++) {
+            double v = i < 100_000
+                    ? (random.nextInt(2_000_000) - 1_000_000) / 1000.0
+                    : (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12));
+            value.setLength(0);
+            formatter.appendValue(value, v);
+            checked++;
+            if (!value.toString().equals(String.format("%.2f", v))) {
+                if (differences++ < 5) {
+                    System.out.println("   ≠ " + v + ": " + value + " au lieu de " + String.format("%.2f", v));
+                }
+            }
+        }
+        System.out.println("   Valeurs comparées à %.2f: " + checked + ", différences: " + differences);
+
+        System.out.println();
+        System.out.println(formatter.format(alerts[0]));
+
+        // 2. Allocations et temps par alerte (préchauffage puis mesure sur le thread courant)
+        System.out.println("\n2. Mesure sur " + iterations + " alertes...");
+        long sink = 0;
+        for (int i = 0; i < iterations / 5; i++) {
+            sink += legacyFormat(alerts[i & 3]).length() + formatter.format(alerts[i & 3]).length();
+        }
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += legacyFormat(alerts[i & 3]).length();
+        }
+        long legacyNanos = System.nanoTime() - start;
+        long legacyBytes = allocatedBytes() - bytes;
+
+        bytes = allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += formatter.format(alerts[i & 3]).length();
+        }
+        long nanos = System.nanoTime() - start;
+        long formatterBytes = allocatedBytes() - bytes;
+
+        StringBuilder reused = new StringBuilder(256);
+        bytes = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            reused.setLength(0);
+            formatter.formatTo(alerts[i & 3], reused);
+            sink += reused.length();
+        }
+        long formatToBytes = allocatedBytes() - bytes;
+
+        System.out.printf("   SimpleDateFormat + String.format: %6.0f ns, %6d octets/alerte%n",
+                (double) legacyNanos / iterations, legacyBytes / iterations);
+        System.out.printf("   Modèle compilé (String)         : %6.0f ns, %6d octets/alerte%n",
+                (double) nanos / iterations, formatterBytes / iterations);
+        System.out.printf("   Modèle compilé (formatTo)       : %6s     %6d octets/alerte%n",
+                "", formatToBytes / iterations);
+        System.out.println("   (contrôle " + sink + ")");
+    }
+}
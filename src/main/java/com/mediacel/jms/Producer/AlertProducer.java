@@ -1,15 +1,20 @@
 package com.medical.jms.producer;
+import com.medical.jms.config.JMSResourceManager;
 import com.medical.jms.model.MedicalResult;
-import org.apache.activemq.ActiveMQConnectionFactory;
 import javax.jms.*;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class AlertProducer {
 
-    private Connection connection;
-    private Session session;
-    private MessageProducer producer;
+    // Modèle compilé une fois, partagé par tous les threads d'envoi
+    private static final AlertMessageFormatter FORMATTER = new AlertMessageFormatter();
+
+    // Producteur partagé du JMSResourceManager (connexion et session mutualisées)
+    private JMSResourceManager.CachedProducer producer;
     private String queueName;
+    private AsyncMessageSender asyncSender;
 
     public AlertProducer(String queueName) throws JMSException {
         this.queueName = queueName; // Utiliser le paramètre
@@ -17,69 +22,57 @@ public class AlertProducer {
     }
 
     private void initialize() throws JMSException {
-        String brokerUrl = "tcp://localhost:61616";
-
-        ConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
-        connection = factory.createConnection();
-        connection.start();
-
-        session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-        Queue queue = session.createQueue(queueName);
-        producer = session.createProducer(queue);
-        producer.setDeliveryMode(DeliveryMode.PERSISTENT);
+        producer = JMSResourceManager.getInstance().getProducer(queueName);
+        asyncSender = new AsyncMessageSender(producer.getProducer(), "alertes-" + queueName);
 
         System.out.println("Producteur JMS initialisé pour: " + queueName);
     }
 
+    // Envoi synchrone : attend l'accusé du broker (écriture persistante)
     public void sendAlert(MedicalResult alert) throws JMSException {
-        String messageContent = formatAlertMessage(alert);
+        TextMessage message = createAlertMessage(alert);
+        producer.send(message);
+
+        System.out.println(" Alerte JMS envoyée: " + alert.getPatientName());
+    }
+
+    /**
+     * Envoi asynchrone : rend la main sans attendre le broker.
+     * Le future est complété à l'accusé du broker, ou en erreur après les renvois.
+     */
+    public CompletableFuture<Void> sendAlertAsync(MedicalResult alert) throws JMSException {
+        return asyncSender.send(createAlertMessage(alert));
+    }
+
+    private TextMessage createAlertMessage(MedicalResult alert) throws JMSException {
+        return createAlertMessage(producer.getSession(), alert);
+    }
 
-        TextMessage message = session.createTextMessage(messageContent);
+    /** Message d'alerte sur une session quelconque (par exemple transactionnelle, voir AlertService). */
+    public static TextMessage createAlertMessage(Session session, MedicalResult alert) throws JMSException {
+        TextMessage message = session.createTextMessage(FORMATTER.format(alert));
 
         // Ajouter des propriétés
         message.setStringProperty("patientId", alert.getPatientId());
         message.setStringProperty("testType", alert.getTestType());
         message.setDoubleProperty("value", alert.getValue());
         message.setBooleanProperty("critical", alert.isCritical());
-
-        producer.send(message);
-
-        System.out.println(" Alerte JMS envoyée: " + alert.getPatientName());
-    }
-
-    private String formatAlertMessage(MedicalResult alert) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        String timestamp = sdf.format(alert.getTimestamp());
-
-        return String.format(
-                " ALERTE MÉDICALE CRITIQUE\n" +
-                        "────────────────────────────\n" +
-                        "Patient: %s (%s)\n" +
-                        "Test: %s\n" +
-                        "Valeur: %.2f %s\n" +
-                        "Statut: %s\n" +
-                        "Date: %s\n" +
-                        "────────────────────────────",
-                alert.getPatientName(),
-                alert.getPatientId(),
-                alert.getTestType(),
-                alert.getValue(),
-                alert.getUnit(),
-                alert.isCritical() ? "CRITIQUE" : "Normal",
-                timestamp
-        );
+        return message;
     }
 
     public void sendTextMessage(String text) throws JMSException {
-        TextMessage message = session.createTextMessage(text);
+        TextMessage message = producer.getSession().createTextMessage(text);
         producer.send(message);
         System.out.println(" Message texte envoyé");
     }
 
+    public AsyncMessageSender getAsyncSender() {
+        return asyncSender;
+    }
+
     public void close() throws JMSException {
-        if (producer != null) producer.close();
-        if (session != null) session.close();
-        if (connection != null) connection.close();
+        // Laisser les envois asynchrones en cours recevoir leur accusé
+        if (asyncSender != null) asyncSender.close(5000);
         System.out.println("Producteur JMS fermé");
     }
 
@@ -97,7 +90,32 @@ public class AlertProducer {
                     true                         // isCritical
             );
             producer.sendAlert(testAlert);
+
+            // Temps passé par l'appelant : envoi synchrone vs asynchrone (Usage : AlertProducer [nombre])
+            int count = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+            if (count > 0) {
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    producer.sendAlert(testAlert);
+                }
+                long syncNanos = System.nanoTime() - start;
+
+                List<CompletableFuture<Void>> acks = new ArrayList<>(count);
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    acks.add(producer.sendAlertAsync(testAlert));
+                }
+                long asyncNanos = System.nanoTime() - start;
+                CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0])).join();
+                long ackedNanos = System.nanoTime() - start;
+
+                System.out.printf(" Synchrone : %.1f µs/alerte%n", syncNanos / 1000.0 / count);
+                System.out.printf(" Asynchrone: %.1f µs/alerte côté appelant, %.1f µs/alerte jusqu'aux accusés%n",
+                        asyncNanos / 1000.0 / count, ackedNanos / 1000.0 / count);
+                System.out.println(" " + producer.getAsyncSender().getStats());
+            }
             producer.close();
+            JMSResourceManager.getInstance().close();
 
             System.out.println(" Test réussi!");
 
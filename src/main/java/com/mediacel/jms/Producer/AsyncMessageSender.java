@@ -0,0 +1,180 @@
+package com.medical.jms.producer;
+
+import org.apache.activemq.ActiveMQMessageProducer;
+import org.apache.activemq.AsyncCallback;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Envoi asynchrone sur un producteur ActiveMQ : send() rend la main dès que le message est parti,
+ * le CompletableFuture retourné est complété par l'accusé du broker (écriture persistante faite).
+ * Le nombre d'envois non acquittés est borné par maxInFlight : au-delà, send() attend une place.
+ * Un envoi refusé est retenté (délai doublé à chaque essai) puis signalé en échec.
+ */
+public class AsyncMessageSender {
+
+    private static final Logger LOG = Logger.getLogger(AsyncMessageSender.class.getName());
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    private static final long INITIAL_RETRY_DELAY_MS = 100;
+
+    private final ActiveMQMessageProducer producer;
+    private final String name;
+    private final int maxInFlight;
+    private final int maxRetries;
+    private final Semaphore window;
+    private final ScheduledExecutorService retryScheduler;
+
+    // Métriques
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public AsyncMessageSender(MessageProducer producer, String name) {
+        this(producer, name, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_RETRIES);
+    }
+
+    /**
+     * @param producer producteur ActiveMQ (les accusés asynchrones sont propres à ActiveMQ)
+     * @param maxInFlight envois non acquittés autorisés simultanément
+     * @param maxRetries nouvelles tentatives après un refus du broker
+     */
+    public AsyncMessageSender(MessageProducer producer, String name, int maxInFlight, int maxRetries) {
+        if (!(producer instanceof ActiveMQMessageProducer)) {
+            throw new IllegalArgumentException("Envoi asynchrone disponible uniquement avec ActiveMQ");
+        }
+        if (maxInFlight <= 0 || maxRetries < 0) {
+            throw new IllegalArgumentException("Paramètres d'envoi asynchrone invalides");
+        }
+        this.producer = (ActiveMQMessageProducer) producer;
+        this.name = name;
+        this.maxInFlight = maxInFlight;
+        this.maxRetries = maxRetries;
+        this.window = new Semaphore(maxInFlight);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "async-sender-retry-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Envoie le message sans attendre le broker.
+     * Bloque seulement si maxInFlight envois sont déjà en attente d'accusé.
+     */
+    public CompletableFuture<Void> send(Message message) throws JMSException {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JMSException("Envoi interrompu en attente de place dans la fenêtre");
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            attempt(message, future, 0);
+        } catch (JMSException e) {
+            window.release();
+            throw e;
+        }
+        return future;
+    }
+
+    private void attempt(Message message, CompletableFuture<Void> future, int attempt) throws JMSException {
+        // Une session JMS n'est pas multi-thread : les envois (et renvois) sont sérialisés
+        // sur le producteur, comme les envois synchrones de JMSResourceManager.CachedProducer
+        synchronized (producer) {
+            sent.incrementAndGet();
+            producer.send(message, new AsyncCallback() {
+                @Override
+                public void onSuccess() {
+                    acknowledged.incrementAndGet();
+                    window.release();
+                    future.complete(null);
+                }
+
+                @Override
+                public void onException(JMSException exception) {
+                    onFailure(message, future, attempt, exception);
+                }
+            });
+        }
+    }
+
+    // Appelé par le thread de transport ActiveMQ : le renvoi est planifié ailleurs
+    private void onFailure(Message message, CompletableFuture<Void> future, int attempt, JMSException exception) {
+        if (attempt < maxRetries) {
+            long delay = INITIAL_RETRY_DELAY_MS << attempt;
+            try {
+                retryScheduler.schedule(() -> {
+                    try {
+                        attempt(message, future, attempt + 1);
+                    } catch (JMSException e) {
+                        onFailure(message, future, attempt + 1, e);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+                retried.incrementAndGet();
+                LOG.warning("[" + name + "] Envoi refusé (" + exception.getMessage() + "), nouvel essai dans " +
+                        delay + " ms");
+                return;
+            } catch (RejectedExecutionException e) {
+                // Émetteur fermé : plus de renvoi
+            }
+        }
+
+        failed.incrementAndGet();
+        window.release();
+        LOG.severe("[" + name + "] Échec définitif de l'envoi après " + (attempt + 1) + " essai(s): " +
+                exception.getMessage());
+        future.completeExceptionally(exception);
+    }
+
+    /**
+     * Attend que tous les envois en cours soient acquittés ou en échec.
+     * @return false si le délai est écoulé avant
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        if (!window.tryAcquire(maxInFlight, timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        window.release(maxInFlight);
+        return true;
+    }
+
+    // Vide la fenêtre puis arrête les renvois ; le producteur reste à fermer par son propriétaire
+    public void close(long timeoutMillis) {
+        try {
+            if (!flush(timeoutMillis)) {
+                LOG.warning("[" + name + "] " + getInFlightCount() + " envoi(s) encore sans accusé à la fermeture");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        retryScheduler.shutdownNow();
+    }
+
+    // ===== MÉTRIQUES =====
+
+    public long getSentCount() { return sent.get(); }
+    public long getAcknowledgedCount() { return acknowledged.get(); }
+    public long getRetryCount() { return retried.get(); }
+    public long getFailedCount() { return failed.get(); }
+    public int getInFlightCount() { return maxInFlight - window.availablePermits(); }
+
+    public String getStats() {
+        return String.format("%s: envoyés=%d, acquittés=%d, en vol=%d/%d, renvois=%d, échecs=%d",
+                name, sent.get(), acknowledged.get(), getInFlightCount(), maxInFlight, retried.get(), failed.get());
+    }
+}
@@ -1,103 +1,78 @@
 package com.medical.jms.producer;
+import com.medical.jms.config.JMSResourceManager;
 import com.medical.jms.model.MedicalResult;
-import org.apache.activemq.ActiveMQConnectionFactory;
+import com.medical.jms.model.MedicalResultCodec;
 import javax.jms.*;
-import java.text.SimpleDateFormat;
+import java.util.concurrent.CompletableFuture;
 
-public class AlertProducer {
+/**
+ * Producteur des résultats à archiver : chaque résultat part en BytesMessage
+ * au format binaire MedicalResultCodec, avec quelques propriétés pour les sélecteurs JMS.
+ */
+public class MedicalResultProducer {
 
-    private Connection connection;
-    private Session session;
-    private MessageProducer producer;
+    // Producteur partagé du JMSResourceManager (connexion et session mutualisées)
+    private JMSResourceManager.CachedProducer producer;
     private String queueName;
+    private AsyncMessageSender asyncSender;
 
-    public AlertProducer(String queueName) throws JMSException {
-        this.queueName = queueName; // Utiliser le paramètre
+    public MedicalResultProducer(String queueName) throws JMSException {
+        this.queueName = queueName;
         initialize();
     }
 
     private void initialize() throws JMSException {
-        String brokerUrl = "tcp://localhost:61616";
+        producer = JMSResourceManager.getInstance().getProducer(queueName);
+        asyncSender = new AsyncMessageSender(producer.getProducer(), "résultats-" + queueName);
 
-        ConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
-        connection = factory.createConnection();
-        connection.start();
-
-        session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-        Queue queue = session.createQueue(queueName);
-        producer = session.createProducer(queue);
-        producer.setDeliveryMode(DeliveryMode.PERSISTENT);
-
-        System.out.println("Producteur JMS initialisé pour: " + queueName);
+        System.out.println("Producteur de résultats initialisé pour: " + queueName);
     }
 
-    public void sendAlert(MedicalResult alert) throws JMSException {
-        String messageContent = formatAlertMessage(alert);
-
-        TextMessage message = session.createTextMessage(messageContent);
-
-        // Ajouter des propriétés
-        message.setStringProperty("patientId", alert.getPatientId());
-        message.setStringProperty("testType", alert.getTestType());
-        message.setDoubleProperty("value", alert.getValue());
-        message.setBooleanProperty("critical", alert.isCritical());
-
+    // Envoi synchrone : attend l'accusé du broker (écriture persistante)
+    public void sendResult(MedicalResult result) throws JMSException {
+        BytesMessage message = createResultMessage(result);
         producer.send(message);
+    }
 
-        System.out.println(" Alerte JMS envoyée: " + alert.getPatientName());
+    // Envoi asynchrone : le future est complété à l'accusé du broker (voir AsyncMessageSender)
+    public CompletableFuture<Void> sendResultAsync(MedicalResult result) throws JMSException {
+        return asyncSender.send(createResultMessage(result));
     }
 
-    private String formatAlertMessage(MedicalResult alert) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        String timestamp = sdf.format(alert.getTimestamp());
+    private BytesMessage createResultMessage(MedicalResult result) throws JMSException {
+        return createResultMessage(producer.getSession(), result);
+    }
 
-        return String.format(
-                " ALERTE MÉDICALE CRITIQUE\n" +
-                        "────────────────────────────\n" +
-                        "Patient: %s (%s)\n" +
-                        "Test: %s\n" +
-                        "Valeur: %.2f %s\n" +
-                        "Statut: %s\n" +
-                        "Date: %s\n" +
-                        "────────────────────────────",
-                alert.getPatientName(),
-                alert.getPatientId(),
-                alert.getTestType(),
-                alert.getValue(),
-                alert.getUnit(),
-                alert.isCritical() ? "CRITIQUE" : "Normal",
-                timestamp
-        );
+    /** Message de résultat sur une session quelconque (par exemple transactionnelle, voir AlertService). */
+    public static BytesMessage createResultMessage(Session session, MedicalResult result) throws JMSException {
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(MedicalResultCodec.encode(result));
+
+        // Propriétés (filtrage par sélecteur sans décoder le corps)
+        message.setStringProperty(MedicalResultCodec.FORMAT_PROPERTY, MedicalResultCodec.FORMAT_NAME);
+        message.setStringProperty("patientId", result.getPatientId());
+        message.setStringProperty("testType", result.getTestType());
+        message.setBooleanProperty("critical", result.isCritical());
+        return message;
     }
 
-    public void sendTextMessage(String text) throws JMSException {
-        TextMessage message = session.createTextMessage(text);
-        producer.send(message);
-        System.out.println(" Message texte envoyé");
+    public AsyncMessageSender getAsyncSender() {
+        return asyncSender;
     }
 
     public void close() throws JMSException {
-        if (producer != null) producer.close();
-        if (session != null) session.close();
-        if (connection != null) connection.close();
-        System.out.println("Producteur JMS fermé");
+        if (asyncSender != null) asyncSender.close(5000);
+        System.out.println("Producteur de résultats fermé");
     }
 
     // Méthode de test
     public static void main(String[] args) {
         try {
-            AlertProducer producer = new AlertProducer("MedicalAlertsQueue");
-            // Créer une alerte de test
-            MedicalResult testAlert = new MedicalResult(
-                    "PAT001",                    // patientId EN PREMIER (CORRIGÉ)
-                    "Ali Ben Mohamed",          // patientName
-                    "Glycémie",                  // testType
-                    1.45,                        // value
-                    "g/L",                       // unit
-                    true                         // isCritical
-            );
-            producer.sendAlert(testAlert);
+            MedicalResultProducer producer = new MedicalResultProducer("MedicalResultsQueue");
+            MedicalResult result = new MedicalResult("PAT001", "Ali Ben Mohamed", "Glycémie", 1.45, "g/L", true);
+            producer.sendResult(result);
             producer.close();
+            JMSResourceManager.getInstance().close();
 
             System.out.println(" Test réussi!");
 
@@ -106,4 +81,4 @@ public class AlertProducer {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,7 @@
 package com.medical.jms;
 
 import com.medical.jms.config.JMSConstants;
-import org.apache.activemq.ActiveMQConnectionFactory;
+import com.medical.jms.config.JMSResourceManager;
 import javax.jms.*;
 
 public class TestJMSConnection {
@@ -13,13 +13,16 @@ public class TestJMSConnection {
         testBrokerConnection();
         testQueue(JMSConstants.MEDICAL_RESULTS_QUEUE);
         testQueue(JMSConstants.MEDICAL_ALERTS_QUEUE);
+
+        System.out.println("\n3. Utilisation du pool JMS...");
+        System.out.println("   " + JMSResourceManager.getInstance().getStats());
+        JMSResourceManager.getInstance().close();
     }
 
     private static void testBrokerConnection() {
         System.out.println("1. Test connexion broker...");
         try {
-            ConnectionFactory factory = new ActiveMQConnectionFactory(JMSConstants.BROKER_URL);
-            Connection conn = factory.createConnection();
+            Connection conn = JMSResourceManager.getInstance().createConnection();
             conn.start();
             conn.close();
             System.out.println("   ✅ Broker ActiveMQ connecté: " + JMSConstants.BROKER_URL);
@@ -34,8 +37,7 @@ public class TestJMSConnection {
         Session session = null;
 
         try {
-            ConnectionFactory factory = new ActiveMQConnectionFactory(JMSConstants.BROKER_URL);
-            connection = factory.createConnection();
+            connection = JMSResourceManager.getInstance().createConnection();
             connection.start();
 
             session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
@@ -6,6 +6,8 @@ import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
 import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
 
 public class JMSConfig {
 
@@ -13,28 +15,42 @@ public class JMSConfig {
     private static final String BROKER_URL = "tcp://localhost:61616";
     private static final String USERNAME = "admin";
     private static final String PASSWORD = "admin";
+    private static final String MODEL_PACKAGE = "com.medical.jms.model";
 
     /**
      * Crée une fabrique de connexions ActiveMQ configurée
      * @return ConnectionFactory configurée pour se connecter au broker
      */
     public static ConnectionFactory createConnectionFactory() {
+        return createConnectionFactory(BROKER_URL);
+    }
+
+    /**
+     * Fabrique de connexions physiques vers un broker donné (utilisée par JMSResourceManager)
+     * @param brokerUrl URL du broker
+     * @return ConnectionFactory configurée
+     */
+    public static ConnectionFactory createConnectionFactory(String brokerUrl) {
         // Création de la fabrique avec les paramètres d'authentification
-        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(USERNAME, PASSWORD, BROKER_URL);
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(USERNAME, PASSWORD, brokerUrl);
 
-        // Configuration de sécurité pour permettre la sérialisation d'objets
-        factory.setTrustAllPackages(true); // Nécessaire pour les messages avec objets sérialisés
+        // Désérialisation des ObjectMessage : paquets par défaut d'ActiveMQ (java.lang, org.apache.activemq...) et modèle
+        // de l'application seulement. Plus aucun producteur n'envoie d'ObjectMessage ; seuls les consommateurs
+        // (DoctorAlertConsumer, JMSConsumerUI) en acceptent encore d'anciens contenant un MedicalResult
+        List<String> trustedPackages = new ArrayList<>(factory.getTrustedPackages());
+        trustedPackages.add(MODEL_PACKAGE);
+        factory.setTrustedPackages(trustedPackages);
 
         return factory;
     }
 
     /**
-     * Établit une connexion au broker ActiveMQ
-     * @return Connection active au broker
+     * Emprunte une connexion au pool partagé (JMSResourceManager) ; close() la rend au pool
+     * @return Connection au broker
      * @throws JMSException en cas d'échec de connexion
      */
     public static Connection createConnection() throws JMSException {
-        return createConnectionFactory().createConnection();
+        return JMSResourceManager.getInstance().createConnection();
     }
 
     /**
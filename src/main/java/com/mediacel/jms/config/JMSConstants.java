@@ -5,6 +5,8 @@ public class JMSConstants {
     // Files d'attente JMS pour les différents types de messages
     public static final String MEDICAL_RESULTS_QUEUE = "MedicalResultsQueue";
     public static final String MEDICAL_ALERTS_QUEUE = "MedicalAlertsQueue";
+    // File des messages morts par défaut d'ActiveMQ (messages impossibles à traiter)
+    public static final String DEAD_LETTER_QUEUE = "ActiveMQ.DLQ";
 
     // Configuration du broker (répétition pour séparation des préoccupations)
     public static final String BROKER_URL = "tcp://localhost:61616";
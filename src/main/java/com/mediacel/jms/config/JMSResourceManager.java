@@ -0,0 +1,510 @@
+package com.medical.jms.config;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Point d'accès unique aux ressources JMS d'un broker.
+ * Quelques connexions physiques (démarrées, thread-safe) sont partagées à tour de rôle :
+ * createConnection() en rend une vue empruntée dont close() ferme les sessions ouvertes
+ * dessus sans couper le lien TCP ; son ExceptionListener est prévenu si la connexion physique
+ * est perdue. Les sessions ponctuelles (withSession) sont réutilisées,
+ * et les producteurs sont mis en cache par file, chacun sur sa propre session
+ * (une session JMS n'est pas multi-thread) avec des envois sérialisés.
+ */
+public class JMSResourceManager {
+
+    private static final Logger LOG = Logger.getLogger(JMSResourceManager.class.getName());
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+    public static final int DEFAULT_MAX_IDLE_SESSIONS = 16;
+
+    // Un gestionnaire par URL de broker
+    private static final Map<String, JMSResourceManager> MANAGERS = new HashMap<>();
+
+    private final String brokerUrl;
+    private final ConnectionFactory factory;
+    private final Connection[] physical;
+    private final AtomicInteger nextConnection = new AtomicInteger();
+    private final int maxIdleSessions;
+    // Sessions non transactionnelles (accusé automatique) prêtes à être réutilisées
+    private final Deque<Session> idleSessions = new ArrayDeque<>();
+    // Sessions transactionnelles (voir inTransaction), jamais mélangées avec les précédentes
+    private final Deque<Session> idleTransactedSessions = new ArrayDeque<>();
+    // Connexion physique de chaque session mise en commun, pour n'écarter que celles d'une connexion perdue
+    private final Map<Session, Connection> sessionOwners = new ConcurrentHashMap<>();
+    // Vues empruntées non rendues, prévenues de la perte de leur connexion physique
+    private final Set<BorrowedConnection> borrowedViews = ConcurrentHashMap.newKeySet();
+    private final Map<String, CachedProducer> producers = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    // Métriques
+    private final AtomicLong physicalCreated = new AtomicLong();
+    private final AtomicLong physicalLost = new AtomicLong();
+    private final AtomicLong connectionsBorrowed = new AtomicLong();
+    private final AtomicInteger connectionsActive = new AtomicInteger();
+    private final AtomicLong sessionsBorrowed = new AtomicLong();
+    private final AtomicLong sessionsCreated = new AtomicLong();
+    private final AtomicLong producerHits = new AtomicLong();
+    private final AtomicLong producerMisses = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong transactionsCommitted = new AtomicLong();
+    private final AtomicLong transactionsRolledBack = new AtomicLong();
+
+    /** Crée un message sur la session du producteur (voir send). */
+    public interface MessageCreator {
+        Message create(Session session) throws JMSException;
+    }
+
+    /**
+     * Travail effectué sur une session empruntée puis rendue au pool.
+     * Les consommateurs et producteurs créés dessus doivent être fermés avant de rendre la main.
+     */
+    public interface SessionCallback<T> {
+        T doInSession(Session session) throws JMSException;
+    }
+
+    public JMSResourceManager(String brokerUrl, int maxConnections, int maxIdleSessions) {
+        if (maxConnections <= 0 || maxIdleSessions < 0) {
+            throw new IllegalArgumentException("Taille de pool JMS invalide: connexions=" + maxConnections +
+                    ", sessions inactives=" + maxIdleSessions);
+        }
+        this.brokerUrl = brokerUrl;
+        this.factory = JMSConfig.createConnectionFactory(brokerUrl);
+        this.physical = new Connection[maxConnections];
+        this.maxIdleSessions = maxIdleSessions;
+    }
+
+    /** Gestionnaire partagé du broker par défaut (JMSConstants.BROKER_URL). */
+    public static JMSResourceManager getInstance() {
+        return forBroker(JMSConstants.BROKER_URL);
+    }
+
+    public static synchronized JMSResourceManager forBroker(String brokerUrl) {
+        JMSResourceManager manager = MANAGERS.get(brokerUrl);
+        if (manager == null || manager.closed) {
+            manager = new JMSResourceManager(brokerUrl, DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_IDLE_SESSIONS);
+            MANAGERS.put(brokerUrl, manager);
+            LOG.info("JMSResourceManager créé pour " + brokerUrl);
+        }
+        return manager;
+    }
+
+    /**
+     * Connexion empruntée (pour les consommateurs) : vue d'une connexion physique partagée.
+     * close() ferme les sessions créées par cette vue ; stop() et setClientID() ne sont pas
+     * disponibles sur une connexion partagée. L'ExceptionListener de la vue est appelé
+     * quand la connexion physique est perdue (la vue est alors inutilisable : en emprunter une autre).
+     */
+    public Connection createConnection() throws JMSException {
+        Connection connection = physicalConnection();
+        connectionsBorrowed.incrementAndGet();
+        connectionsActive.incrementAndGet();
+        BorrowedConnection view = new BorrowedConnection(connection);
+        borrowedViews.add(view);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, view);
+    }
+
+    /**
+     * Exécute callback sur une session réutilisable (non transactionnelle, accusé automatique).
+     */
+    public <T> T withSession(SessionCallback<T> callback) throws JMSException {
+        Session session = borrowSession(idleSessions, false);
+        boolean reusable = false;
+        try {
+            T result = callback.doInSession(session);
+            reusable = true;
+            return result;
+        } finally {
+            releaseSession(idleSessions, session, reusable);
+        }
+    }
+
+    /**
+     * Exécute callback sur une session transactionnelle réutilisable : commit si le callback
+     * se termine normalement, rollback sinon (aucun des messages envoyés n'est délivré).
+     */
+    public <T> T inTransaction(SessionCallback<T> callback) throws JMSException {
+        Session session = borrowSession(idleTransactedSessions, true);
+        boolean reusable = false;
+        try {
+            T result = callback.doInSession(session);
+            session.commit();
+            transactionsCommitted.incrementAndGet();
+            reusable = true;
+            return result;
+        } catch (JMSException | RuntimeException e) {
+            try {
+                session.rollback();
+            } catch (JMSException rollbackError) {
+                LOG.fine("Rollback impossible: " + rollbackError.getMessage());
+            }
+            transactionsRolledBack.incrementAndGet();
+            throw e;
+        } finally {
+            releaseSession(idleTransactedSessions, session, reusable);
+        }
+    }
+
+    private Session borrowSession(Deque<Session> idle, boolean transacted) throws JMSException {
+        Session session;
+        synchronized (idle) {
+            session = idle.pollFirst();
+        }
+        if (session == null) {
+            Connection connection = physicalConnection();
+            session = connection.createSession(transacted,
+                    transacted ? Session.SESSION_TRANSACTED : Session.AUTO_ACKNOWLEDGE);
+            sessionOwners.put(session, connection);
+            sessionsCreated.incrementAndGet();
+        }
+        sessionsBorrowed.incrementAndGet();
+        return session;
+    }
+
+    // Une session ayant levé une erreur, ou dont la connexion a été perdue pendant l'emprunt,
+    // est fermée plutôt que remise en circulation
+    private void releaseSession(Deque<Session> idle, Session session, boolean reusable) {
+        if (reusable && !closed) {
+            synchronized (idle) {
+                if (idle.size() < maxIdleSessions && isLive(sessionOwners.get(session))) {
+                    idle.addFirst(session);
+                    return;
+                }
+            }
+        }
+        closePooled(session);
+    }
+
+    private void closePooled(Session session) {
+        sessionOwners.remove(session);
+        closeQuietly(session);
+    }
+
+    private boolean isLive(Connection connection) {
+        synchronized (physical) {
+            for (Connection live : physical) {
+                if (live != null && live == connection) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Producteur PERSISTENT en cache pour la file, créé au premier appel.
+     */
+    public CachedProducer getProducer(String queueName) throws JMSException {
+        CachedProducer cached = producers.get(queueName);
+        if (cached != null) {
+            producerHits.incrementAndGet();
+            return cached;
+        }
+        synchronized (producers) {
+            cached = producers.get(queueName);
+            if (cached == null) {
+                Connection connection = physicalConnection();
+                cached = new CachedProducer(queueName, connection,
+                        connection.createSession(false, Session.AUTO_ACKNOWLEDGE));
+                producers.put(queueName, cached);
+                producerMisses.incrementAndGet();
+            } else {
+                producerHits.incrementAndGet();
+            }
+            return cached;
+        }
+    }
+
+    /** Envoie sur la file via son producteur en cache. */
+    public void send(String queueName, MessageCreator creator) throws JMSException {
+        getProducer(queueName).send(creator);
+    }
+
+    // Connexions physiques attribuées à tour de rôle, ouvertes à la première demande
+    private Connection physicalConnection() throws JMSException {
+        checkOpen();
+        int index = Math.floorMod(nextConnection.getAndIncrement(), physical.length);
+        synchronized (physical) {
+            Connection connection = physical[index];
+            if (connection == null) {
+                Connection created = factory.createConnection();
+                created.setExceptionListener(e -> discard(created, e));
+                created.start();
+                physical[index] = created;
+                physicalCreated.incrementAndGet();
+                connection = created;
+            }
+            return connection;
+        }
+    }
+
+    // Connexion perdue : elle sort de la rotation avec ses sessions et producteurs,
+    // et les vues empruntées dessus sont prévenues
+    private void discard(Connection connection, JMSException cause) {
+        LOG.warning("Connexion JMS perdue (" + brokerUrl + "): " + cause.getMessage());
+        physicalLost.incrementAndGet();
+        synchronized (physical) {
+            for (int i = 0; i < physical.length; i++) {
+                if (physical[i] == connection) physical[i] = null;
+            }
+        }
+        producers.values().removeIf(cached -> cached.connection == connection);
+        List<Session> stale = new ArrayList<>();
+        for (Deque<Session> idle : Arrays.asList(idleSessions, idleTransactedSessions)) {
+            synchronized (idle) {
+                for (Iterator<Session> it = idle.iterator(); it.hasNext(); ) {
+                    Session session = it.next();
+                    if (sessionOwners.get(session) == connection) {
+                        stale.add(session);
+                        it.remove();
+                    }
+                }
+            }
+        }
+        stale.forEach(this::closePooled);
+        try {
+            connection.close();
+        } catch (JMSException e) {
+            // Déjà coupée
+        }
+        for (BorrowedConnection view : borrowedViews) {
+            if (view.connection == connection) {
+                view.connectionLost(cause);
+            }
+        }
+    }
+
+    private void checkOpen() throws JMSException {
+        if (closed) {
+            throw new javax.jms.IllegalStateException("JMSResourceManager fermé (" + brokerUrl + ")");
+        }
+    }
+
+    private static void closeQuietly(Session session) {
+        try {
+            session.close();
+        } catch (JMSException e) {
+            LOG.fine("Erreur fermeture session: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Producteur mis en cache : session dédiée, envois synchronisés sur le producteur.
+     * Le producteur est celui d'ActiveMQ, ce qui permet les envois asynchrones avec accusé.
+     */
+    public final class CachedProducer {
+        private final String queueName;
+        private final Connection connection;
+        private final Session session;
+        private final MessageProducer producer;
+
+        private CachedProducer(String queueName, Connection connection, Session session) throws JMSException {
+            this.queueName = queueName;
+            this.connection = connection;
+            this.session = session;
+            this.producer = session.createProducer(session.createQueue(queueName));
+            producer.setDeliveryMode(DeliveryMode.PERSISTENT);
+        }
+
+        public void send(MessageCreator creator) throws JMSException {
+            synchronized (producer) {
+                producer.send(creator.create(session));
+            }
+            messagesSent.incrementAndGet();
+        }
+
+        public void send(Message message) throws JMSException {
+            synchronized (producer) {
+                producer.send(message);
+            }
+            messagesSent.incrementAndGet();
+        }
+
+        /** Session du producteur, pour créer les messages. */
+        public Session getSession() {
+            return session;
+        }
+
+        /** Producteur ActiveMQ ; tout envoi direct doit se synchroniser sur cet objet. */
+        public MessageProducer getProducer() {
+            return producer;
+        }
+
+        public String getQueueName() {
+            return queueName;
+        }
+
+        private void close() {
+            try {
+                producer.close();
+            } catch (JMSException e) {
+                LOG.warning("Erreur fermeture producteur " + queueName + ": " + e.getMessage());
+            }
+            closeQuietly(session);
+        }
+    }
+
+    // Vue empruntée d'une connexion physique : close() ferme ses sessions, pas la connexion
+    private final class BorrowedConnection implements InvocationHandler {
+        private final Connection connection;
+        private final List<Session> sessions = new ArrayList<>();
+        private boolean returned = false;
+        // Appelé depuis le thread d'erreur de la connexion physique (voir discard)
+        private volatile ExceptionListener listener;
+
+        BorrowedConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        void connectionLost(JMSException cause) {
+            ExceptionListener current = listener;
+            if (current == null) return;
+            try {
+                current.onException(cause);
+            } catch (RuntimeException e) {
+                LOG.warning("Erreur dans l'ExceptionListener d'une connexion empruntée: " + e);
+            }
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        sessions.forEach(JMSResourceManager::closeQuietly);
+                        sessions.clear();
+                        borrowedViews.remove(this);
+                        connectionsActive.decrementAndGet();
+                    }
+                    return null;
+                case "stop":
+                    // Connexion partagée : ne pas suspendre les autres utilisateurs
+                    return null;
+                case "setClientID":
+                    throw new javax.jms.IllegalStateException("Identifiant client impossible sur une connexion partagée");
+                case "setExceptionListener":
+                    // Gardé par la vue : l'ExceptionListener de la connexion physique appartient au gestionnaire
+                    listener = (ExceptionListener) args[0];
+                    return null;
+                case "getExceptionListener":
+                    return listener;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "BorrowedConnection[" + connection + "]";
+                default:
+                    if (returned) {
+                        throw new javax.jms.IllegalStateException("Connexion déjà rendue au pool");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Session) {
+                        sessions.add((Session) result);
+                    }
+                    return result;
+            }
+        }
+    }
+
+    // ===== MÉTRIQUES =====
+
+    public int getPhysicalConnectionCount() {
+        int count = 0;
+        synchronized (physical) {
+            for (Connection connection : physical) {
+                if (connection != null) count++;
+            }
+        }
+        return count;
+    }
+
+    public int getIdleSessionCount() {
+        int count;
+        synchronized (idleSessions) {
+            count = idleSessions.size();
+        }
+        synchronized (idleTransactedSessions) {
+            return count + idleTransactedSessions.size();
+        }
+    }
+
+    public int getActiveConnectionCount() { return connectionsActive.get(); }
+    public int getCachedProducerCount() { return producers.size(); }
+    public long getConnectionsBorrowed() { return connectionsBorrowed.get(); }
+    public long getSessionsBorrowed() { return sessionsBorrowed.get(); }
+    public long getSessionsCreated() { return sessionsCreated.get(); }
+    public long getProducerCacheHits() { return producerHits.get(); }
+    public long getProducerCacheMisses() { return producerMisses.get(); }
+    public long getMessagesSent() { return messagesSent.get(); }
+
+    public String getStats() {
+        return String.format("JMSResourceManager [%s] connexions physiques=%d/%d (créées=%d, perdues=%d), " +
+                        "connexions empruntées=%d (actives=%d), sessions empruntées=%d (créées=%d, inactives=%d), " +
+                        "producteurs en cache=%d (hits=%d, créations=%d), envois=%d, transactions=%d (annulées=%d)",
+                brokerUrl, getPhysicalConnectionCount(), physical.length, physicalCreated.get(), physicalLost.get(),
+                connectionsBorrowed.get(), connectionsActive.get(), sessionsBorrowed.get(), sessionsCreated.get(),
+                getIdleSessionCount(), producers.size(), producerHits.get(), producerMisses.get(), messagesSent.get(),
+                transactionsCommitted.get(), transactionsRolledBack.get());
+    }
+
+    public void close() {
+        synchronized (JMSResourceManager.class) {
+            MANAGERS.remove(brokerUrl, this);
+        }
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        LOG.info("Fermeture - " + getStats());
+        producers.values().forEach(CachedProducer::close);
+        producers.clear();
+        for (Deque<Session> idle : Arrays.asList(idleSessions, idleTransactedSessions)) {
+            synchronized (idle) {
+                idle.forEach(JMSResourceManager::closeQuietly);
+                idle.clear();
+            }
+        }
+        sessionOwners.clear();
+        synchronized (physical) {
+            for (int i = 0; i < physical.length; i++) {
+                if (physical[i] == null) continue;
+                try {
+                    physical[i].close();
+                } catch (JMSException e) {
+                    LOG.warning("Erreur fermeture connexion JMS: " + e.getMessage());
+                }
+                physical[i] = null;
+            }
+        }
+    }
+}
@@ -1,162 +1,452 @@
 package com.medical.jms.consumer;
 
-import org.apache.activemq.ActiveMQConnectionFactory;
 import com.medical.jms.config.JMSConstants;
+import com.medical.jms.config.JMSResourceManager;
+import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.MedicalResultCodec;
+import com.medical.jms.service.DatabaseService;
 import javax.jms.*;
-import java.sql.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
-public class DatabaseConsumer implements MessageListener {
+/**
+ * Consommateur transactionnel : reçoit jusqu'à batchSize messages (ou ce qui arrive en maxLatencyMillis),
+ * les insère en un seul lot JDBC dans la base H2 persistante, puis valide la session JMS.
+ * En cas d'échec la session est annulée et les messages sont redélivrés par le broker.
+ * L'id du résultat est dérivé du JMSMessageID et l'insertion ignore les doublons :
+ * un lot rejoué après un commit JMS manqué ne crée donc pas de doublon.
+ * Les résultats arrivent au format binaire MedicalResultCodec (BytesMessage) ou en JSON (TextMessage).
+ * Si le lot échoue sur une erreur de données, ses messages sont réinsérés un par un : ceux qui échouent
+ * seuls (nom trop long...) partent dans la file des messages morts et le reste est validé normalement.
+ * Une erreur de connexion à la base annule au contraire la session : le lot sera redélivré.
+ * Les messages illisibles (JSON ou binaire invalide, type non pris en charge) y partent aussi.
+ * Après une erreur JMS, la session est rouverte au bout d'une attente croissante (connexion neuve si besoin).
+ */
+public class DatabaseConsumer {
 
     private static final Logger LOG = Logger.getLogger(DatabaseConsumer.class.getName());
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_LATENCY_MS = 200;
+
+    // Longueur de la colonne id de medical_results
+    private static final int MAX_ID_LENGTH = 50;
+    // Attente avant de rouvrir la session après une erreur JMS, doublée à chaque échec consécutif
+    private static final long MIN_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 5000;
+
     private javax.jms.Connection jmsConnection;  // Fully qualified name
+    // Passe à vrai si le worker remplace une connexion partagée perdue par la sienne
+    private boolean ownsConnection;
+    private final String queueName;
     private Session session;
     private MessageConsumer consumer;
-    private java.sql.Connection dbConnection;    // Fully qualified name
+    private MessageProducer deadLetterProducer;
+    private final DatabaseService dbService;
+    private final boolean ownsDbService;
+
+    private final int batchSize;
+    private final long maxLatencyMillis;
+    private final Thread receiver;
+    private volatile boolean running = true;
+
+    // Métriques
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rollbacks = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    // Retard (lag) : temps entre l'envoi du message le plus ancien du lot et la validation
+    private volatile long lastLagMillis;
+    private final AtomicLong totalLagMillis = new AtomicLong();
 
     public DatabaseConsumer(String queueName) throws Exception {
-        // Connexion JMS
-        ConnectionFactory factory = new ActiveMQConnectionFactory(JMSConstants.BROKER_URL);
-        jmsConnection = factory.createConnection();
-        jmsConnection.start();
+        this(queueName, DEFAULT_BATCH_SIZE, DEFAULT_MAX_LATENCY_MS, null);
+    }
+
+    /**
+     * @param batchSize nombre maximal de messages validés ensemble
+     * @param maxLatencyMillis délai maximal d'attente pour compléter un lot
+     * @param dbService service de persistance partagé, ou null pour en créer un
+     */
+    public DatabaseConsumer(String queueName, int batchSize, long maxLatencyMillis,
+                            DatabaseService dbService) throws Exception {
+        this(null, queueName, batchSize, maxLatencyMillis, dbService, "database-consumer-" + queueName);
+    }
 
-        session = jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-        Queue queue = session.createQueue(queueName);
-        consumer = session.createConsumer(queue);
-        consumer.setMessageListener(this);
+    /**
+     * Constructeur d'un worker de DatabaseConsumerPool : session et consommateur propres
+     * sur une connexion JMS partagée (connection null pour en emprunter une au JMSResourceManager).
+     */
+    DatabaseConsumer(javax.jms.Connection connection, String queueName, int batchSize, long maxLatencyMillis,
+                     DatabaseService dbService, String name) throws Exception {
+        if (batchSize <= 0 || maxLatencyMillis <= 0) {
+            throw new IllegalArgumentException("Paramètres de lot invalides");
+        }
+        this.batchSize = batchSize;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.queueName = queueName;
+
+        // Base H2 persistante (partitionnée) au lieu de la base en mémoire
+        this.ownsDbService = dbService == null;
+        this.dbService = ownsDbService ? new DatabaseService() : dbService;
+
+        // Connexion JMS, session transactionnelle
+        this.ownsConnection = connection == null;
+        if (ownsConnection) {
+            // Connexion empruntée au pool partagé, rendue par close()
+            jmsConnection = JMSResourceManager.getInstance().createConnection();
+        } else {
+            jmsConnection = connection;
+        }
+        openSession();
+        jmsConnection.start();
 
-        // Connexion H2 Database (base de données en mémoire)
-        Class.forName("org.h2.Driver");
-        dbConnection = DriverManager.getConnection("jdbc:h2:mem:medicaldb", "sa", "");
-        createDatabaseTable();
+        receiver = new Thread(this::receiveLoop, name);
+        receiver.start();
 
-        LOG.info("DatabaseConsumer prêt pour: " + queueName);
+        LOG.info("DatabaseConsumer prêt pour: " + queueName + " (lot=" + batchSize +
+                ", latence max=" + maxLatencyMillis + " ms)");
     }
 
-    private void createDatabaseTable() throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS medical_results (" +
-                "id INT AUTO_INCREMENT PRIMARY KEY, " +
-                "patient_id VARCHAR(50), " +
-                "patient_name VARCHAR(100), " +
-                "test_type VARCHAR(50), " +
-                "result_value VARCHAR(50), " +
-                "unit VARCHAR(20), " +
-                "reference_range VARCHAR(50), " +
-                "is_critical BOOLEAN, " +
-                "timestamp TIMESTAMP, " +
-                "received_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+    // Session transactionnelle, consommateur et producteur de messages morts.
+    // Si la connexion ne permet plus d'ouvrir de session (connexion perdue), une nouvelle est empruntée.
+    private void openSession() throws JMSException {
+        try {
+            session = jmsConnection.createSession(true, Session.SESSION_TRANSACTED);
+        } catch (JMSException e) {
+            if (!running) throw e;
+            LOG.warning("Connexion JMS inutilisable, emprunt d'une nouvelle: " + e.getMessage());
+            if (ownsConnection) {
+                closeQuietly(jmsConnection);
+            }
+            jmsConnection = JMSResourceManager.getInstance().createConnection();
+            ownsConnection = true;
+            jmsConnection.start();
+            session = jmsConnection.createSession(true, Session.SESSION_TRANSACTED);
+        }
+        consumer = session.createConsumer(session.createQueue(queueName));
+        // Même session : le renvoi d'un message en échec est validé avec le reste du lot
+        deadLetterProducer = session.createProducer(session.createQueue(JMSConstants.DEAD_LETTER_QUEUE));
+    }
 
-        try (Statement stmt = dbConnection.createStatement()) {
-            stmt.execute(sql);
-            LOG.info("Table medical_results créée");
+    // Ferme la session en erreur ; ses messages non validés seront redélivrés
+    private void closeSession() {
+        Session closing = session;
+        session = null;
+        consumer = null;
+        deadLetterProducer = null;
+        if (closing != null) {
+            try {
+                closing.close();
+            } catch (JMSException e) {
+                LOG.fine("Erreur fermeture session JMS: " + e.getMessage());
+            }
         }
     }
 
-    @Override
-    public void onMessage(Message message) {
+    private static void closeQuietly(javax.jms.Connection connection) {
         try {
-            if (message instanceof TextMessage) {
-                TextMessage textMessage = (TextMessage) message;
-                String content = textMessage.getText();
-
-                // Extraire les informations du message
-                String patientId = message.getStringProperty("patientId");
-                String patientName = extractValue(content, "patientName");
-                String testType = extractValue(content, "testType");
-                String resultValue = extractValue(content, "resultValue");
-                String unit = extractValue(content, "unit");
-                String refRange = extractValue(content, "referenceRange");
-                boolean critical = Boolean.parseBoolean(extractValue(content, "isCritical"));
-
-                // Sauvegarder dans la base de données
-                saveToDatabase(patientId, patientName, testType, resultValue, unit, refRange, critical);
-
-                LOG.info("Résultat sauvegardé: " + patientName + " - " + testType);
+            connection.close();
+        } catch (JMSException e) {
+            LOG.fine("Erreur fermeture connexion JMS: " + e.getMessage());
+        }
+    }
+
+    private void receiveLoop() {
+        List<Message> messages = new ArrayList<>(batchSize);
+        long backoffMillis = 0;
+        while (running) {
+            try {
+                if (session == null) {
+                    openSession();
+                    reconnects.incrementAndGet();
+                    LOG.info("Session JMS rouverte sur " + queueName);
+                }
+                Message first = consumer.receive(maxLatencyMillis);
+                backoffMillis = 0;
+                if (first == null) {
+                    continue;
+                }
+                messages.add(first);
+
+                // Compléter le lot jusqu'à la taille maximale ou l'échéance
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+                while (messages.size() < batchSize) {
+                    Message next = consumer.receiveNoWait();
+                    if (next == null) {
+                        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                        if (remaining <= 0 || !running) break;
+                        next = consumer.receive(remaining);
+                        if (next == null) break;
+                    }
+                    messages.add(next);
+                }
+
+                processBatch(messages);
+            } catch (JMSException e) {
+                if (!running) break;
+                // Session abandonnée puis rouverte après une attente croissante : pas de boucle à vide
+                // si la connexion est coupée
+                backoffMillis = backoffMillis == 0 ? MIN_BACKOFF_MS : Math.min(backoffMillis * 2, MAX_BACKOFF_MS);
+                LOG.severe("Erreur JMS: " + e.getMessage() + ", nouvel essai dans " + backoffMillis + " ms");
+                closeSession();
+                pause(backoffMillis);
+            } catch (RuntimeException e) {
+                // Erreur inattendue (base, décodage) : le lot est redélivré et le thread continue
+                LOG.severe("Erreur traitement lot de " + messages.size() + " message(s), annulation: " + e);
+                rollback();
+            } finally {
+                messages.clear();
             }
-        } catch (Exception e) {
-            LOG.severe("Erreur traitement message: " + e.getMessage());
         }
     }
 
-    private void saveToDatabase(String patientId, String patientName, String testType,
-                                String resultValue, String unit, String refRange,
-                                boolean critical) throws SQLException {
-        String sql = "INSERT INTO medical_results " +
-                "(patient_id, patient_name, test_type, result_value, unit, " +
-                "reference_range, is_critical, timestamp) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+    // Insère le lot puis valide la session JMS ; si l'insertion échoue, reprend message par message
+    private void processBatch(List<Message> messages) throws JMSException {
+        received.addAndGet(messages.size());
+
+        List<MedicalResult> results = new ArrayList<>(messages.size());
+        List<Message> sources = new ArrayList<>(messages.size());
+        // Messages à renvoyer dans la file des messages morts avec la validation du lot
+        List<Message> failed = new ArrayList<>();
+        for (Message message : messages) {
+            try {
+                results.add(toMedicalResult(message));
+                sources.add(message);
+            } catch (IOException | JMSException | RuntimeException e) {
+                LOG.warning("Message illisible " + message.getJMSMessageID() + ": " + e.getMessage());
+                failed.add(message);
+            }
+        }
+
+        int rows;
+        try {
+            rows = dbService.saveResultsIdempotent(results);
+            duplicates.addAndGet(results.size() - rows);
+        } catch (SQLException e) {
+            if (isConnectivityError(e)) {
+                LOG.severe("Base indisponible, annulation du lot de " + messages.size() + " message(s): " +
+                        e.getMessage());
+                rollback();
+                return;
+            }
+            LOG.warning("Erreur sauvegarde lot de " + results.size() + " résultat(s), reprise un par un: " +
+                    e.getMessage());
+            rows = saveOneByOne(results, sources, failed);
+            if (rows < 0) {
+                return;
+            }
+        }
+        for (Message message : failed) {
+            deadLetterProducer.send(message);
+        }
+        deadLettered.addAndGet(failed.size());
+        session.commit();
+        recordLag(messages);
+        committed.addAndGet(messages.size());
+        saved.addAndGet(rows);
+        batches.incrementAndGet();
+        LOG.fine("Lot sauvegardé: " + rows + "/" + messages.size() + " message(s)");
+    }
 
-        try (PreparedStatement pstmt = dbConnection.prepareStatement(sql)) {
-            pstmt.setString(1, patientId);
-            pstmt.setString(2, patientName);
-            pstmt.setString(3, testType);
-            pstmt.setString(4, resultValue);
-            pstmt.setString(5, unit);
-            pstmt.setString(6, refRange);
-            pstmt.setBoolean(7, critical);
+    /**
+     * Réinsère chaque résultat seul ; les messages rejetés pour leurs données sont ajoutés à failed
+     * (renvoyés en messages morts par l'appelant), quel que soit leur nombre. Sur une erreur de connexion,
+     * la session est annulée et le lot sera redélivré.
+     * @return lignes insérées, ou -1 si la session a été annulée
+     */
+    private int saveOneByOne(List<MedicalResult> results, List<Message> sources,
+                             List<Message> failed) throws JMSException {
+        int rows = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                int inserted = dbService.saveResultsIdempotent(Collections.singletonList(results.get(i)));
+                rows += inserted;
+                duplicates.addAndGet(1 - inserted);
+            } catch (SQLException e) {
+                if (isConnectivityError(e)) {
+                    LOG.severe("Base indisponible pendant la reprise, annulation: " + e.getMessage());
+                    rollback();
+                    return -1;
+                }
+                failed.add(sources.get(i));
+                LOG.warning("Message en échec " + sources.get(i).getJMSMessageID() + ": " + e.getMessage());
+            }
+        }
+        return rows;
+    }
 
-            pstmt.executeUpdate();
+    // Erreur de connexion (classe d'état SQL 08) plutôt que donnée invalide ; en cas de doute,
+    // on vérifie que le pool fournit encore une connexion valide
+    private boolean isConnectivityError(SQLException e) {
+        if (e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        if (state != null && state.startsWith("08")) {
+            return true;
         }
+        return !dbService.isAvailable();
     }
 
-    private String extractValue(String json, String field) {
+    // Attente interrompue par close() : vérifie running à chaque tranche de maxLatencyMillis
+    private void pause(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
         try {
-            String search = "\"" + field + "\":";
-            int start = json.indexOf(search);
-            if (start == -1) return "";
-
-            start += search.length();
-            int end = json.indexOf(",", start);
-            if (end == -1) end = json.indexOf("}", start);
+            long remaining;
+            while (running && (remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) > 0) {
+                Thread.sleep(Math.min(remaining, maxLatencyMillis));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
 
-            String value = json.substring(start, end).trim();
+    private void rollback() {
+        if (session == null) return;
+        rollbacks.incrementAndGet();
+        try {
+            session.rollback();
+        } catch (JMSException e) {
+            LOG.severe("Erreur annulation session JMS: " + e.getMessage());
+        }
+    }
 
-            if (value.startsWith("\"")) {
-                value = value.substring(1, value.length() - 1);
+    private void recordLag(List<Message> messages) throws JMSException {
+        long oldest = Long.MAX_VALUE;
+        for (Message message : messages) {
+            if (message.getJMSTimestamp() > 0) {
+                oldest = Math.min(oldest, message.getJMSTimestamp());
             }
+        }
+        if (oldest != Long.MAX_VALUE) {
+            lastLagMillis = Math.max(0, System.currentTimeMillis() - oldest);
+            totalLagMillis.addAndGet(lastLagMillis);
+        }
+    }
 
-            return value;
-        } catch (Exception e) {
-            return "";
+    // IOException si le contenu est illisible ou le type de message non pris en charge
+    private MedicalResult toMedicalResult(Message message) throws JMSException, IOException {
+        MedicalResult result;
+        if (message instanceof BytesMessage) {
+            // Format binaire (MedicalResultProducer) : l'horodatage vient du producteur, mais pas l'id
+            // ("MED" + millis + aléatoire sur 3 chiffres, en collision sous charge) : comme en JSON,
+            // l'id est dérivé du JMSMessageID, unique par message et stable d'une livraison à l'autre
+            BytesMessage bytesMessage = (BytesMessage) message;
+            byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(body);
+            result = MedicalResultCodec.decode(body);
+            result.setId(resultId(message.getJMSMessageID()));
+            return result;
+        }
+        if (!(message instanceof TextMessage)) {
+            throw new IOException("Type de message non pris en charge: " + message.getClass().getSimpleName());
+        }
+        // Ancien format JSON (un seul parcours du texte)
+        String content = ((TextMessage) message).getText();
+        result = MedicalResultJsonParser.parse(content, message.getStringProperty("patientId"));
+
+        // Id et horodatage stables d'une livraison à l'autre (idempotence)
+        result.setId(resultId(message.getJMSMessageID()));
+        if (message.getJMSTimestamp() > 0) {
+            result.setTimestamp(new Date(message.getJMSTimestamp()));
+        }
+        return result;
+    }
+
+    private static String resultId(String messageId) {
+        if (messageId.length() <= MAX_ID_LENGTH) {
+            return messageId;
         }
+        return "JMS-" + UUID.nameUUIDFromBytes(messageId.getBytes(StandardCharsets.UTF_8));
     }
 
-    public void displayResults() throws SQLException {
-        String sql = "SELECT * FROM medical_results ORDER BY received_at DESC";
+    public void displayResults() {
+        List<MedicalResult> results = dbService.getRecentResults(100);
 
-        try (Statement stmt = dbConnection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        System.out.println("\n=== RÉSULTATS EN BASE DE DONNÉES ===");
+        System.out.printf("%-10s %-20s %-15s %-10s %-6s %s%n",
+                "ID Patient", "Nom", "Test", "Valeur", "Unit", "Critique");
+        System.out.println("------------------------------------------------------------");
 
-            System.out.println("\n=== RÉSULTATS EN BASE DE DONNÉES ===");
+        for (MedicalResult result : results) {
             System.out.printf("%-10s %-20s %-15s %-10s %-6s %s%n",
-                    "ID Patient", "Nom", "Test", "Valeur", "Unit", "Critique");
-            System.out.println("------------------------------------------------------------");
-
-            while (rs.next()) {
-                System.out.printf("%-10s %-20s %-15s %-10s %-6s %s%n",
-                        rs.getString("patient_id"),
-                        rs.getString("patient_name"),
-                        rs.getString("test_type"),
-                        rs.getString("result_value"),
-                        rs.getString("unit"),
-                        rs.getBoolean("is_critical") ? "OUI" : "non"
-                );
-            }
+                    result.getPatientId(),
+                    result.getPatientName(),
+                    result.getTestType(),
+                    result.getFormattedValue(),
+                    result.getUnit(),
+                    result.isCritical() ? "OUI" : "non"
+            );
         }
     }
 
-    public void close() throws JMSException, SQLException {
+    // ===== MÉTRIQUES =====
+
+    public long getReceivedCount() { return received.get(); }
+    public long getCommittedCount() { return committed.get(); }
+    public long getSavedCount() { return saved.get(); }
+    public long getDuplicateCount() { return duplicates.get(); }
+    public long getRollbackCount() { return rollbacks.get(); }
+    public long getDeadLetterCount() { return deadLettered.get(); }
+    public long getReconnectCount() { return reconnects.get(); }
+    public long getBatchCount() { return batches.get(); }
+    public long getLastLagMillis() { return lastLagMillis; }
+
+    public double getAverageLagMillis() {
+        long count = batches.get();
+        return count == 0 ? 0 : (double) totalLagMillis.get() / count;
+    }
+
+    public String getStats() {
+        return String.format(
+                "DatabaseConsumer [lot=%d, latence=%d ms] reçus=%d, validés=%d, sauvegardés=%d, doublons=%d, messages morts=%d, lots=%d, annulations=%d, reconnexions=%d",
+                batchSize, maxLatencyMillis, received.get(), committed.get(), saved.get(), duplicates.get(),
+                deadLettered.get(), batches.get(), rollbacks.get(), reconnects.get());
+    }
+
+    // Arrête la réception après le lot en cours ; les messages non validés restent dans la file
+    public void close() throws JMSException {
+        running = false;
+        try {
+            receiver.join(maxLatencyMillis * 4 + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         if (consumer != null) consumer.close();
+        if (deadLetterProducer != null) deadLetterProducer.close();
         if (session != null) session.close();
-        if (jmsConnection != null) jmsConnection.close();
-        if (dbConnection != null) dbConnection.close();
-        LOG.info("DatabaseConsumer fermé");
+        if (ownsConnection && jmsConnection != null) jmsConnection.close();
+        if (ownsDbService) dbService.close();
+        LOG.info("DatabaseConsumer fermé - " + getStats());
     }
 
+    // Usage : DatabaseConsumer [messagesEnRafale] [tailleLot] [latenceMs]
     public static void main(String[] args) {
+        int bulkCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BATCH_SIZE;
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_MAX_LATENCY_MS;
         try {
             // Démarrer le consumer
-            DatabaseConsumer consumer = new DatabaseConsumer(JMSConstants.MEDICAL_RESULTS_QUEUE);
+            DatabaseConsumer consumer = new DatabaseConsumer(JMSConstants.MEDICAL_RESULTS_QUEUE,
+                    batchSize, latency, null);
+            AtomicLong bulkStart = new AtomicLong();
             // Démarrer un thread pour envoyer des messages de test après 2 secondes
             new Thread(() -> {
                 try {
@@ -165,8 +455,7 @@ public class DatabaseConsumer implements MessageListener {
                     System.out.println("\n=== ENVOI DE MESSAGES DE TEST ===");
 
                     // Connexion pour envoyer des messages
-                    ConnectionFactory factory = new ActiveMQConnectionFactory("tcp://localhost:61616");
-                    javax.jms.Connection conn = factory.createConnection();
+                    javax.jms.Connection conn = JMSResourceManager.getInstance().createConnection();
                     conn.start();
 
                     Session session = conn.createSession(false, Session.AUTO_ACKNOWLEDGE);
@@ -198,25 +487,59 @@ public class DatabaseConsumer implements MessageListener {
                     producer.send(msg3);
                     System.out.println("3. Message envoyé: Paul Martin - Tension");
 
+                    // Débit : envoi en rafale, validé en une seule transaction côté producteur
+                    bulkStart.set(System.currentTimeMillis());
+                    Session bulkSession = conn.createSession(true, Session.SESSION_TRANSACTED);
+                    MessageProducer bulkProducer = bulkSession.createProducer(bulkSession.createQueue("MedicalResultsQueue"));
+                    for (int i = 0; i < bulkCount; i++) {
+                        if (i == bulkCount / 2) {
+                            // Nom trop long pour la colonne : seul ce message doit partir en messages morts
+                            TextMessage poison = bulkSession.createTextMessage("{\"patientName\":\"" +
+                                    "X".repeat(150) + "\",\"testType\":\"Glycémie\",\"resultValue\":\"1.0\"," +
+                                    "\"unit\":\"g/L\",\"referenceRange\":\"0.70-1.10\",\"isCritical\":false}");
+                            poison.setStringProperty("patientId", "PAT9999");
+                            bulkProducer.send(poison);
+                            // JSON illisible : ne doit pas être perdu non plus
+                            TextMessage unreadable = bulkSession.createTextMessage("{\"patientName\":");
+                            unreadable.setStringProperty("patientId", "PAT9998");
+                            bulkProducer.send(unreadable);
+                        }
+                        TextMessage msg = bulkSession.createTextMessage("{\"patientName\":\"Patient " + i +
+                                "\",\"testType\":\"Glycémie\",\"resultValue\":\"" + (0.8 + (i % 10) / 10.0) +
+                                "\",\"unit\":\"g/L\",\"referenceRange\":\"0.70-1.10\",\"isCritical\":false}");
+                        msg.setStringProperty("patientId", "PAT" + (2000 + i % 100));
+                        bulkProducer.send(msg);
+                    }
+                    bulkSession.commit();
+                    bulkProducer.close();
+                    bulkSession.close();
+
                     producer.close();
                     session.close();
                     conn.close();
 
-                    System.out.println("=== 3 messages de test envoyés ===\n");
+                    System.out.println("=== " + (5 + bulkCount) + " messages de test envoyés (dont 2 invalides) ===\n");
 
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
             }).start();
 
-            System.out.println("Attente de messages (30 secondes)...");
-            Thread.sleep(30000); // Attendre 30 secondes
+            System.out.println("Attente de messages (30 secondes max)...");
+            long deadline = System.currentTimeMillis() + 30000;
+            while (consumer.getCommittedCount() < 5 + bulkCount && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            double seconds = (System.currentTimeMillis() - bulkStart.get()) / 1000.0;
+            System.out.printf("Débit: %.0f messages/s%n", bulkCount / Math.max(seconds, 0.001));
+            System.out.println(consumer.getStats());
 
             consumer.displayResults();
             consumer.close();
+            JMSResourceManager.getInstance().close();
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
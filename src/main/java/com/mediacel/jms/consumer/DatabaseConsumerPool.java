@@ -0,0 +1,276 @@
+package com.medical.jms.consumer;
+
+import com.medical.jms.config.JMSConstants;
+import com.medical.jms.config.JMSResourceManager;
+import com.medical.jms.service.DatabaseService;
+
+import javax.jms.*;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Pool de consommateurs concurrents sur une même file : chaque worker est un DatabaseConsumer
+ * transactionnel avec sa propre session JMS, et emprunte sa connexion JDBC au pool du DatabaseService.
+ * Un thread de surveillance estime la profondeur de la file (QueueBrowser plafonné)
+ * et ajoute ou retire un worker à chaque contrôle, entre minWorkers et maxWorkers.
+ */
+public class DatabaseConsumerPool {
+
+    private static final Logger LOG = Logger.getLogger(DatabaseConsumerPool.class.getName());
+
+    // Au-delà, le parcours de la file coûterait plus qu'il n'apporte
+    private static final int DEPTH_BROWSE_CAP = 10_000;
+    // Contrôles consécutifs sans arriéré avant de retirer un worker
+    private static final int IDLE_CHECKS_BEFORE_SCALE_DOWN = 3;
+
+    private final String queueName;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final int batchSize;
+    private final long maxLatencyMillis;
+    private final long scaleIntervalMillis;
+
+    private final javax.jms.Connection jmsConnection;
+    private final Session browserSession;
+    private final Queue queue;
+    private final DatabaseService dbService;
+    private final boolean ownsDbService;
+
+    private final List<Worker> workers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger workerSequence = new AtomicInteger();
+    private final Thread monitor;
+    private volatile boolean running = true;
+    private volatile int lastDepth;
+    private int idleChecks;
+    // Messages validés par les workers déjà retirés
+    private volatile long retiredCommitted;
+
+    // Un worker et ses compteurs au dernier contrôle (pour le débit instantané)
+    private static final class Worker {
+        final String name;
+        final DatabaseConsumer consumer;
+        long lastCommitted;
+        long lastCheckNanos = System.nanoTime();
+        volatile double throughput;
+
+        Worker(String name, DatabaseConsumer consumer) {
+            this.name = name;
+            this.consumer = consumer;
+        }
+    }
+
+    /**
+     * @param dbService service de persistance partagé, ou null pour en créer un
+     *                  dont le pool JDBC peut servir maxWorkers connexions simultanées
+     */
+    public DatabaseConsumerPool(String queueName, int minWorkers, int maxWorkers, int batchSize,
+                                long maxLatencyMillis, long scaleIntervalMillis,
+                                DatabaseService dbService) throws Exception {
+        if (minWorkers <= 0 || maxWorkers < minWorkers || scaleIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Paramètres du pool de consommateurs invalides");
+        }
+        this.queueName = queueName;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.batchSize = batchSize;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.scaleIntervalMillis = scaleIntervalMillis;
+
+        this.ownsDbService = dbService == null;
+        this.dbService = ownsDbService
+                ? new DatabaseService(2, Math.max(10, maxWorkers + 2), 5000, 60000)
+                : dbService;
+
+        jmsConnection = JMSResourceManager.getInstance().createConnection();
+        jmsConnection.start();
+
+        browserSession = jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        queue = browserSession.createQueue(queueName);
+
+        for (int i = 0; i < minWorkers; i++) {
+            addWorker();
+        }
+
+        monitor = new Thread(this::runMonitor, "database-consumer-pool-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+
+        LOG.info("DatabaseConsumerPool prêt pour: " + queueName + " (" + minWorkers + ".." + maxWorkers + " workers)");
+    }
+
+    private synchronized void addWorker() throws Exception {
+        String name = "database-consumer-" + queueName + "-" + workerSequence.incrementAndGet();
+        // Prefetch limité à un lot (option de destination, la fabrique étant partagée) :
+        // un worker ne monopolise pas les messages des autres
+        DatabaseConsumer consumer = new DatabaseConsumer(jmsConnection,
+                queueName + "?consumer.prefetchSize=" + batchSize, batchSize, maxLatencyMillis, dbService, name);
+        workers.add(new Worker(name, consumer));
+    }
+
+    // Retire le dernier worker ; son lot en cours est validé, ses messages préchargés retournent au broker
+    private synchronized void removeWorker() throws JMSException {
+        Worker worker = workers.remove(workers.size() - 1);
+        worker.consumer.close();
+        retiredCommitted += worker.consumer.getCommittedCount();
+    }
+
+    private void runMonitor() {
+        while (running) {
+            try {
+                Thread.sleep(scaleIntervalMillis);
+                updateThroughput();
+                lastDepth = estimateQueueDepth();
+                autoscale(lastDepth);
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } catch (Exception e) {
+                LOG.severe("Erreur surveillance du pool: " + e.getMessage());
+            }
+        }
+    }
+
+    private void updateThroughput() {
+        long now = System.nanoTime();
+        for (Worker worker : workers) {
+            long committed = worker.consumer.getCommittedCount();
+            double seconds = (now - worker.lastCheckNanos) / 1e9;
+            worker.throughput = seconds > 0 ? (committed - worker.lastCommitted) / seconds : 0;
+            worker.lastCommitted = committed;
+            worker.lastCheckNanos = now;
+        }
+    }
+
+    // Un worker de plus si l'arriéré dépasse un lot par worker, un de moins après plusieurs contrôles à vide
+    private synchronized void autoscale(int depth) throws Exception {
+        int count = workers.size();
+        if (depth > count * batchSize && count < maxWorkers) {
+            idleChecks = 0;
+            addWorker();
+            LOG.info("Profondeur " + depth + " : ajout d'un worker (" + workers.size() + ")");
+        } else if (depth == 0 && count > minWorkers) {
+            if (++idleChecks >= IDLE_CHECKS_BEFORE_SCALE_DOWN) {
+                idleChecks = 0;
+                removeWorker();
+                LOG.info("File vide : retrait d'un worker (" + workers.size() + ")");
+            }
+        } else {
+            idleChecks = 0;
+        }
+    }
+
+    /**
+     * Estime le nombre de messages en attente en parcourant la file, plafonné à DEPTH_BROWSE_CAP.
+     */
+    public int estimateQueueDepth() throws JMSException {
+        int depth = 0;
+        QueueBrowser browser = browserSession.createBrowser(queue);
+        try {
+            Enumeration<?> messages = browser.getEnumeration();
+            while (messages.hasMoreElements() && depth < DEPTH_BROWSE_CAP) {
+                messages.nextElement();
+                depth++;
+            }
+        } finally {
+            browser.close();
+        }
+        return depth;
+    }
+
+    // ===== MÉTRIQUES =====
+
+    public int getWorkerCount() { return workers.size(); }
+    public int getLastQueueDepth() { return lastDepth; }
+
+    public long getCommittedCount() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.consumer.getCommittedCount();
+        }
+        return total + retiredCommitted;
+    }
+
+    public String getStats() {
+        StringBuilder stats = new StringBuilder(String.format(
+                "DatabaseConsumerPool [%s] workers=%d (%d..%d), profondeur≈%d, validés=%d",
+                queueName, workers.size(), minWorkers, maxWorkers, lastDepth, getCommittedCount()));
+        for (Worker worker : workers) {
+            DatabaseConsumer consumer = worker.consumer;
+            stats.append(String.format("%n   %s: %.0f msg/s, validés=%d, lots=%d, lag=%d ms (moy %.0f ms), annulations=%d",
+                    worker.name, worker.throughput, consumer.getCommittedCount(), consumer.getBatchCount(),
+                    consumer.getLastLagMillis(), consumer.getAverageLagMillis(), consumer.getRollbackCount()));
+        }
+        return stats.toString();
+    }
+
+    public void close() throws JMSException {
+        running = false;
+        monitor.interrupt();
+        try {
+            monitor.join(scaleIntervalMillis + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            List<Worker> stopping = new ArrayList<>(workers);
+            for (Worker worker : stopping) {
+                worker.consumer.close();
+            }
+        }
+        browserSession.close();
+        jmsConnection.close();
+        if (ownsDbService) dbService.close();
+        LOG.info("DatabaseConsumerPool fermé - " + getStats());
+    }
+
+    // Usage : DatabaseConsumerPool [messagesEnRafale] [minWorkers] [maxWorkers]
+    public static void main(String[] args) {
+        int bulkCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int min = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int max = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        try {
+            DatabaseConsumerPool pool = new DatabaseConsumerPool(JMSConstants.MEDICAL_RESULTS_QUEUE,
+                    min, max, DatabaseConsumer.DEFAULT_BATCH_SIZE, DatabaseConsumer.DEFAULT_MAX_LATENCY_MS, 500, null);
+
+            System.out.println("\n=== ENVOI DE " + bulkCount + " MESSAGES ===");
+            javax.jms.Connection conn = JMSResourceManager.getInstance().createConnection();
+            Session session = conn.createSession(true, Session.SESSION_TRANSACTED);
+            MessageProducer producer = session.createProducer(session.createQueue(JMSConstants.MEDICAL_RESULTS_QUEUE));
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < bulkCount; i++) {
+                TextMessage msg = session.createTextMessage("{\"patientName\":\"Patient " + i +
+                        "\",\"testType\":\"Tension\",\"resultValue\":\"" + (110 + i % 40) +
+                        "\",\"unit\":\"mmHg\",\"referenceRange\":\"120/80\",\"isCritical\":" + (i % 50 == 0) + "}");
+                msg.setStringProperty("patientId", "PAT" + (3000 + i % 200));
+                producer.send(msg);
+                if ((i + 1) % 1000 == 0) {
+                    session.commit();
+                }
+            }
+            session.commit();
+            conn.close();
+
+            while (pool.getCommittedCount() < bulkCount && System.currentTimeMillis() - start < 120000) {
+                Thread.sleep(1000);
+                System.out.println(pool.getStats());
+            }
+            double seconds = (System.currentTimeMillis() - start) / 1000.0;
+            System.out.printf("%n%d messages en %.1f s (%.0f messages/s)%n", pool.getCommittedCount(), seconds,
+                    pool.getCommittedCount() / seconds);
+
+            // Laisser le pool revenir au minimum une fois la file vide
+            Thread.sleep(500L * (IDLE_CHECKS_BEFORE_SCALE_DOWN + 1) * max);
+            System.out.println(pool.getStats());
+            pool.close();
+            System.out.println(JMSResourceManager.getInstance().getStats());
+            JMSResourceManager.getInstance().close();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
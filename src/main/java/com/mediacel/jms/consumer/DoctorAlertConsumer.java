@@ -3,7 +3,9 @@ package com.medical.jms.consumer;
 
 // Importation des classes nécessaires
 import com.medical.jms.config.JMSConstants;
-import org.apache.activemq.ActiveMQConnectionFactory;
+import com.medical.jms.config.JMSResourceManager;
+import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.MedicalResultCodec;
 import javax.jms.*;
 
 // Classe consommatrice d'alertes médicales pour les médecins
@@ -29,11 +31,8 @@ public class DoctorAlertConsumer implements MessageListener {
         System.out.println("   Broker: " + JMSConstants.BROKER_URL);
         System.out.println("   Queue: " + queueName);
 
-        // Étape 1 : Créer la fabrique de connexions ActiveMQ
-        ConnectionFactory factory = new ActiveMQConnectionFactory(JMSConstants.BROKER_URL);
-
-        // Étape 2 : Créer et démarrer la connexion au broker
-        connection = factory.createConnection();
+        // Étapes 1 et 2 : Emprunter une connexion au pool partagé et la démarrer
+        connection = JMSResourceManager.getInstance().createConnection();
         connection.start(); // Démarre la réception des messages
 
         // Étape 3 : Créer une session JMS (non transactionnelle avec accusé automatique)
@@ -126,6 +125,22 @@ public class DoctorAlertConsumer implements MessageListener {
                             message.getStringProperty("patientId") + " - " +
                             message.getStringProperty("testType"));
                 }
+            } else if (message instanceof BytesMessage) {
+                // Résultat au format binaire (MedicalResultCodec)
+                BytesMessage bytesMessage = (BytesMessage) message;
+                byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(body);
+                MedicalResult result = MedicalResultCodec.decode(body);
+
+                if (result.isCritical()) {
+                    System.out.println();
+                    System.out.println("ALERTE MÉDICALE CRITIQUE");
+                    System.out.println(result.toDetailedString());
+                    System.out.println();
+                } else {
+                    System.out.println("Message reçu (non critique): " +
+                            result.getPatientId() + " - " + result.getTestType());
+                }
             } else if (message instanceof ObjectMessage) {
                 // Traitement pour les messages objets (peuvent contenir des alertes système)
                 System.out.println("Message objet reçu (alerte système)");
@@ -164,7 +179,7 @@ public class DoctorAlertConsumer implements MessageListener {
             // Fermer la connexion au broker
             if (connection != null) {
                 connection.close();
-                System.out.println("   Connexion fermée");
+                System.out.println("   Connexion rendue au pool");
             }
         } catch (JMSException e) {
             System.err.println("   Erreur fermeture connexion: " + e.getMessage());
@@ -208,6 +223,7 @@ public class DoctorAlertConsumer implements MessageListener {
             if (consumer != null) {
                 consumer.close(); // Fermeture propre du consommateur
             }
+            JMSResourceManager.getInstance().close();
 
             // Message de fin
             System.out.println();
@@ -0,0 +1,359 @@
+package com.medical.jms.consumer;
+
+import com.medical.jms.model.MedicalResult;
+
+import java.io.IOException;
+
+/**
+ * Décodeur JSON des messages de résultats : un seul parcours du texte, sans arbre intermédiaire
+ * ni tampon de lecture, directement vers un MedicalResult. Les noms de champs sont comparés
+ * en place et seules les valeurs retenues sont extraites (une sous-chaîne, sans copie
+ * supplémentaire quand elles ne contiennent pas d'échappement).
+ * Les champs inconnus sont ignorés ; les valeurs peuvent être des chaînes ou des nombres.
+ */
+public final class MedicalResultJsonParser {
+
+    private static final String[] FIELDS = {
+            "patientId", "patientName", "testType", "resultValue", "unit", "referenceRange", "isCritical"
+    };
+    private static final int PATIENT_ID = 0;
+    private static final int IS_CRITICAL = 6;
+
+    private final String json;
+    private int pos;
+    // Prochain '\' du texte (-1 s'il n'y en a plus) : sans échappement, les chaînes sont délimitées par indexOf
+    private int backslash;
+
+    private MedicalResultJsonParser(String json) {
+        this.json = json;
+        this.backslash = json.indexOf('\\');
+    }
+
+    private int nextBackslash(int from) {
+        if (backslash >= 0 && backslash < from) {
+            backslash = json.indexOf('\\', from);
+        }
+        return backslash;
+    }
+
+    /**
+     * @param patientId identifiant porté par la propriété JMS, prioritaire sur le champ JSON
+     * @throws IOException si le message n'est pas un objet JSON valide
+     */
+    public static MedicalResult parse(String json, String patientId) throws IOException {
+        if (json == null) {
+            throw new IOException("JSON invalide: message vide");
+        }
+        String[] values = new MedicalResultJsonParser(json).readFields();
+
+        return new MedicalResult(patientId != null ? patientId : values[PATIENT_ID],
+                orEmpty(values[1]), orEmpty(values[2]), orEmpty(values[3]), orEmpty(values[4]), orEmpty(values[5]),
+                Boolean.parseBoolean(values[IS_CRITICAL]));
+    }
+
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    // Parcourt l'objet racine et retourne les valeurs des champs connus, dans l'ordre de FIELDS
+    private String[] readFields() throws IOException {
+        String[] values = new String[FIELDS.length];
+
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return values;
+        }
+
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int field = readFieldName();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (field >= 0) {
+                values[field] = readValue();
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            char c = next();
+            if (c == '}') break;
+            if (c != ',') throw error("',' ou '}' attendu");
+        }
+        return values;
+    }
+
+    // Compare le nom en place avec les champs connus ; -1 si le champ est inconnu
+    private int readFieldName() throws IOException {
+        int start = pos;
+        int end = json.indexOf('"', start);
+        if (end < 0) throw error("nom de champ non terminé");
+
+        int escape = nextBackslash(start);
+        if (escape >= 0 && escape < end) {
+            // Nom avec échappement (rare) : décodage complet
+            pos = start;
+            String name = readString();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (FIELDS[i].equals(name)) return i;
+            }
+            return -1;
+        }
+
+        pos = end + 1;
+        int length = end - start;
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].length() == length && json.regionMatches(start, FIELDS[i], 0, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Valeur retenue sous forme de texte : chaîne décodée, nombre ou booléen tel quel, null -> null
+    private String readValue() throws IOException {
+        char c = peek();
+        if (c == '"') {
+            pos++;
+            return readString();
+        }
+        if (c == '{' || c == '[') {
+            skipValue();
+            return null;
+        }
+        int start = pos;
+        skipLiteral();
+        String literal = json.substring(start, pos);
+        return "null".equals(literal) ? null : literal;
+    }
+
+    // Lit une chaîne dont le guillemet ouvrant a déjà été consommé
+    private String readString() throws IOException {
+        int start = pos;
+        int end = json.indexOf('"', start);
+        if (end < 0) throw error("chaîne non terminée");
+
+        int escape = nextBackslash(start);
+        if (escape >= 0 && escape < end) {
+            return readEscapedString(start, escape);
+        }
+        pos = end + 1;
+        return json.substring(start, end);
+    }
+
+    private String readEscapedString(int start, int firstEscape) throws IOException {
+        StringBuilder sb = new StringBuilder(firstEscape - start + 16);
+        sb.append(json, start, firstEscape);
+        pos = firstEscape;
+
+        while (pos < json.length()) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char e = next();
+            switch (e) {
+                case '"': case '\\': case '/': sb.append(e); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > json.length()) throw error("séquence \\u incomplète");
+                    try {
+                        sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("séquence \\u invalide");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw error("échappement invalide \\" + e);
+            }
+        }
+        throw error("chaîne non terminée");
+    }
+
+    // Saute une valeur quelconque (y compris objets et tableaux imbriqués)
+    private void skipValue() throws IOException {
+        char c = peek();
+        if (c == '"') {
+            pos++;
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = next();
+                if (c == '"') {
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            skipLiteral();
+        }
+    }
+
+    private void skipString() throws IOException {
+        int end = json.indexOf('"', pos);
+        int escape = nextBackslash(pos);
+        if (end >= 0 && (escape < 0 || escape > end)) {
+            pos = end + 1;
+            return;
+        }
+        while (pos < json.length()) {
+            char c = json.charAt(pos++);
+            if (c == '"') return;
+            if (c == '\\') pos++;
+        }
+        throw error("chaîne non terminée");
+    }
+
+    // Nombre, true, false ou null : jusqu'au prochain séparateur
+    private void skipLiteral() throws IOException {
+        int start = pos;
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) break;
+            pos++;
+        }
+        if (pos == start) throw error("valeur attendue");
+    }
+
+    private void skipWhitespace() {
+        while (pos < json.length() && isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    // Blancs autorisés par JSON
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private char peek() throws IOException {
+        if (pos >= json.length()) throw error("fin de message inattendue");
+        return json.charAt(pos);
+    }
+
+    private char next() throws IOException {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (next() != expected) {
+            pos--;
+            throw error("'" + expected + "' attendu");
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException("JSON invalide à la position " + pos + ": " + message);
+    }
+
+    // ===== BANC D'ESSAI =====
+
+    // Ancien extracteur de DatabaseConsumer (un indexOf par champ), conservé pour comparaison
+    private static String legacyExtractValue(String json, String field) {
+        try {
+            String search = "\"" + field + "\":";
+            int start = json.indexOf(search);
+            if (start == -1) return "";
+
+            start += search.length();
+            int end = json.indexOf(",", start);
+            if (end == -1) end = json.indexOf("}", start);
+
+            String value = json.substring(start, end).trim();
+
+            if (value.startsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+
+            return value;
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private static MedicalResult legacyParse(String json, String patientId) {
+        return new MedicalResult(patientId,
+                legacyExtractValue(json, "patientName"),
+                legacyExtractValue(json, "testType"),
+                legacyExtractValue(json, "resultValue"),
+                legacyExtractValue(json, "unit"),
+                legacyExtractValue(json, "referenceRange"),
+                Boolean.parseBoolean(legacyExtractValue(json, "isCritical")));
+    }
+
+    // Usage : MedicalResultJsonParser [itérations]
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println(" BANC D'ESSAI PARSEUR JSON");
+        System.out.println("============================\n");
+
+        String[] payloads = {
+                "{\"patientName\":\"Jean Dupont\",\"testType\":\"Glycémie\",\"resultValue\":\"0.95\",\"unit\":\"g/L\"," +
+                        "\"referenceRange\":\"0.70-1.10 g/L\",\"isCritical\":false}",
+                "{\"patientName\":\"Marie Curie\",\"testType\":\"Cholestérol\",\"resultValue\":2.45,\"unit\":\"g/L\"," +
+                        "\"referenceRange\":\"< 2.0 g/L\",\"isCritical\":true}",
+                "{\"patientName\":\"Martin, Paul\",\"testType\":\"Créatinine\",\"resultValue\":\"14.2\",\"unit\":\"mg/dL\"," +
+                        "\"referenceRange\":\"6-13 mg/dL\",\"isCritical\":true,\"doctorNotes\":\"À recontrôler, \\\"urgent\\\"\"}",
+                "{\"isCritical\":true,\"unit\":\"°C\",\"resultValue\":\"39.4\",\"testType\":\"Température\"," +
+                        "\"patientName\":\"Fatima Zohra\",\"referenceRange\":\"36.5-37.5 °C\"}"
+        };
+
+        // 1. Exactitude : le nom contenant une virgule casse l'ancien extracteur
+        System.out.println("1. Comparaison des résultats...");
+        for (String payload : payloads) {
+            MedicalResult legacy = legacyParse(payload, "PAT001");
+            MedicalResult parsed = parse(payload, "PAT001");
+            boolean same = legacy.getPatientName().equals(parsed.getPatientName())
+                    && legacy.getValue() == parsed.getValue() && legacy.isCritical() == parsed.isCritical();
+            System.out.println("   " + (same ? "= " : "≠ ") + parsed.getPatientName() + " / " + parsed.getTestType() +
+                    " " + parsed.getValue() + (same ? "" : "   (ancien: '" + legacy.getPatientName() + "', " +
+                    legacy.getValue() + ", critique=" + legacy.isCritical() + ")"));
+        }
+
+        // 2. Débit (préchauffage puis mesure)
+        System.out.println("\n2. Débit sur " + iterations + " messages...");
+        long sink = 0;
+        for (int i = 0; i < iterations / 10; i++) {
+            sink += legacyParse(payloads[i & 3], "PAT").getTestType().length();
+            sink += parse(payloads[i & 3], "PAT").getTestType().length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += legacyParse(payloads[i & 3], "PAT").getTestType().length();
+        }
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += parse(payloads[i & 3], "PAT").getTestType().length();
+        }
+        long parserNanos = System.nanoTime() - start;
+
+        System.out.printf("   indexOf (ancien): %6.0f ns/message%n", (double) legacyNanos / iterations);
+        System.out.printf("   Mono-passe      : %6.0f ns/message%n", (double) parserNanos / iterations);
+        System.out.printf("   Rapport         : %.2fx%n", (double) legacyNanos / parserNanos);
+        System.out.println("   (contrôle " + sink + ")");
+    }
+}
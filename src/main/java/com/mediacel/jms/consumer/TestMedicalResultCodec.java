@@ -0,0 +1,163 @@
+package com.medical.jms.consumer;
+
+import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.MedicalResultCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Vérifie le format binaire MedicalResultCodec (aller-retour, compatibilité entre versions)
+ * puis compare taille et coût d'encodage + décodage avec le JSON texte et la sérialisation Java.
+ * Usage : TestMedicalResultCodec [itérations]
+ */
+public class TestMedicalResultCodec {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        System.out.println(" TEST DU FORMAT BINAIRE MedicalResult");
+        System.out.println("======================================\n");
+
+        MedicalResult[] samples = {
+                new MedicalResult("PAT001", "Jean Dupont", "Glycémie", "0.95", "g/L", "0.70-1.10 g/L", false),
+                new MedicalResult("PAT002", "Marie Curie", "Cholestérol", "2.45", "g/L", "< 2.0 g/L", true),
+                new MedicalResult("PAT003", "Martin, Paul", "Créatinine", "14.2", "mg/dL", "6-13 mg/dL", true),
+                new MedicalResult("PAT004", "Fatima Zohra", "Température", "39.4", "°C", "36.5-37.5 °C", true)
+        };
+        samples[2].setDoctorNotes("À recontrôler, \"urgent\"");
+
+        // 1. Aller-retour
+        System.out.println("1. Aller-retour...");
+        for (MedicalResult sample : samples) {
+            check(sameResult(sample, MedicalResultCodec.decode(MedicalResultCodec.encode(sample))),
+                    "aller-retour " + sample.getPatientId());
+        }
+
+        // 2. Message d'une version plus récente : champ inconnu (étiquette 42) ignoré
+        System.out.println("2. Compatibilité ascendante (champ inconnu)...");
+        byte[] encoded = MedicalResultCodec.encode(samples[1]);
+        byte[] extra = "champ futur".getBytes(StandardCharsets.UTF_8);
+        byte[] newer = Arrays.copyOf(encoded, encoded.length + 2 + extra.length);
+        newer[2] = (byte) (MedicalResultCodec.VERSION + 1);
+        newer[encoded.length] = 42;
+        newer[encoded.length + 1] = (byte) extra.length;
+        System.arraycopy(extra, 0, newer, encoded.length + 2, extra.length);
+        check(sameResult(samples[1], MedicalResultCodec.decode(newer)), "champ inconnu ignoré");
+
+        // 3. Message d'une version plus ancienne : champs absents -> valeurs par défaut
+        System.out.println("3. Compatibilité descendante (champs absents)...");
+        byte[] older = {'M', 'R', 1, 2, 6, 'P', 'A', 'T', '0', '0', '9'};
+        MedicalResult partial = MedicalResultCodec.decode(older);
+        check("PAT009".equals(partial.getPatientId()) && partial.getId() == null && !partial.isCritical()
+                && partial.getTimestamp() != null && "".equals(partial.getDoctorNotes()), "champs par défaut");
+
+        // 4. Messages invalides rejetés
+        System.out.println("4. Messages invalides...");
+        check(rejected("{\"patientName\":\"x\"}".getBytes(StandardCharsets.UTF_8)), "en-tête absent");
+        check(rejected(Arrays.copyOf(encoded, encoded.length - 3)), "message tronqué");
+
+        // 5. Taille moyenne du corps
+        System.out.println("\n5. Taille du corps (moyenne)...");
+        long jsonBytes = 0, javaBytes = 0, binaryBytes = 0;
+        for (MedicalResult sample : samples) {
+            jsonBytes += toJson(sample).getBytes(StandardCharsets.UTF_8).length;
+            javaBytes += serialize(sample).length;
+            binaryBytes += MedicalResultCodec.encode(sample).length;
+        }
+        System.out.printf("   JSON texte        : %5d octets%n", jsonBytes / samples.length);
+        System.out.printf("   Sérialisation Java: %5d octets%n", javaBytes / samples.length);
+        System.out.printf("   Binaire v%d        : %5d octets%n", MedicalResultCodec.VERSION, binaryBytes / samples.length);
+
+        // 6. Coût encodage + décodage (préchauffage puis mesure)
+        System.out.println("\n6. Encodage + décodage sur " + iterations + " messages...");
+        long sink = 0;
+        for (int i = 0; i < iterations / 5; i++) {
+            sink += jsonRoundTrip(samples[i & 3]) + javaRoundTrip(samples[i & 3]) + binaryRoundTrip(samples[i & 3]);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) sink += jsonRoundTrip(samples[i & 3]);
+        long jsonNanos = System.nanoTime() - start;
+
+        int javaIterations = iterations / 10;
+        start = System.nanoTime();
+        for (int i = 0; i < javaIterations; i++) sink += javaRoundTrip(samples[i & 3]);
+        long javaNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) sink += binaryRoundTrip(samples[i & 3]);
+        long binaryNanos = System.nanoTime() - start;
+
+        System.out.printf("   JSON texte        : %7.0f ns/message%n", (double) jsonNanos / iterations);
+        System.out.printf("   Sérialisation Java: %7.0f ns/message%n", (double) javaNanos / javaIterations);
+        System.out.printf("   Binaire v%d        : %7.0f ns/message%n", MedicalResultCodec.VERSION,
+                (double) binaryNanos / iterations);
+        System.out.println("   (contrôle " + sink + ")");
+
+        System.out.println("\n TESTS TERMINÉS");
+    }
+
+    // Format texte des producteurs JSON, relu par le parseur de DatabaseConsumer
+    private static String toJson(MedicalResult r) {
+        return "{\"patientName\":\"" + escape(r.getPatientName()) + "\",\"testType\":\"" + escape(r.getTestType()) +
+                "\",\"resultValue\":\"" + r.getValue() + "\",\"unit\":\"" + escape(r.getUnit()) +
+                "\",\"referenceRange\":\"" + escape(r.getReferenceRange()) + "\",\"isCritical\":" + r.isCritical() + "}";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static int jsonRoundTrip(MedicalResult r) throws IOException {
+        byte[] body = toJson(r).getBytes(StandardCharsets.UTF_8);
+        return MedicalResultJsonParser.parse(new String(body, StandardCharsets.UTF_8), r.getPatientId())
+                .getTestType().length();
+    }
+
+    private static byte[] serialize(MedicalResult r) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(r);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Chemin ObjectMessage : sérialisation Java dans les deux sens
+    private static int javaRoundTrip(MedicalResult r) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialize(r)))) {
+            return ((MedicalResult) in.readObject()).getTestType().length();
+        }
+    }
+
+    private static int binaryRoundTrip(MedicalResult r) throws IOException {
+        return MedicalResultCodec.decode(MedicalResultCodec.encode(r)).getTestType().length();
+    }
+
+    private static boolean sameResult(MedicalResult a, MedicalResult b) {
+        return a.getId().equals(b.getId()) && a.getPatientId().equals(b.getPatientId())
+                && a.getPatientName().equals(b.getPatientName()) && a.getTestType().equals(b.getTestType())
+                && Double.compare(a.getValue(), b.getValue()) == 0 && a.getUnit().equals(b.getUnit())
+                && a.getReferenceRange().equals(b.getReferenceRange()) && a.isCritical() == b.isCritical()
+                && a.getTimestamp().equals(b.getTimestamp()) && a.getDoctorNotes().equals(b.getDoctorNotes());
+    }
+
+    private static boolean rejected(byte[] data) {
+        try {
+            MedicalResultCodec.decode(data);
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static void check(boolean ok, String label) {
+        System.out.println("   " + (ok ? "✅ " : "❌ ") + label);
+        if (!ok) throw new IllegalStateException("Échec: " + label);
+    }
+}
@@ -1,11 +1,21 @@
 
 package com.medical.jms.model;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
-public class MedicalResult implements Serializable {
+public class MedicalResult implements Externalizable {
+    private static final long serialVersionUID = 1L;
+    // Format écrit par writeExternal : à incrémenter si les champs écrits changent
+    private static final int SERIAL_FORMAT = 1;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
     private String id;
     private String patientName;
     private String patientId;
@@ -63,6 +73,12 @@ public class MedicalResult implements Serializable {
         this.doctorNotes = "";
     }
 
+    // Constructeur vide réservé au décodage (MedicalResultCodec, Externalizable) : ni log ni id aléatoire
+    public MedicalResult() {
+        this.timestamp = new Date();
+        this.doctorNotes = "";
+    }
+
     // Méthode utilitaire pour générer un ID patient
     private static String generatePatientId(String patientName) {
         if (patientName == null || patientName.isEmpty()) {
@@ -134,6 +150,42 @@ public class MedicalResult implements Serializable {
     public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
     public void setDoctorNotes(String doctorNotes) { this.doctorNotes = doctorNotes; }
 
+    // Sérialisation compacte (RMI, ObjectMessage) : chaînes répétées par référence, date en millisecondes.
+    // id, patient et notes ne passent pas par le dictionnaire (SerialStrings).
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(SERIAL_FORMAT);
+        out.writeBoolean(isCritical);
+        out.writeDouble(value);
+        out.writeLong(timestamp != null ? timestamp.getTime() : NO_TIMESTAMP);
+        out.writeObject(id);
+        out.writeObject(patientId);
+        out.writeObject(patientName);
+        SerialStrings.write(out, testType);
+        SerialStrings.write(out, unit);
+        SerialStrings.write(out, referenceRange);
+        out.writeObject(doctorNotes);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int format = in.readUnsignedByte();
+        if (format != SERIAL_FORMAT) {
+            throw new InvalidClassException(MedicalResult.class.getName(), "format inconnu: " + format);
+        }
+        isCritical = in.readBoolean();
+        value = in.readDouble();
+        long time = in.readLong();
+        timestamp = time != NO_TIMESTAMP ? new Date(time) : null;
+        id = (String) in.readObject();
+        patientId = (String) in.readObject();
+        patientName = (String) in.readObject();
+        testType = SerialStrings.read(in);
+        unit = SerialStrings.read(in);
+        referenceRange = SerialStrings.read(in);
+        doctorNotes = (String) in.readObject();
+    }
+
     // Méthode utilitaire pour obtenir la valeur en String formatée
     public String getFormattedValue() {
         return String.format("%.2f", value);
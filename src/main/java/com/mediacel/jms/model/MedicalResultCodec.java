@@ -0,0 +1,223 @@
+package com.medical.jms.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Format binaire versionné d'un MedicalResult (corps des BytesMessage JMS).
+ *
+ * En-tête : magique 'M' 'R', version du format (1 octet).
+ * Corps : suite de champs (étiquette 1 octet, longueur varint, contenu).
+ * Compatibilité : un lecteur ignore les étiquettes qu'il ne connaît pas (message plus récent)
+ * et garde la valeur par défaut des champs absents (message plus ancien).
+ * Une étiquette n'est jamais réutilisée pour un autre sens.
+ */
+public final class MedicalResultCodec {
+
+    public static final int VERSION = 1;
+
+    // Propriété JMS indiquant le format du corps
+    public static final String FORMAT_PROPERTY = "format";
+    public static final String FORMAT_NAME = "medical-result-bin";
+
+    private static final byte MAGIC_0 = 'M';
+    private static final byte MAGIC_1 = 'R';
+    private static final int HEADER_SIZE = 3;
+
+    // Étiquettes des champs (version 1)
+    private static final int TAG_ID = 1;
+    private static final int TAG_PATIENT_ID = 2;
+    private static final int TAG_PATIENT_NAME = 3;
+    private static final int TAG_TEST_TYPE = 4;
+    private static final int TAG_VALUE = 5;            // double IEEE 754, 8 octets
+    private static final int TAG_UNIT = 6;
+    private static final int TAG_REFERENCE_RANGE = 7;
+    private static final int TAG_CRITICAL = 8;         // 1 octet
+    private static final int TAG_TIMESTAMP = 9;        // millisecondes epoch, varint
+    private static final int TAG_DOCTOR_NOTES = 10;
+
+    private MedicalResultCodec() {
+    }
+
+    public static byte[] encode(MedicalResult result) {
+        Writer out = new Writer(128);
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeByte(VERSION);
+
+        out.writeString(TAG_ID, result.getId());
+        out.writeString(TAG_PATIENT_ID, result.getPatientId());
+        out.writeString(TAG_PATIENT_NAME, result.getPatientName());
+        out.writeString(TAG_TEST_TYPE, result.getTestType());
+
+        out.writeByte(TAG_VALUE);
+        out.writeVarint(8);
+        out.writeLong(Double.doubleToRawLongBits(result.getValue()));
+
+        out.writeString(TAG_UNIT, result.getUnit());
+        out.writeString(TAG_REFERENCE_RANGE, result.getReferenceRange());
+
+        out.writeByte(TAG_CRITICAL);
+        out.writeVarint(1);
+        out.writeByte(result.isCritical() ? 1 : 0);
+
+        if (result.getTimestamp() != null) {
+            out.writeByte(TAG_TIMESTAMP);
+            out.writeVarint(Writer.varintSize(result.getTimestamp().getTime()));
+            out.writeVarint(result.getTimestamp().getTime());
+        }
+
+        String notes = result.getDoctorNotes();
+        if (!notes.isEmpty()) {
+            out.writeString(TAG_DOCTOR_NOTES, notes);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IOException si l'en-tête est absent ou le message tronqué
+     */
+    public static MedicalResult decode(byte[] data) throws IOException {
+        return decode(data, data.length);
+    }
+
+    public static MedicalResult decode(byte[] data, int length) throws IOException {
+        if (!isEncoded(data, length)) {
+            throw new IOException("En-tête MedicalResult binaire absent");
+        }
+
+        MedicalResult result = new MedicalResult();
+        int pos = HEADER_SIZE;
+        while (pos < length) {
+            int tag = data[pos++] & 0xFF;
+            long size = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (pos >= length || shift > 28) throw new IOException("Longueur de champ invalide (étiquette " + tag + ")");
+                b = data[pos++];
+                size |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            if (size > length - pos) {
+                throw new IOException("Message tronqué (étiquette " + tag + ")");
+            }
+            int start = pos;
+            int len = (int) size;
+            pos += len;
+
+            switch (tag) {
+                case TAG_ID:              result.setId(string(data, start, len)); break;
+                case TAG_PATIENT_ID:      result.setPatientId(string(data, start, len)); break;
+                case TAG_PATIENT_NAME:    result.setPatientName(string(data, start, len)); break;
+                case TAG_TEST_TYPE:       result.setTestType(string(data, start, len)); break;
+                case TAG_VALUE:           result.setValue(Double.longBitsToDouble(readLong(data, start, len))); break;
+                case TAG_UNIT:            result.setUnit(string(data, start, len)); break;
+                case TAG_REFERENCE_RANGE: result.setReferenceRange(string(data, start, len)); break;
+                case TAG_CRITICAL:        result.setCritical(len > 0 && data[start] != 0); break;
+                case TAG_TIMESTAMP:       result.setTimestamp(new Date(readVarint(data, start, len))); break;
+                case TAG_DOCTOR_NOTES:    result.setDoctorNotes(string(data, start, len)); break;
+                default:
+                    // Champ d'une version plus récente : ignoré
+            }
+        }
+        return result;
+    }
+
+    public static boolean isEncoded(byte[] data, int length) {
+        return length >= HEADER_SIZE && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    // Version du format d'un message encodé (information, le décodage n'en dépend pas)
+    public static int versionOf(byte[] data) {
+        return data.length >= HEADER_SIZE ? data[2] & 0xFF : 0;
+    }
+
+    private static String string(byte[] data, int start, int len) {
+        return new String(data, start, len, StandardCharsets.UTF_8);
+    }
+
+    private static long readLong(byte[] data, int start, int len) throws IOException {
+        if (len != 8) throw new IOException("Valeur numérique invalide");
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[start + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long readVarint(byte[] data, int start, int len) throws IOException {
+        long value = 0;
+        int shift = 0;
+        for (int i = 0; i < len; i++) {
+            if (shift > 63) throw new IOException("Varint invalide");
+            value |= (long) (data[start + i] & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    // Tampon d'écriture extensible (évite ByteArrayOutputStream et ses verrous)
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeVarint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        static int varintSize(long v) {
+            int size = 1;
+            while ((v & ~0x7FL) != 0) {
+                size++;
+                v >>>= 7;
+            }
+            return size;
+        }
+
+        // Champ texte ; null n'est pas écrit (le lecteur garde la valeur par défaut)
+        void writeString(int tag, String value) {
+            if (value == null) return;
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeByte(tag);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+}
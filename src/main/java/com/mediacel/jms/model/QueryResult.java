@@ -0,0 +1,169 @@
+package com.medical.jms.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Réponse d'une ResultQuery, en colonnes : seules les colonnes projetées sont présentes
+ * (null sinon) et transmises. Les chaînes répétées sont partagées, donc écrites une seule fois
+ * dans le flux RMI : types de test et unités par SerialStrings, patients par un dictionnaire
+ * propre à la réponse (libéré avec elle).
+ */
+public class QueryResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final EnumSet<ResultQuery.Field> fields;
+    private final int size;
+    // Limite atteinte : d'autres résultats correspondent
+    private final boolean truncated;
+    private final String source;
+    private final String[] patientIds;
+    private final String[] patientNames;
+    private final String[] testTypes;
+    private final double[] values;
+    private final String[] units;
+    private final boolean[] critical;
+    private final long[] timestamps;
+
+    private QueryResult(Rows rows, boolean truncated, String source) {
+        int n = rows.size;
+        this.fields = rows.fields;
+        this.size = n;
+        this.truncated = truncated;
+        this.source = source;
+        this.patientIds = rows.patientIds != null ? Arrays.copyOf(rows.patientIds, n) : null;
+        this.patientNames = rows.patientNames != null ? Arrays.copyOf(rows.patientNames, n) : null;
+        this.testTypes = rows.testTypes != null ? Arrays.copyOf(rows.testTypes, n) : null;
+        this.values = rows.values != null ? Arrays.copyOf(rows.values, n) : null;
+        this.units = rows.units != null ? Arrays.copyOf(rows.units, n) : null;
+        this.critical = rows.critical != null ? Arrays.copyOf(rows.critical, n) : null;
+        this.timestamps = rows.timestamps != null ? Arrays.copyOf(rows.timestamps, n) : null;
+    }
+
+    public int size() { return size; }
+    public boolean isTruncated() { return truncated; }
+    // "mémoire" ou "base"
+    public String getSource() { return source; }
+    public Set<ResultQuery.Field> getFields() { return EnumSet.copyOf(fields); }
+
+    // Accès par ligne ; IllegalStateException si la colonne n'a pas été demandée
+    public String getPatientId(int row) { return column(patientIds, ResultQuery.Field.PATIENT_ID)[row]; }
+    public String getPatientName(int row) { return column(patientNames, ResultQuery.Field.PATIENT_NAME)[row]; }
+    public String getTestType(int row) { return column(testTypes, ResultQuery.Field.TEST_TYPE)[row]; }
+    public String getUnit(int row) { return column(units, ResultQuery.Field.UNIT)[row]; }
+
+    public double getValue(int row) {
+        checkField(values != null, ResultQuery.Field.VALUE);
+        return values[row];
+    }
+
+    public boolean isCritical(int row) {
+        checkField(critical != null, ResultQuery.Field.CRITICAL);
+        return critical[row];
+    }
+
+    public Date getTimestamp(int row) {
+        checkField(timestamps != null, ResultQuery.Field.TIMESTAMP);
+        return timestamps[row] != Long.MIN_VALUE ? new Date(timestamps[row]) : null;
+    }
+
+    private static String[] column(String[] column, ResultQuery.Field field) {
+        checkField(column != null, field);
+        return column;
+    }
+
+    private static void checkField(boolean present, ResultQuery.Field field) {
+        if (!present) {
+            throw new IllegalStateException("Colonne non projetée: " + field);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QueryResult[" + size + " ligne(s)" + (truncated ? " (tronqué)" : "") + ", colonnes=" + fields +
+                ", source=" + source + "]";
+    }
+
+    /** Remplissage ligne par ligne côté serveur ; les colonnes non projetées sont ignorées. */
+    public static final class Rows {
+        private final EnumSet<ResultQuery.Field> fields;
+        private int size;
+        private String[] patientIds;
+        private String[] patientNames;
+        private String[] testTypes;
+        private double[] values;
+        private String[] units;
+        private boolean[] critical;
+        private long[] timestamps;
+        // Patients déjà vus dans cette réponse
+        private final Map<String, String> patients = new HashMap<>();
+
+        public Rows(Set<ResultQuery.Field> fields, int expectedRows) {
+            this.fields = fields.isEmpty() ? EnumSet.noneOf(ResultQuery.Field.class) : EnumSet.copyOf(fields);
+            int capacity = Math.max(16, Math.min(expectedRows, 1024));
+            if (this.fields.contains(ResultQuery.Field.PATIENT_ID)) patientIds = new String[capacity];
+            if (this.fields.contains(ResultQuery.Field.PATIENT_NAME)) patientNames = new String[capacity];
+            if (this.fields.contains(ResultQuery.Field.TEST_TYPE)) testTypes = new String[capacity];
+            if (this.fields.contains(ResultQuery.Field.VALUE)) values = new double[capacity];
+            if (this.fields.contains(ResultQuery.Field.UNIT)) units = new String[capacity];
+            if (this.fields.contains(ResultQuery.Field.CRITICAL)) critical = new boolean[capacity];
+            if (this.fields.contains(ResultQuery.Field.TIMESTAMP)) timestamps = new long[capacity];
+        }
+
+        public void add(String patientId, String patientName, String testType, double value, String unit,
+                        boolean isCritical, Date timestamp) {
+            if (size == capacity()) {
+                grow();
+            }
+            if (patientIds != null) patientIds[size] = sharedPatient(patientId);
+            if (patientNames != null) patientNames[size] = sharedPatient(patientName);
+            if (testTypes != null) testTypes[size] = SerialStrings.canonical(testType);
+            if (values != null) values[size] = value;
+            if (units != null) units[size] = SerialStrings.canonical(unit);
+            if (critical != null) critical[size] = isCritical;
+            if (timestamps != null) timestamps[size] = timestamp != null ? timestamp.getTime() : Long.MIN_VALUE;
+            size++;
+        }
+
+        private String sharedPatient(String value) {
+            if (value == null) return null;
+            String shared = patients.putIfAbsent(value, value);
+            return shared != null ? shared : value;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public QueryResult toResult(boolean truncated, String source) {
+            return new QueryResult(this, truncated, source);
+        }
+
+        private int capacity() {
+            if (patientIds != null) return patientIds.length;
+            if (patientNames != null) return patientNames.length;
+            if (testTypes != null) return testTypes.length;
+            if (values != null) return values.length;
+            if (units != null) return units.length;
+            if (critical != null) return critical.length;
+            if (timestamps != null) return timestamps.length;
+            return Integer.MAX_VALUE; // Aucune colonne : seul le nombre de lignes compte
+        }
+
+        private void grow() {
+            int capacity = capacity() * 2;
+            if (patientIds != null) patientIds = Arrays.copyOf(patientIds, capacity);
+            if (patientNames != null) patientNames = Arrays.copyOf(patientNames, capacity);
+            if (testTypes != null) testTypes = Arrays.copyOf(testTypes, capacity);
+            if (values != null) values = Arrays.copyOf(values, capacity);
+            if (units != null) units = Arrays.copyOf(units, capacity);
+            if (critical != null) critical = Arrays.copyOf(critical, capacity);
+            if (timestamps != null) timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.medical.jms.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page de résultats d'une requête paginée par curseur (keyset).
+ * Le curseur est opaque pour le client : il suffit de le renvoyer pour obtenir la page suivante.
+ */
+public class ResultPage<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public ResultPage(List<T> items, String nextCursor) {
+        this.items = new ArrayList<>(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> ResultPage<T> empty() {
+        return new ResultPage<>(Collections.<T>emptyList(), null);
+    }
+
+    public List<T> getItems() { return Collections.unmodifiableList(items); }
+
+    // Curseur de continuation, null s'il n'y a plus de page
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+
+    public int size() { return items.size(); }
+
+    @Override
+    public String toString() {
+        return "ResultPage[" + items.size() + " élément(s), suite=" + (hasMore() ? "oui" : "non") + "]";
+    }
+}
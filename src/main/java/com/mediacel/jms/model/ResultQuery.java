@@ -0,0 +1,109 @@
+package com.medical.jms.model;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Requête filtrée et projetée évaluée côté serveur (MedicalService.queryResults) :
+ * seuls les résultats qui passent tous les filtres renseignés sont renvoyés, du plus récent
+ * au plus ancien, et seulement les colonnes demandées.
+ * Un filtre null (ou NaN pour les bornes de valeur) est ignoré ; les bornes sont incluses.
+ * L'identifiant patient est comparé exactement, aux espaces de début et de fin près ;
+ * le nom et le type de test le sont via searchKey, quelle que soit la source.
+ */
+public class ResultQuery implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_LIMIT = 1000;
+    public static final int MAX_LIMIT = 10_000;
+
+    /** Colonnes projetables. */
+    public enum Field { PATIENT_ID, PATIENT_NAME, TEST_TYPE, VALUE, UNIT, CRITICAL, TIMESTAMP }
+
+    private String patientId;
+    // Nom et type de test comparés sans tenir compte de la casse
+    private String patientName;
+    private String testType;
+    private Boolean critical;
+    private double minValue = Double.NaN;
+    private double maxValue = Double.NaN;
+    private Date from;
+    private Date to;
+    private EnumSet<Field> fields = EnumSet.allOf(Field.class);
+    private int limit = DEFAULT_LIMIT;
+
+    public ResultQuery() {
+    }
+
+    // Projection : ResultQuery(Field.PATIENT_NAME, Field.TEST_TYPE, Field.VALUE)
+    public ResultQuery(Field first, Field... rest) {
+        this.fields = EnumSet.of(first, rest);
+    }
+
+    // Getters
+    public String getPatientId() { return patientId; }
+    public String getPatientName() { return patientName; }
+    public String getTestType() { return testType; }
+    public Boolean getCritical() { return critical; }
+    public double getMinValue() { return minValue; }
+    public double getMaxValue() { return maxValue; }
+    public Date getFrom() { return from; }
+    public Date getTo() { return to; }
+    public Set<Field> getFields() { return EnumSet.copyOf(fields); }
+    public boolean hasField(Field field) { return fields.contains(field); }
+    public int getLimit() { return limit; }
+
+    // Setters
+    public void setPatientId(String patientId) { this.patientId = patientId != null ? patientId.trim() : null; }
+    public void setPatientName(String patientName) { this.patientName = patientName; }
+    public void setTestType(String testType) { this.testType = testType; }
+    public void setCritical(Boolean critical) { this.critical = critical; }
+    public void setValueRange(double minValue, double maxValue) {
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+    }
+    public void setTimeRange(Date from, Date to) {
+        this.from = from;
+        this.to = to;
+    }
+    public void setFields(Set<Field> fields) {
+        this.fields = fields.isEmpty() ? EnumSet.noneOf(Field.class) : EnumSet.copyOf(fields);
+    }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    // Limite réellement appliquée par le serveur
+    public int effectiveLimit() {
+        return Math.max(0, Math.min(limit, MAX_LIMIT));
+    }
+
+    /** Clé de comparaison du nom et du type de test : casse et espaces de début et de fin ignorés. */
+    public static String searchKey(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /** Filtres hors index (valeur, date), communs à toutes les sources. */
+    public boolean matchesValueAndTime(double value, Date timestamp) {
+        if (!Double.isNaN(minValue) && !(value >= minValue)) return false;
+        if (!Double.isNaN(maxValue) && !(value <= maxValue)) return false;
+        if (from != null && (timestamp == null || timestamp.before(from))) return false;
+        if (to != null && (timestamp == null || timestamp.after(to))) return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("ResultQuery[");
+        if (patientId != null) text.append("patientId=").append(patientId).append(", ");
+        if (patientName != null) text.append("patient=").append(patientName).append(", ");
+        if (testType != null) text.append("test=").append(testType).append(", ");
+        if (critical != null) text.append("critique=").append(critical).append(", ");
+        if (!Double.isNaN(minValue) || !Double.isNaN(maxValue)) {
+            text.append("valeur=[").append(minValue).append(", ").append(maxValue).append("], ");
+        }
+        if (from != null || to != null) text.append("période=[").append(from).append(", ").append(to).append("], ");
+        return text.append("colonnes=").append(fields).append(", limite=").append(effectiveLimit()).append(']').toString();
+    }
+}
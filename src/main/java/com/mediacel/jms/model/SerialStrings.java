@@ -0,0 +1,44 @@
+package com.medical.jms.model;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chaînes répétées de faible cardinalité (types de test, unités, plages de référence) dans les
+ * writeExternal des objets échangés par RMI.
+ * Dans un flux de sérialisation Java, un objet déjà écrit n'est plus transmis qu'en
+ * référence (5 octets) : en ramenant les chaînes égales à une instance unique avant
+ * writeObject, le flux fait lui-même le codage par dictionnaire sur toute la réponse.
+ * À la lecture, les références donnent la même instance : les chaînes sont aussi
+ * partagées en mémoire côté client.
+ * Le dictionnaire vit aussi longtemps que le processus : les champs patient (nombre de valeurs
+ * non borné, données personnelles) n'y passent pas et sont écrits tels quels.
+ * Dictionnaire borné : au-delà de MAX_ENTRIES, les nouvelles chaînes sont écrites telles quelles.
+ */
+public final class SerialStrings {
+
+    private static final int MAX_ENTRIES = 4096;
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+
+    private SerialStrings() {
+    }
+
+    public static String canonical(String value) {
+        if (value == null) return null;
+        String shared = POOL.get(value);
+        if (shared != null) return shared;
+        if (POOL.size() >= MAX_ENTRIES) return value;
+        shared = POOL.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    public static void write(ObjectOutput out, String value) throws IOException {
+        out.writeObject(canonical(value));
+    }
+
+    public static String read(ObjectInput in) throws IOException, ClassNotFoundException {
+        return (String) in.readObject();
+    }
+}
@@ -0,0 +1,67 @@
+package com.medical.jms.rmi;
+
+import com.medical.jms.model.MedicalResult;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Instantané du tableau de bord renvoyé par MedicalService.getDashboardSnapshot :
+ * statut, statistiques, comptes et derniers résultats en un seul appel RMI.
+ * La version augmente à chaque écriture côté serveur ; un client qui la renvoie
+ * ne reçoit un nouvel instantané que si quelque chose a changé.
+ * Immuable : le serveur partage le même instantané entre tous les clients.
+ */
+public class DashboardSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long version;
+    private final long generatedAt;
+    private final int totalResults;
+    private final int criticalCount;
+    private final int pendingAlerts;
+    private final MedicalStatistics statistics;
+    private final List<MedicalResult> recentResults;
+    private final String systemStatus;
+
+    public DashboardSnapshot(long version, long generatedAt, int totalResults, int criticalCount, int pendingAlerts,
+                             MedicalStatistics statistics, List<MedicalResult> recentResults, String systemStatus) {
+        this.version = version;
+        this.generatedAt = generatedAt;
+        this.totalResults = totalResults;
+        this.criticalCount = criticalCount;
+        this.pendingAlerts = pendingAlerts;
+        this.statistics = statistics;
+        this.recentResults = Collections.unmodifiableList(new ArrayList<>(recentResults));
+        this.systemStatus = systemStatus;
+    }
+
+    /** Même instantané limité aux 'limit' derniers résultats (sans recalcul). */
+    public DashboardSnapshot withRecentLimit(int limit) {
+        int actualLimit = Math.max(0, Math.min(limit, recentResults.size()));
+        if (actualLimit == recentResults.size()) {
+            return this;
+        }
+        return new DashboardSnapshot(version, generatedAt, totalResults, criticalCount, pendingAlerts, statistics,
+                recentResults.subList(recentResults.size() - actualLimit, recentResults.size()), systemStatus);
+    }
+
+    // Getters
+    public long getVersion() { return version; }
+    public long getGeneratedAt() { return generatedAt; }
+    public int getTotalResults() { return totalResults; }
+    public int getCriticalCount() { return criticalCount; }
+    public int getPendingAlerts() { return pendingAlerts; }
+    public MedicalStatistics getStatistics() { return statistics; }
+    // Du plus ancien au plus récent, comme getRecentResults
+    public List<MedicalResult> getRecentResults() { return recentResults; }
+    public String getSystemStatus() { return systemStatus; }
+
+    @Override
+    public String toString() {
+        return String.format("DashboardSnapshot[v%d: %d résultats, %d critiques, %d alertes en attente, %d récents]",
+                version, totalResults, criticalCount, pendingAlerts, recentResults.size());
+    }
+}
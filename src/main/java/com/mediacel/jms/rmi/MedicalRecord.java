@@ -1,10 +1,22 @@
 package com.medical.jms.rmi;
 
-import java.io.Serializable;
+import com.medical.jms.model.SerialStrings;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
-public class MedicalRecord implements Serializable {
+public class MedicalRecord implements Externalizable {
+    private static final long serialVersionUID = 1L;
+    // Format écrit par writeExternal : à incrémenter si les champs écrits changent
+    private static final int SERIAL_FORMAT = 1;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private String patientId;
     private String patientName;
     private String testType;
     private double value;
@@ -12,6 +24,10 @@ public class MedicalRecord implements Serializable {
     private boolean critical;
     private Date timestamp;
 
+    // Réservé à la désérialisation (Externalizable)
+    public MedicalRecord() {
+    }
+
     public MedicalRecord(String patientName, String testType, double value,
                          String unit, boolean critical) {
         this.patientName = patientName;
@@ -22,7 +38,14 @@ public class MedicalRecord implements Serializable {
         this.timestamp = new Date();
     }
 
+    public MedicalRecord(String patientId, String patientName, String testType, double value,
+                         String unit, boolean critical) {
+        this(patientName, testType, value, unit, critical);
+        this.patientId = patientId;
+    }
+
     // Getters
+    public String getPatientId() { return patientId; }
     public String getPatientName() { return patientName; }
     public String getTestType() { return testType; }
     public double getValue() { return value; }
@@ -31,6 +54,7 @@ public class MedicalRecord implements Serializable {
     public Date getTimestamp() { return timestamp; }
 
     // Setters
+    public void setPatientId(String patientId) { this.patientId = patientId; }
     public void setPatientName(String patientName) { this.patientName = patientName; }
     public void setTestType(String testType) { this.testType = testType; }
     public void setValue(double value) { this.value = value; }
@@ -38,6 +62,36 @@ public class MedicalRecord implements Serializable {
     public void setCritical(boolean critical) { this.critical = critical; }
     public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
 
+    // Sérialisation compacte (RMI) : chaînes répétées par référence, date en millisecondes.
+    // Le patient ne passe pas par le dictionnaire (SerialStrings).
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(SERIAL_FORMAT);
+        out.writeBoolean(critical);
+        out.writeDouble(value);
+        out.writeLong(timestamp != null ? timestamp.getTime() : NO_TIMESTAMP);
+        out.writeObject(patientId);
+        out.writeObject(patientName);
+        SerialStrings.write(out, testType);
+        SerialStrings.write(out, unit);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int format = in.readUnsignedByte();
+        if (format != SERIAL_FORMAT) {
+            throw new InvalidClassException(MedicalRecord.class.getName(), "format inconnu: " + format);
+        }
+        critical = in.readBoolean();
+        value = in.readDouble();
+        long time = in.readLong();
+        timestamp = time != NO_TIMESTAMP ? new Date(time) : null;
+        patientId = (String) in.readObject();
+        patientName = (String) in.readObject();
+        testType = SerialStrings.read(in);
+        unit = SerialStrings.read(in);
+    }
+
     @Override
     public String toString() {
         SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
@@ -6,9 +6,20 @@ import java.util.List;
 
 // AJOUTER CET IMPORT :
 import com.medical.jms.model.MedicalResult;  //  IMPORT MANQUANT
+import com.medical.jms.model.QueryResult;
+import com.medical.jms.model.ResultPage;
+import com.medical.jms.model.ResultQuery;
 
 public interface MedicalService extends Remote {
 
+    // Indicateurs du statut par résultat renvoyé par addMedicalResults (combinables)
+    byte RESULT_REJECTED = 0;     // résultat invalide (null, sans patient ni test, valeur non numérique)
+    byte RESULT_STORED = 1;       // enregistré
+    byte RESULT_CRITICAL = 2;     // valeur critique, alerte créée
+    byte RESULT_JMS_SENT = 4;     // parti dans la transaction JMS du lot
+    byte RESULT_JMS_QUEUED = 8;   // transaction impossible, confié au tampon d'envoi JMS
+                                  // (ni SENT ni QUEUED : enregistré mais non transmis en JMS)
+
     // Ajouter un résultat médical
     String addMedicalResult(String patient, String test, double value)
             throws RemoteException;
@@ -31,10 +42,44 @@ public interface MedicalService extends Remote {
     // Maintenant MedicalResult est reconnu
     String sendTestResult(MedicalResult result) throws RemoteException;
 
+    // Lot de résultats en un seul appel : un octet de statut par résultat (indicateurs RESULT_*),
+    // dans l'ordre de la liste
+    byte[] addMedicalResults(List<MedicalResult> results) throws RemoteException;
+
     int getTotalResults() throws RemoteException;
     int getCriticalCount() throws RemoteException;
     int getPendingAlerts() throws RemoteException;
 
     // ✅ Maintenant MedicalResult est reconnu
     List<MedicalResult> getRecentResults(int limit) throws RemoteException;
+
+    // Pagination par curseur : passer null pour la première page,
+    // puis le curseur retourné par la page précédente (pageSize de 1 à 1000).
+    // Du plus ancien au plus récent, dans l'ordre d'arrivée ; les pages de DatabaseService
+    // vont à l'inverse du plus récent au plus ancien
+    ResultPage<MedicalRecord> getPatientResultsPage(String patient, String cursor, int pageSize)
+            throws RemoteException;
+
+    ResultPage<MedicalRecord> getCriticalResultsPage(String cursor, int pageSize)
+            throws RemoteException;
+
+    // Statistiques sur 5 min, 1 h et 24 h (percentiles p50/p95/p99, taux de critiques) :
+    // testType null = ensemble ("TOUS") puis chaque type de test
+    List<WindowStatistics> getWindowedStatistics(String testType) throws RemoteException;
+
+    // Tableau de bord en un seul appel (statut, statistiques, comptes, 'recentLimit' derniers résultats)
+    DashboardSnapshot getDashboardSnapshot(int recentLimit) throws RemoteException;
+
+    // Idem, mais null si rien n'a changé depuis knownVersion (version du dernier instantané reçu)
+    DashboardSnapshot getDashboardSnapshot(int recentLimit, long knownVersion) throws RemoteException;
+
+    // Notifications poussées (nouveaux résultats, alertes critiques, compteurs) au lieu de l'interrogation :
+    // listener est un objet exporté par le client ; false s'il était déjà abonné
+    boolean subscribe(MedicalServiceListener listener) throws RemoteException;
+
+    boolean unsubscribe(MedicalServiceListener listener) throws RemoteException;
+
+    // Filtrage côté serveur (patient, test, critique, valeur, période) et projection :
+    // seules les colonnes demandées sont renvoyées, du plus récent au plus ancien
+    QueryResult queryResults(ResultQuery query) throws RemoteException;
 }
\ No newline at end of file
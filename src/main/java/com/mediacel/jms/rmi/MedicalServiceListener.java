@@ -0,0 +1,15 @@
+package com.medical.jms.rmi;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Objet de rappel d'un client abonné aux changements de MedicalService
+ * (à exporter avec UnicastRemoteObject, puis MedicalService.subscribe).
+ * Les appels arrivent un par un pour un même abonné : tant qu'un appel est en cours,
+ * les changements suivants sont regroupés dans la mise à jour suivante.
+ */
+public interface MedicalServiceListener extends Remote {
+
+    void onUpdate(ServiceUpdate update) throws RemoteException;
+}
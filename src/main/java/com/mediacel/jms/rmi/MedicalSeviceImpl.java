@@ -1,28 +1,58 @@
 package com.medical.jms.rmi;
 
 import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.QueryResult;
+import com.medical.jms.model.ResultPage;
+import com.medical.jms.model.ResultQuery;
 import com.medical.jms.service.AlertService;
+import com.medical.jms.service.DatabaseService;
 
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalService {
 
-    private final List<MedicalRecord> records = new ArrayList<>();
+    private static final int MAX_PAGE_SIZE = 1000;
+    // Derniers résultats gardés dans l'instantané du tableau de bord
+    private static final int MAX_DASHBOARD_RECENT = 100;
+
+    // Appelé en parallèle par les threads RMI : journal en ajout seul, lectures sans verrou
+    private final RecordStore records = new RecordStore();
     private AlertService alertService;
-    private int pendingAlerts = 0;
+    // Persistance activée : les requêtes filtrées sont évaluées en base, alimentée depuis MedicalResultsQueue
+    // par le DatabaseConsumerPool qui partage ce DatabaseService (RMIServer --db)
+    private final DatabaseService database;
+    private final AtomicInteger pendingAlerts = new AtomicInteger();
+
+    // Version du tableau de bord : incrémentée à chaque écriture, l'instantané est reconstruit
+    // à la première lecture qui suit (une rafale d'écritures ne coûte qu'une reconstruction)
+    private final AtomicLong dashboardVersion = new AtomicLong();
+    private final Object dashboardLock = new Object();
+    private volatile DashboardSnapshot dashboard;
+
+    // Abonnés aux changements (rappels RMI)
+    private final UpdatePublisher updates = new UpdatePublisher();
 
     public MedicalServiceImpl() throws RemoteException {
+        this(null);
+    }
+
+    public MedicalServiceImpl(DatabaseService database) throws RemoteException {
         super();
+        this.database = database;
 
         // Initialiser AlertService pour JMS
         initializeAlertService();
 
         // Données de test
-        records.add(new MedicalRecord("Ali Ben Mohamed", "Glycémie", 1.30, "g/L", true));
-        records.add(new MedicalRecord("Fatima Zohra", "Tension", 120.0, "mmHg", false));
+        records.append(new MedicalRecord("Ali Ben Mohamed", "Glycémie", 1.30, "g/L", true));
+        records.append(new MedicalRecord("Fatima Zohra", "Tension", 120.0, "mmHg", false));
 
         System.out.println(" Serveur RMI MedicalService prêt");
         System.out.println(" Enregistrements initiaux: " + records.size());
@@ -49,7 +79,7 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
 
         // Créer et sauvegarder MedicalRecord
         MedicalRecord record = new MedicalRecord(patient, test, value, unit, isCritical);
-        records.add(record);
+        records.append(record);
 
         // Traiter le résultat (conversion + JMS)
         processMedicalResult(record, isCritical);
@@ -70,7 +100,7 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
 
         // Convertir MedicalResult en MedicalRecord
         MedicalRecord record = convertToMedicalRecord(medicalResult);
-        records.add(record);
+        records.append(record);
 
         // Traiter le résultat
         processMedicalResult(record, medicalResult.isCritical());
@@ -92,13 +122,80 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
         );
     }
 
+    /** Arrête les notifications et vide le pipeline JMS d'AlertService (non exposé en RMI). */
+    public void shutdown() {
+        updates.shutdown();
+        if (alertService != null) {
+            alertService.shutdown();
+        }
+    }
+
+    @Override
+    public byte[] addMedicalResults(List<MedicalResult> results) throws RemoteException {
+        if (results == null) {
+            return new byte[0];
+        }
+
+        byte[] statuses = new byte[results.size()];
+        List<MedicalRecord> batch = new ArrayList<>(results.size());
+        List<MedicalResult> accepted = new ArrayList<>(results.size());
+        int critical = 0;
+        for (int i = 0; i < statuses.length; i++) {
+            MedicalResult result = results.get(i);
+            if (!isValid(result)) {
+                statuses[i] = RESULT_REJECTED;
+                continue;
+            }
+            batch.add(convertToMedicalRecord(result));
+            accepted.add(result);
+            statuses[i] = result.isCritical() ? (byte) (RESULT_STORED | RESULT_CRITICAL) : RESULT_STORED;
+            if (result.isCritical()) critical++;
+        }
+
+        // Un seul ajout au journal pour tout le lot
+        records.appendAll(batch);
+        pendingAlerts.addAndGet(critical);
+        if (!batch.isEmpty()) {
+            publishUpdate(batch);
+        }
+
+        // Une seule transaction JMS pour tout le lot
+        if (alertService != null && !accepted.isEmpty()) {
+            AlertService.Delivery[] deliveries = alertService.addAlerts(accepted);
+            for (int i = 0, j = 0; i < statuses.length; i++) {
+                if (statuses[i] == RESULT_REJECTED) continue;
+                switch (deliveries[j++]) {
+                    case SENT:
+                        statuses[i] |= RESULT_JMS_SENT;
+                        break;
+                    case QUEUED:
+                        statuses[i] |= RESULT_JMS_QUEUED;
+                        break;
+                    default:
+                        // Non transmis en JMS : ni SENT ni QUEUED
+                        break;
+                }
+            }
+        }
+
+        System.out.println("📡 RMI: Lot de " + results.size() + " résultat(s) - " + batch.size() +
+                " enregistré(s), " + critical + " critique(s)");
+        return statuses;
+    }
+
+    private static boolean isValid(MedicalResult result) {
+        return result != null && result.getPatientName() != null && result.getTestType() != null
+                && !Double.isNaN(result.getValue()) && !Double.isInfinite(result.getValue());
+    }
+
     // ===== MÉTHODES DE TRAITEMENT COMMUNES =====
 
     private void processMedicalResult(MedicalRecord record, boolean isCritical) {
         // Incrémenter alertes en attente si critique
         if (isCritical) {
-            pendingAlerts++;
+            pendingAlerts.incrementAndGet();
         }
+        publishUpdate(Collections.singletonList(record));
 
         // Convertir et envoyer via JMS si disponible
         if (alertService != null) {
@@ -117,13 +214,8 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
 
     @Override
     public List<MedicalRecord> getPatientResults(String patient) throws RemoteException {
-        List<MedicalRecord> patientRecords = new ArrayList<>();
-        for (MedicalRecord record : records) {
-            if (record.getPatientName().equalsIgnoreCase(patient)) {
-                patientRecords.add(record);
-            }
-        }
-        return patientRecords;
+        // Copie : la sélection est une vue sur le journal, non sérialisable
+        return new ArrayList<>(patientSelection(patient));
     }
 
     @Override
@@ -133,15 +225,16 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
 
     @Override
     public List<MedicalResult> getRecentResults(int limit) throws RemoteException {
-        // Vérifier la limite
-        int actualLimit = Math.min(limit, records.size());
+        // Vérifier la limite (sur un instantané : des ajouts peuvent arriver pendant l'appel)
+        List<MedicalRecord> snapshot = records.snapshot();
+        int actualLimit = Math.min(limit, snapshot.size());
         if (actualLimit <= 0) {
             return new ArrayList<>();
         }
 
         // Prendre les 'limit' derniers résultats
-        int start = records.size() - actualLimit;
-        List<MedicalRecord> recentRecords = records.subList(start, records.size());
+        int start = snapshot.size() - actualLimit;
+        List<MedicalRecord> recentRecords = snapshot.subList(start, snapshot.size());
 
         // Convertir en MedicalResult
         List<MedicalResult> results = new ArrayList<>();
@@ -152,17 +245,169 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
         return results;
     }
 
+    @Override
+    public ResultPage<MedicalRecord> getPatientResultsPage(String patient, String cursor, int pageSize)
+            throws RemoteException {
+        return pageRecords(patientSelection(patient), cursor, pageSize);
+    }
+
+    @Override
+    public ResultPage<MedicalRecord> getCriticalResultsPage(String cursor, int pageSize)
+            throws RemoteException {
+        return pageRecords(records.byCritical(true), cursor, pageSize);
+    }
+
+    // ===== REQUÊTES FILTRÉES =====
+
+    @Override
+    public QueryResult queryResults(ResultQuery query) throws RemoteException {
+        ResultQuery actual = query != null ? query : new ResultQuery();
+        QueryResult result = database != null ? database.queryResults(actual) : queryRecords(actual);
+        System.out.println("📡 RMI: " + result + " pour " + actual);
+        return result;
+    }
+
+    // Parcours du plus récent au plus ancien de l'index le plus sélectif, puis filtres restants
+    private QueryResult queryRecords(ResultQuery query) {
+        int limit = query.effectiveLimit();
+        QueryResult.Rows rows = new QueryResult.Rows(query.getFields(), limit);
+        List<MedicalRecord> candidates = candidates(query);
+        String patientName = RecordStore.normalize(query.getPatientName());
+        String testType = RecordStore.normalize(query.getTestType());
+
+        boolean truncated = false;
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            MedicalRecord record = candidates.get(i);
+            if (query.getPatientId() != null && !query.getPatientId().equals(record.getPatientId())) continue;
+            if (patientName != null && !patientName.equals(RecordStore.normalize(record.getPatientName()))) continue;
+            if (testType != null && !testType.equals(RecordStore.normalize(record.getTestType()))) continue;
+            if (query.getCritical() != null && query.getCritical() != record.isCritical()) continue;
+            if (!query.matchesValueAndTime(record.getValue(), record.getTimestamp())) continue;
+
+            if (rows.size() == limit) {
+                truncated = true;
+                break;
+            }
+            rows.add(record.getPatientId(), record.getPatientName(), record.getTestType(), record.getValue(),
+                    record.getUnit(), record.isCritical(), record.getTimestamp());
+        }
+        return rows.toResult(truncated, "mémoire");
+    }
+
+    private List<MedicalRecord> candidates(ResultQuery query) {
+        List<MedicalRecord> best = records.snapshot();
+        if (query.getPatientId() != null) best = smallest(best, records.byPatientId(query.getPatientId()));
+        if (query.getPatientName() != null) best = smallest(best, records.byPatientName(query.getPatientName()));
+        if (query.getTestType() != null) best = smallest(best, records.byTestType(query.getTestType()));
+        if (query.getCritical() != null) best = smallest(best, records.byCritical(query.getCritical()));
+        return best;
+    }
+
+    private static List<MedicalRecord> smallest(List<MedicalRecord> current, List<MedicalRecord> candidate) {
+        return candidate.size() < current.size() ? candidate : current;
+    }
+
     // ===== MÉTHODES STATISTIQUES =====
 
     @Override
     public MedicalStatistics getStatistics() throws RemoteException {
-        int[] stats = calculateStatistics();
-        int total = stats[0];
-        int critical = stats[1];
-        double sum = stats[2];
+        // Statistiques tenues à jour à chaque ajout : lecture en temps constant
+        RunningStatistics statistics = records.statistics();
+        MedicalStatistics result = toMedicalStatistics(statistics.overall());
+        for (Map.Entry<String, RunningStatistics.Summary> entry : statistics.byTestType().entrySet()) {
+            result.putTestType(entry.getKey(), toMedicalStatistics(entry.getValue()));
+        }
+        return result;
+    }
 
-        double average = total > 0 ? sum / total : 0;
-        return new MedicalStatistics(total, critical, average);
+    @Override
+    public List<WindowStatistics> getWindowedStatistics(String testType) throws RemoteException {
+        return records.windowedStatistics().query(testType);
+    }
+
+    @Override
+    public DashboardSnapshot getDashboardSnapshot(int recentLimit) throws RemoteException {
+        return currentDashboard().withRecentLimit(recentLimit);
+    }
+
+    @Override
+    public DashboardSnapshot getDashboardSnapshot(int recentLimit, long knownVersion) throws RemoteException {
+        // Rien de nouveau : ni reconstruction ni sérialisation
+        if (dashboardVersion.get() <= knownVersion) {
+            return null;
+        }
+        return getDashboardSnapshot(recentLimit);
+    }
+
+    // Nouvelle version du tableau de bord, poussée aux abonnés
+    private void publishUpdate(List<MedicalRecord> added) {
+        long version = dashboardVersion.incrementAndGet();
+        if (!updates.hasSubscribers()) {
+            return;
+        }
+        List<MedicalResult> results = new ArrayList<>(added.size());
+        for (MedicalRecord record : added) {
+            results.add(convertToMedicalResult(record));
+        }
+        RunningStatistics.Summary summary = records.statistics().overall();
+        updates.publish(version, (int) summary.getCount(), (int) summary.getCriticalCount(), pendingAlerts.get(),
+                results);
+    }
+
+    // ===== NOTIFICATIONS =====
+
+    @Override
+    public boolean subscribe(MedicalServiceListener listener) throws RemoteException {
+        if (listener == null) {
+            return false;
+        }
+        RunningStatistics.Summary summary = records.statistics().overall();
+        boolean added = updates.subscribe(listener, dashboardVersion.get(), (int) summary.getCount(),
+                (int) summary.getCriticalCount(), pendingAlerts.get());
+        System.out.println("📡 RMI: Abonnement " + (added ? "enregistré" : "déjà actif") +
+                " (" + updates.getSubscriberCount() + " abonné(s))");
+        return added;
+    }
+
+    @Override
+    public boolean unsubscribe(MedicalServiceListener listener) throws RemoteException {
+        return listener != null && updates.unsubscribe(listener);
+    }
+
+    public String getNotificationStats() {
+        return updates.getStats();
+    }
+
+    private DashboardSnapshot currentDashboard() {
+        DashboardSnapshot cached = dashboard;
+        if (cached != null && cached.getVersion() == dashboardVersion.get()) {
+            return cached;
+        }
+        synchronized (dashboardLock) {
+            // Version lue avant les données : l'instantané est au moins aussi récent que sa version
+            long version = dashboardVersion.get();
+            cached = dashboard;
+            if (cached == null || cached.getVersion() < version) {
+                cached = buildDashboard(version);
+                dashboard = cached;
+            }
+            return cached;
+        }
+    }
+
+    private DashboardSnapshot buildDashboard(long version) {
+        RunningStatistics.Summary summary = records.statistics().overall();
+        int total = (int) summary.getCount();
+        int critical = (int) summary.getCriticalCount();
+        int pending = pendingAlerts.get();
+        try {
+            return new DashboardSnapshot(version, System.currentTimeMillis(), total, critical, pending,
+                    getStatistics(), getRecentResults(MAX_DASHBOARD_RECENT),
+                    formatSystemStatus(total, critical, pending));
+        } catch (RemoteException e) {
+            // Appels locaux : jamais levée
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
@@ -172,20 +417,21 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
 
     @Override
     public int getCriticalCount() throws RemoteException {
-        return calculateStatistics()[1];
+        return (int) records.statistics().overall().getCriticalCount();
     }
 
     @Override
     public int getPendingAlerts() throws RemoteException {
-        return pendingAlerts;
+        return pendingAlerts.get();
     }
 
     @Override
     public String getSystemStatus() throws RemoteException {
-        int[] stats = calculateStatistics();
-        int totalRecords = stats[0];
-        int criticalRecords = stats[1];
+        RunningStatistics.Summary stats = records.statistics().overall();
+        return formatSystemStatus(stats.getCount(), stats.getCriticalCount(), pendingAlerts.get());
+    }
 
+    private String formatSystemStatus(long totalRecords, long criticalRecords, int pending) {
         String jmsStatus = (alertService != null) ? "✅ CONNECTÉ" : "❌ DÉCONNECTÉ";
 
         return String.format(
@@ -197,7 +443,7 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
                         "JMS ActiveMQ: %s\n" +
                         " Service RMI: ACTIF\n" +
                         "══════════════════════════════",
-                totalRecords, criticalRecords, pendingAlerts, jmsStatus
+                totalRecords, criticalRecords, pending, jmsStatus
         );
     }
 
@@ -208,33 +454,54 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
 
     // ===== MÉTHODES UTILITAIRES PRIVÉES =====
 
-    private int[] calculateStatistics() {
-        int total = records.size();
-        int critical = 0;
-        double sum = 0;
+    private static MedicalStatistics toMedicalStatistics(RunningStatistics.Summary summary) {
+        return new MedicalStatistics((int) summary.getCount(), (int) summary.getCriticalCount(), summary.getMean(),
+                summary.getStandardDeviation(), summary.getMin(), summary.getMax());
+    }
 
-        for (MedicalRecord record : records) {
-            if (record.isCritical()) {
-                critical++;
-            }
-            sum += record.getValue();
-        }
+    private List<MedicalRecord> getRecordsByCriticalStatus(boolean critical) {
+        return new ArrayList<>(records.byCritical(critical));
+    }
 
-        return new int[]{total, critical, (int)sum};
+    // Recherche par nom (sans tenir compte de la casse), puis par id patient si aucun nom ne correspond
+    private RecordStore.Selection patientSelection(String patient) {
+        RecordStore.Selection byName = records.byPatientName(patient);
+        return byName.isEmpty() ? records.byPatientId(patient) : byName;
     }
 
-    private List<MedicalRecord> getRecordsByCriticalStatus(boolean critical) {
-        List<MedicalRecord> result = new ArrayList<>();
-        for (MedicalRecord record : records) {
-            if (record.isCritical() == critical) {
-                result.add(record);
+    // Curseur = position dans le journal du prochain enregistrement à examiner (journal en ajout seul)
+    private ResultPage<MedicalRecord> pageRecords(RecordStore.Selection selection, String cursor, int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            return ResultPage.empty();
+        }
+
+        int start = 0;
+        if (cursor != null) {
+            try {
+                start = Integer.parseInt(cursor);
+            } catch (NumberFormatException e) {
+                return ResultPage.empty();
+            }
+            if (start < 0) {
+                return ResultPage.empty();
             }
         }
-        return result;
+
+        List<MedicalRecord> page = new ArrayList<>(pageSize);
+        int index = selection.indexFrom(start);
+        int end = Math.min(selection.size(), index + pageSize);
+        for (; index < end; index++) {
+            page.add(selection.get(index));
+        }
+
+        // Page suivante seulement s'il reste des enregistrements sélectionnés
+        String nextCursor = index < selection.size() ? String.valueOf(selection.positionAt(index)) : null;
+        return new ResultPage<>(page, nextCursor);
     }
 
     private MedicalRecord convertToMedicalRecord(MedicalResult result) {
         return new MedicalRecord(
+                result.getPatientId(),
                 result.getPatientName(),
                 result.getTestType(),
                 result.getValue(),
@@ -244,7 +511,9 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
     }
 
     private MedicalResult convertToMedicalResult(MedicalRecord record) {
-        String patientId = generatePatientId(record.getPatientName());
+        String patientId = record.getPatientId() != null
+                ? record.getPatientId()
+                : generatePatientId(record.getPatientName());
 
         return new MedicalResult(
                 patientId,
@@ -341,6 +610,11 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
         testPendingAlerts(service);
         testRecentResults(service);
         testSendTestResult(service);
+        testWindowedStatistics(service);
+        testAddMedicalResults(service);
+        testDashboardSnapshot(service);
+        testSubscribe(service);
+        testQueryResults(service);
 
         System.out.println("\n TOUS LES TESTS RÉUSSIS !");
     }
@@ -405,6 +679,78 @@ public class MedicalServiceImpl extends UnicastRemoteObject implements MedicalSe
         System.out.println("   " + sendResult.split("\n")[0]);
     }
 
+    private static void testWindowedStatistics(MedicalServiceImpl service) throws RemoteException {
+        System.out.println("\n9. Test getWindowedStatistics:");
+        for (WindowStatistics window : service.getWindowedStatistics(null)) {
+            System.out.println("   " + window);
+        }
+    }
+
+    private static void testAddMedicalResults(MedicalServiceImpl service) throws RemoteException {
+        System.out.println("\n10. Test addMedicalResults:");
+        List<MedicalResult> batch = new ArrayList<>();
+        batch.add(new MedicalResult("PAT_LOT1", "Patient Lot", "Glycémie", "1.10", "g/L", "", false));
+        batch.add(new MedicalResult("PAT_LOT1", "Patient Lot", "Tension", "175", "mmHg", "", true));
+        batch.add(null);
+        byte[] statuses = service.addMedicalResults(batch);
+        for (int i = 0; i < statuses.length; i++) {
+            System.out.println("   [" + i + "] statut " + statuses[i] +
+                    ((statuses[i] & RESULT_JMS_SENT) != 0 ? " (JMS transactionnel)" : ""));
+        }
+        System.out.println("   Total: " + service.getTotalResults());
+    }
+
+    private static void testDashboardSnapshot(MedicalServiceImpl service) throws RemoteException {
+        System.out.println("\n11. Test getDashboardSnapshot:");
+        DashboardSnapshot snapshot = service.getDashboardSnapshot(3);
+        System.out.println("   " + snapshot);
+        System.out.println("   Même instantané en cache: " + (service.getDashboardSnapshot(100) == service.dashboard));
+        System.out.println("   Inchangé depuis v" + snapshot.getVersion() + ": " +
+                (service.getDashboardSnapshot(3, snapshot.getVersion()) == null ? "rien à envoyer" : "nouvel instantané"));
+        service.addMedicalResult("Patient Tableau", "Glycémie", 1.05);
+        DashboardSnapshot updated = service.getDashboardSnapshot(3, snapshot.getVersion());
+        System.out.println("   Après un ajout: " + updated);
+    }
+
+    private static void testSubscribe(MedicalServiceImpl service) throws RemoteException {
+        System.out.println("\n12. Test subscribe:");
+        List<ServiceUpdate> received = Collections.synchronizedList(new ArrayList<>());
+        MedicalServiceListener listener = received::add;
+        service.subscribe(listener);
+        service.addMedicalResult("Patient Abonné", "Glycémie", 1.50);
+        service.addMedicalResult("Patient Abonné", "Glycémie", 0.95);
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        service.unsubscribe(listener);
+        synchronized (received) {
+            for (ServiceUpdate update : received) {
+                System.out.println("   " + update);
+            }
+        }
+        System.out.println("   " + service.getNotificationStats());
+    }
+
+    private static void testQueryResults(MedicalServiceImpl service) throws RemoteException {
+        System.out.println("\n13. Test queryResults:");
+        ResultQuery query = new ResultQuery(ResultQuery.Field.PATIENT_NAME, ResultQuery.Field.TEST_TYPE,
+                ResultQuery.Field.VALUE);
+        query.setTestType("glycémie");
+        query.setValueRange(1.0, Double.NaN);
+        QueryResult result = service.queryResults(query);
+        for (int row = 0; row < result.size(); row++) {
+            System.out.printf("   %s - %s: %.2f%n", result.getPatientName(row), result.getTestType(row),
+                    result.getValue(row));
+        }
+
+        ResultQuery critical = new ResultQuery(ResultQuery.Field.PATIENT_NAME);
+        critical.setCritical(true);
+        critical.setLimit(2);
+        System.out.println("   Critiques (limite 2): " + service.queryResults(critical));
+    }
+
     private static void handleTestError(Exception e) {
         System.err.println(" ERREUR TEST: " + e.getMessage());
         System.err.println("   Type d'erreur: " + e.getClass().getSimpleName());
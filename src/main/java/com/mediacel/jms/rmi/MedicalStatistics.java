@@ -1,11 +1,33 @@
 package com.medical.jms.rmi;
 
-import java.io.Serializable;
+import com.medical.jms.model.SerialStrings;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class MedicalStatistics implements Externalizable {
+    private static final long serialVersionUID = 1L;
+    // Format écrit par writeExternal : à incrémenter si les champs écrits changent
+    private static final int SERIAL_FORMAT = 1;
 
-public class MedicalStatistics implements Serializable {
     private int totalRecords;
     private int criticalRecords;
     private double averageValue;
+    private double standardDeviation;
+    private double minValue = Double.NaN;
+    private double maxValue = Double.NaN;
+    // Mêmes statistiques par type de test (vide pour une statistique de type de test)
+    private Map<String, MedicalStatistics> byTestType = new LinkedHashMap<>();
+
+    // Réservé à la désérialisation (Externalizable)
+    public MedicalStatistics() {
+    }
 
     public MedicalStatistics(int totalRecords, int criticalRecords, double averageValue) {
         this.totalRecords = totalRecords;
@@ -13,21 +35,84 @@ public class MedicalStatistics implements Serializable {
         this.averageValue = averageValue;
     }
 
+    public MedicalStatistics(int totalRecords, int criticalRecords, double averageValue,
+                             double standardDeviation, double minValue, double maxValue) {
+        this(totalRecords, criticalRecords, averageValue);
+        this.standardDeviation = standardDeviation;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+    }
+
     // Getters
     public int getTotalRecords() { return totalRecords; }
     public int getCriticalRecords() { return criticalRecords; }
     public double getAverageValue() { return averageValue; }
+    public double getStandardDeviation() { return standardDeviation; }
+    public double getMinValue() { return minValue; }
+    public double getMaxValue() { return maxValue; }
+    public Map<String, MedicalStatistics> getByTestType() { return Collections.unmodifiableMap(byTestType); }
+
+    public void putTestType(String testType, MedicalStatistics statistics) {
+        byTestType.put(testType, statistics);
+    }
+
+    // Sérialisation compacte (RMI) : les statistiques par type sont écrites à la suite, sans en-tête d'objet
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(SERIAL_FORMAT);
+        out.writeInt(totalRecords);
+        out.writeInt(criticalRecords);
+        out.writeDouble(averageValue);
+        out.writeDouble(standardDeviation);
+        out.writeDouble(minValue);
+        out.writeDouble(maxValue);
+        out.writeInt(byTestType.size());
+        for (Map.Entry<String, MedicalStatistics> entry : byTestType.entrySet()) {
+            SerialStrings.write(out, entry.getKey());
+            entry.getValue().writeExternal(out);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int format = in.readUnsignedByte();
+        if (format != SERIAL_FORMAT) {
+            throw new InvalidClassException(MedicalStatistics.class.getName(), "format inconnu: " + format);
+        }
+        totalRecords = in.readInt();
+        criticalRecords = in.readInt();
+        averageValue = in.readDouble();
+        standardDeviation = in.readDouble();
+        minValue = in.readDouble();
+        maxValue = in.readDouble();
+        int types = in.readInt();
+        byTestType = new LinkedHashMap<>();
+        for (int i = 0; i < types; i++) {
+            String testType = SerialStrings.read(in);
+            MedicalStatistics statistics = new MedicalStatistics();
+            statistics.readExternal(in);
+            byTestType.put(testType, statistics);
+        }
+    }
 
     @Override
     public String toString() {
-        return String.format(
+        StringBuilder text = new StringBuilder(String.format(
                 " STATISTIQUES MÉDICALES\n" +
                         "─────────────────────────\n" +
                         " Total enregistrements: %d\n" +
                         " Alertes critiques: %d\n" +
                         " Valeur moyenne: %.2f\n" +
+                        " Écart-type: %.2f\n" +
                         "─────────────────────────",
-                totalRecords, criticalRecords, averageValue
-        );
+                totalRecords, criticalRecords, averageValue, standardDeviation
+        ));
+        for (Map.Entry<String, MedicalStatistics> entry : byTestType.entrySet()) {
+            MedicalStatistics type = entry.getValue();
+            text.append(String.format("%n %s: %d (%d critiques), moyenne %.2f ± %.2f",
+                    entry.getKey(), type.totalRecords, type.criticalRecords, type.averageValue,
+                    type.standardDeviation));
+        }
+        return text.toString();
     }
 }
\ No newline at end of file
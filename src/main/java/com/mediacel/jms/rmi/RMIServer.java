@@ -1,9 +1,24 @@
 package com.medical.jms.rmi;
 
+import com.medical.jms.config.JMSConstants;
+import com.medical.jms.consumer.DatabaseConsumer;
+import com.medical.jms.consumer.DatabaseConsumerPool;
+import com.medical.jms.service.DatabaseService;
+
 import java.rmi.Naming;
 import java.rmi.registry.LocateRegistry;
 
+// Usage : RMIServer [--db]  (--db : requêtes filtrées évaluées sur la base H2)
+// Avec --db, le serveur alimente lui-même la base : un DatabaseConsumerPool intégré consomme
+// MedicalResultsQueue avec le même DatabaseService. La base H2 embarquée (~/medicaldb) n'accepte
+// qu'un processus : ne pas lancer DatabaseConsumer ou DatabaseConsumerPool à côté.
 public class RMIServer {
+
+    // Workers du consommateur intégré (mode --db)
+    private static final int DB_CONSUMER_MIN_WORKERS = 1;
+    private static final int DB_CONSUMER_MAX_WORKERS = 4;
+    private static final long DB_CONSUMER_SCALE_INTERVAL_MS = 1000;
+
     public static void main(String[] args) {
         try {
             // 1. Démarrer le registre RMI sur le port 1099
@@ -13,7 +28,25 @@ public class RMIServer {
 
             // 2. Créer l'instance du service
             System.out.println(" Création du service médical...");
-            MedicalService medicalService = new MedicalServiceImpl();
+            boolean persistence = args.length > 0 && "--db".equals(args[0]);
+            DatabaseService database = persistence
+                    ? new DatabaseService(2, 10 + DB_CONSUMER_MAX_WORKERS, 5000, 60000) : null;
+            if (database != null) {
+                DatabaseConsumerPool dbConsumers = new DatabaseConsumerPool(JMSConstants.MEDICAL_RESULTS_QUEUE,
+                        DB_CONSUMER_MIN_WORKERS, DB_CONSUMER_MAX_WORKERS, DatabaseConsumer.DEFAULT_BATCH_SIZE,
+                        DatabaseConsumer.DEFAULT_MAX_LATENCY_MS, DB_CONSUMER_SCALE_INTERVAL_MS, database);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        dbConsumers.close();
+                    } catch (Exception e) {
+                        System.err.println("Erreur arrêt consommateur base: " + e.getMessage());
+                    }
+                    database.close();
+                }, "rmi-server-db-shutdown"));
+                System.out.println(" Persistance H2 active, consommateur " + JMSConstants.MEDICAL_RESULTS_QUEUE +
+                        " intégré");
+            }
+            MedicalService medicalService = new MedicalServiceImpl(database);
 
             // 3. Enregistrer le service dans le registre
             String serviceUrl = "rmi://localhost:1099/MedicalService";
@@ -0,0 +1,375 @@
+package com.medical.jms.rmi;
+
+import com.medical.jms.model.ResultQuery;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal en ajout seul des MedicalRecord, partagé par tous les threads RMI.
+ * Les enregistrements sont rangés dans des segments de taille fixe qui ne sont jamais recopiés :
+ * un ajout écrit une case du dernier segment sous un verrou très court, puis publie la nouvelle
+ * taille (volatile). Les lectures ne prennent aucun verrou : elles lisent la taille publiée
+ * et ne voient que des cases déjà écrites.
+ * Une position donnée désigne toujours le même enregistrement, ce qui sert de curseur de pagination.
+ *
+ * Index secondaires (nom de patient normalisé, id patient, criticité, type de test) et statistiques
+ * mis à jour à chaque ajout : une recherche coûte O(résultats) au lieu d'un parcours complet.
+ * Les champs indexés ne doivent plus être modifiés une fois l'enregistrement ajouté.
+ */
+public class RecordStore {
+
+    private static final int SEGMENT_SHIFT = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    // 16384 segments de 4096 : environ 67 millions d'enregistrements
+    private static final int MAX_SEGMENTS = 1 << 14;
+
+    private final AtomicReferenceArray<MedicalRecord[]> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile int size;
+
+    // Index : positions croissantes des enregistrements correspondants
+    private final ConcurrentHashMap<String, PositionList> byPatientName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PositionList> byPatientId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PositionList> byTestType = new ConcurrentHashMap<>();
+    private final PositionList critical = new PositionList();
+    private final PositionList normal = new PositionList();
+    private final RunningStatistics statistics = new RunningStatistics();
+    private final SlidingWindowStatistics windowedStatistics = new SlidingWindowStatistics();
+
+    /**
+     * Liste de positions en ajout seul : un seul écrivain (sous appendLock), lecteurs sans verrou.
+     * Le tableau n'est remplacé qu'après y avoir recopié les positions existantes, et la taille
+     * n'est publiée qu'après l'écriture de la position.
+     */
+    private static final class PositionList {
+        private volatile int[] positions = new int[4];
+        private volatile int size;
+
+        void add(int position) {
+            int n = size;
+            int[] array = positions;
+            if (n == array.length) {
+                array = Arrays.copyOf(array, n * 2);
+                positions = array;
+            }
+            array[n] = position;
+            size = n + 1;
+        }
+    }
+
+    /** @return position de l'enregistrement */
+    public int append(MedicalRecord record) {
+        if (record == null) {
+            throw new IllegalArgumentException("Enregistrement null");
+        }
+        appendLock.lock();
+        try {
+            int position = size;
+            store(position, record);
+            size = position + 1;
+            return position;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Ajoute un lot d'un seul tenant (positions consécutives), publié en une fois.
+     * @return position du premier enregistrement du lot
+     */
+    public int appendAll(Collection<MedicalRecord> records) {
+        for (MedicalRecord record : records) {
+            if (record == null) {
+                throw new IllegalArgumentException("Enregistrement null dans le lot");
+            }
+        }
+        appendLock.lock();
+        try {
+            int first = size;
+            int position = first;
+            for (MedicalRecord record : records) {
+                store(position++, record);
+            }
+            size = position;
+            return first;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Appelé sous appendLock, avant la publication de la taille : les index peuvent contenir
+    // une position pas encore publiée, que les lecteurs écartent (voir Selection)
+    private void store(int position, MedicalRecord record) {
+        slotSegment(position)[position & SEGMENT_MASK] = record;
+
+        index(byPatientName, normalize(record.getPatientName()), position);
+        index(byPatientId, record.getPatientId(), position);
+        index(byTestType, normalize(record.getTestType()), position);
+        (record.isCritical() ? critical : normal).add(position);
+        statistics.record(record);
+        windowedStatistics.record(record);
+    }
+
+    private static void index(ConcurrentHashMap<String, PositionList> index, String key, int position) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new PositionList()).add(position);
+        }
+    }
+
+    // Même clé que les requêtes filtrées (ResultQuery.searchKey) : casse et espaces de bord ignorés
+    static String normalize(String key) {
+        return ResultQuery.searchKey(key);
+    }
+
+    private MedicalRecord[] slotSegment(int position) {
+        int index = position >>> SEGMENT_SHIFT;
+        if (index >= MAX_SEGMENTS) {
+            throw new IllegalStateException("RecordStore plein (" + position + " enregistrements)");
+        }
+        MedicalRecord[] segment = segments.get(index);
+        if (segment == null) {
+            segment = new MedicalRecord[SEGMENT_SIZE];
+            segments.set(index, segment);
+        }
+        return segment;
+    }
+
+    private MedicalRecord at(int position) {
+        return segments.get(position >>> SEGMENT_SHIFT)[position & SEGMENT_MASK];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Statistiques tenues à jour à chaque ajout (lecture en temps constant). */
+    public RunningStatistics statistics() {
+        return statistics;
+    }
+
+    /** Statistiques 5 min / 1 h / 24 h, mémoire bornée. */
+    public SlidingWindowStatistics windowedStatistics() {
+        return windowedStatistics;
+    }
+
+    public MedicalRecord get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + ", taille " + size);
+        }
+        return at(position);
+    }
+
+    /**
+     * Vue en lecture seule des enregistrements présents à l'instant de l'appel, sans copie.
+     * Les ajouts suivants n'y apparaissent pas.
+     */
+    public List<MedicalRecord> snapshot() {
+        return new Snapshot(size);
+    }
+
+    private final class Snapshot extends AbstractList<MedicalRecord> implements RandomAccess {
+        private final int length;
+
+        Snapshot(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public MedicalRecord get(int position) {
+            if (position < 0 || position >= length) {
+                throw new IndexOutOfBoundsException("Position " + position + ", taille " + length);
+            }
+            return at(position);
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+
+    // ===== RECHERCHES PAR INDEX =====
+
+    /** Enregistrements d'un patient, nom comparé sans tenir compte de la casse. */
+    public Selection byPatientName(String patientName) {
+        return select(byPatientName.get(normalizeOrEmpty(patientName)));
+    }
+
+    public Selection byPatientId(String patientId) {
+        return select(patientId != null ? byPatientId.get(patientId) : null);
+    }
+
+    public Selection byTestType(String testType) {
+        return select(byTestType.get(normalizeOrEmpty(testType)));
+    }
+
+    public Selection byCritical(boolean isCritical) {
+        return select(isCritical ? critical : normal);
+    }
+
+    private static String normalizeOrEmpty(String key) {
+        return key != null ? normalize(key) : "";
+    }
+
+    private Selection select(PositionList list) {
+        // Taille du journal lue en premier : toute position publiée avant est visible dans l'index
+        int limit = size;
+        if (list == null) {
+            return new Selection(new int[0], 0);
+        }
+        int n = list.size;
+        int[] positions = list.positions;
+        // Positions d'un ajout en cours (pas encore publiées) : toujours en fin de liste
+        while (n > 0 && positions[n - 1] >= limit) {
+            n--;
+        }
+        return new Selection(positions, n);
+    }
+
+    /**
+     * Enregistrements correspondant à un critère, figés à l'instant de la recherche et rangés
+     * dans l'ordre d'ajout. Vue sans copie : la copier (new ArrayList) avant de la renvoyer en RMI.
+     */
+    public final class Selection extends AbstractList<MedicalRecord> implements RandomAccess {
+        private final int[] positions;
+        private final int length;
+
+        private Selection(int[] positions, int length) {
+            this.positions = positions;
+            this.length = length;
+        }
+
+        @Override
+        public MedicalRecord get(int index) {
+            return at(positionAt(index));
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+
+        /** Position dans le journal du index-ième enregistrement sélectionné. */
+        public int positionAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + ", taille " + length);
+            }
+            return positions[index];
+        }
+
+        /** Premier index dont la position dans le journal est >= position (recherche dichotomique). */
+        public int indexFrom(int position) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (positions[mid] < position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    // ===== BANC D'ESSAI =====
+
+    // Usage : RecordStore [enregistrements]
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int patients = Math.max(1, count / 100);
+        String[] tests = {"Glycémie", "Tension", "Cholestérol", "Créatinine", "Température"};
+
+        System.out.println(" BANC D'ESSAI INDEX RecordStore");
+        System.out.println("=================================\n");
+
+        System.out.println("1. Chargement de " + count + " enregistrements (" + patients + " patients)...");
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long memoryBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        RecordStore store = new RecordStore();
+        for (int i = 0; i < count; i++) {
+            int patient = i % patients;
+            store.append(new MedicalRecord("PAT" + patient, "Patient " + patient, tests[i % tests.length],
+                    1.0 + (i % 50) / 100.0, "g/L", i % 20 == 0));
+        }
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long memoryAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.println("   " + loadMillis + " ms, ~" + (memoryAfter - memoryBefore) / (1024 * 1024) +
+                " Mo (enregistrements + index)\n");
+
+        int lookups = 200;
+        System.out.println("2. " + lookups + " recherches de chaque type...");
+        List<MedicalRecord> all = store.snapshot();
+
+        // Parcours complet, comme l'ancien getPatientResults
+        long sink = 0;
+        start = System.nanoTime();
+        for (int l = 0; l < lookups; l++) {
+            String name = "patient " + (l * 37 % patients);
+            List<MedicalRecord> found = new ArrayList<>();
+            for (MedicalRecord record : all) {
+                if (record.getPatientName().equalsIgnoreCase(name)) found.add(record);
+            }
+            sink += found.size();
+        }
+        double scanPatient = (System.nanoTime() - start) / 1e6 / lookups;
+
+        start = System.nanoTime();
+        for (int l = 0; l < lookups; l++) {
+            sink += new ArrayList<>(store.byPatientName("patient " + (l * 37 % patients))).size();
+        }
+        double indexPatient = (System.nanoTime() - start) / 1e6 / lookups;
+
+        start = System.nanoTime();
+        for (int l = 0; l < lookups; l++) {
+            sink += new ArrayList<>(store.byPatientId("PAT" + (l * 37 % patients))).size();
+        }
+        double indexPatientId = (System.nanoTime() - start) / 1e6 / lookups;
+
+        int criticalLookups = 20;
+        start = System.nanoTime();
+        for (int l = 0; l < criticalLookups; l++) {
+            List<MedicalRecord> found = new ArrayList<>();
+            for (MedicalRecord record : all) {
+                if (record.isCritical()) found.add(record);
+            }
+            sink += found.size();
+        }
+        double scanCritical = (System.nanoTime() - start) / 1e6 / criticalLookups;
+
+        start = System.nanoTime();
+        for (int l = 0; l < criticalLookups; l++) {
+            sink += new ArrayList<>(store.byCritical(true)).size();
+        }
+        double indexCritical = (System.nanoTime() - start) / 1e6 / criticalLookups;
+
+        start = System.nanoTime();
+        for (int l = 0; l < lookups; l++) {
+            sink += store.byTestType(tests[l % tests.length]).size();
+        }
+        double indexTestCount = (System.nanoTime() - start) / 1e6 / lookups;
+
+        System.out.printf("   Patient (nom), parcours complet : %9.3f ms%n", scanPatient);
+        System.out.printf("   Patient (nom), index            : %9.3f ms (%d résultats)%n", indexPatient,
+                store.byPatientName("Patient 0").size());
+        System.out.printf("   Patient (id), index             : %9.3f ms%n", indexPatientId);
+        System.out.printf("   Critiques, parcours complet     : %9.3f ms%n", scanCritical);
+        System.out.printf("   Critiques, index                : %9.3f ms (%d résultats)%n", indexCritical,
+                store.byCritical(true).size());
+        System.out.printf("   Compte par type de test, index  : %9.3f ms%n", indexTestCount);
+        System.out.println("   (contrôle " + sink + ")");
+    }
+}
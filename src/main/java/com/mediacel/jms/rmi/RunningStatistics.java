@@ -0,0 +1,105 @@
+package com.medical.jms.rmi;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statistiques des MedicalRecord mises à jour à chaque ajout, pour répondre aux appels RMI
+ * sans parcourir le journal : total, critiques, somme (compensée, sans troncature),
+ * moyenne et variance (algorithme de Welford), minimum et maximum ; globalement et par type de test.
+ * Un seul écrivain (sous le verrou d'ajout de RecordStore) ; chaque ajout publie un nouveau
+ * Summary immuable, les lecteurs lisent donc toujours un état cohérent, sans verrou.
+ */
+public class RunningStatistics {
+
+    private static final String UNKNOWN_TEST_TYPE = "N/A";
+
+    /** État immuable d'une série de valeurs. */
+    public static final class Summary {
+        static final Summary EMPTY = new Summary(0, 0, 0, 0, 0, 0, Double.NaN, Double.NaN);
+
+        private final long count;
+        private final long critical;
+        // Somme de Kahan : sum + compensation garde les bits perdus par les additions
+        private final double sum;
+        private final double compensation;
+        private final double mean;
+        private final double m2;
+        private final double min;
+        private final double max;
+
+        private Summary(long count, long critical, double sum, double compensation, double mean, double m2,
+                        double min, double max) {
+            this.count = count;
+            this.critical = critical;
+            this.sum = sum;
+            this.compensation = compensation;
+            this.mean = mean;
+            this.m2 = m2;
+            this.min = min;
+            this.max = max;
+        }
+
+        Summary add(double value, boolean isCritical) {
+            long n = count + 1;
+
+            double y = value - compensation;
+            double t = sum + y;
+            double c = (t - sum) - y;
+
+            double delta = value - mean;
+            double newMean = mean + delta / n;
+            double newM2 = m2 + delta * (value - newMean);
+
+            return new Summary(n, critical + (isCritical ? 1 : 0), t, c, newMean, newM2,
+                    count == 0 ? value : Math.min(min, value),
+                    count == 0 ? value : Math.max(max, value));
+        }
+
+        public long getCount() { return count; }
+        public long getCriticalCount() { return critical; }
+        public double getSum() { return sum; }
+        public double getMean() { return count > 0 ? mean : 0; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+
+        /** Variance d'échantillon (n - 1), 0 tant qu'il y a moins de deux valeurs. */
+        public double getVariance() {
+            return count > 1 ? m2 / (count - 1) : 0;
+        }
+
+        public double getStandardDeviation() {
+            return Math.sqrt(getVariance());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d, critiques=%d, moyenne=%.3f, écart-type=%.3f, min=%.2f, max=%.2f",
+                    count, critical, getMean(), getStandardDeviation(), min, max);
+        }
+    }
+
+    private volatile Summary overall = Summary.EMPTY;
+    private final ConcurrentHashMap<String, Summary> byTestType = new ConcurrentHashMap<>();
+
+    // Appelé sous le verrou d'ajout de RecordStore (un seul écrivain)
+    void record(MedicalRecord record) {
+        overall = overall.add(record.getValue(), record.isCritical());
+        String type = record.getTestType() != null ? record.getTestType() : UNKNOWN_TEST_TYPE;
+        byTestType.put(type, byTestType.getOrDefault(type, Summary.EMPTY).add(record.getValue(), record.isCritical()));
+    }
+
+    public Summary overall() {
+        return overall;
+    }
+
+    public Summary forTestType(String testType) {
+        return byTestType.getOrDefault(testType != null ? testType : UNKNOWN_TEST_TYPE, Summary.EMPTY);
+    }
+
+    /** Copie triée par type de test. */
+    public Map<String, Summary> byTestType() {
+        return new TreeMap<>(byTestType);
+    }
+}
@@ -0,0 +1,55 @@
+package com.medical.jms.rmi;
+
+import com.medical.jms.model.MedicalResult;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Changements poussés à un abonné depuis la mise à jour précédente : nouveaux résultats,
+ * nouvelles alertes critiques et valeurs courantes des compteurs.
+ * Les compteurs sont toujours à jour ; si l'abonné est trop lent, les plus anciens résultats
+ * regroupés sont abandonnés (getDroppedResults) et le tableau de bord peut être relu en entier.
+ */
+public class ServiceUpdate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long version;
+    private final int totalResults;
+    private final int criticalCount;
+    private final int pendingAlerts;
+    private final List<MedicalResult> newResults;
+    private final List<MedicalResult> newCriticalAlerts;
+    private final int droppedResults;
+
+    public ServiceUpdate(long version, int totalResults, int criticalCount, int pendingAlerts,
+                         List<MedicalResult> newResults, List<MedicalResult> newCriticalAlerts, int droppedResults) {
+        this.version = version;
+        this.totalResults = totalResults;
+        this.criticalCount = criticalCount;
+        this.pendingAlerts = pendingAlerts;
+        this.newResults = Collections.unmodifiableList(new ArrayList<>(newResults));
+        this.newCriticalAlerts = Collections.unmodifiableList(new ArrayList<>(newCriticalAlerts));
+        this.droppedResults = droppedResults;
+    }
+
+    // Getters
+    // Même version que DashboardSnapshot.getVersion
+    public long getVersion() { return version; }
+    public int getTotalResults() { return totalResults; }
+    public int getCriticalCount() { return criticalCount; }
+    public int getPendingAlerts() { return pendingAlerts; }
+    public List<MedicalResult> getNewResults() { return newResults; }
+    public List<MedicalResult> getNewCriticalAlerts() { return newCriticalAlerts; }
+    public int getDroppedResults() { return droppedResults; }
+
+    @Override
+    public String toString() {
+        return String.format("ServiceUpdate[v%d: %d résultats, %d critiques, %d alertes en attente, " +
+                        "+%d nouveaux, +%d alertes, %d abandonnés]",
+                version, totalResults, criticalCount, pendingAlerts,
+                newResults.size(), newCriticalAlerts.size(), droppedResults);
+    }
+}
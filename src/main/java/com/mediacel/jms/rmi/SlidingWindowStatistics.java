@@ -0,0 +1,224 @@
+package com.medical.jms.rmi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statistiques sur fenêtres glissantes (5 min, 1 h, 24 h), globales et par type de test.
+ * Chaque fenêtre est un anneau de tranches de temps (10 s, 1 min, 15 min) ; une tranche garde
+ * ses compteurs et un ValueHistogram, réinitialisés quand l'anneau revient dessus.
+ * Une requête fusionne les tranches de la fenêtre : la fenêtre avance par tranche entière.
+ * Mémoire bornée : nombre de tranches fixe, histogrammes de taille bornée et au plus
+ * MAX_TEST_TYPES types suivis séparément (les suivants sont regroupés sous OTHER_TEST_TYPES).
+ */
+public class SlidingWindowStatistics {
+
+    public static final String ALL_TEST_TYPES = "TOUS";
+    public static final String OTHER_TEST_TYPES = "AUTRES";
+    private static final String UNKNOWN_TEST_TYPE = "N/A";
+    private static final int MAX_TEST_TYPES = 64;
+
+    public enum Window {
+        FIVE_MINUTES("5 min", 10_000L, 30),
+        ONE_HOUR("1 h", 60_000L, 60),
+        ONE_DAY("24 h", 15 * 60_000L, 96);
+
+        final String label;
+        final long sliceMillis;
+        final int slices;
+
+        Window(String label, long sliceMillis, int slices) {
+            this.label = label;
+            this.sliceMillis = sliceMillis;
+            this.slices = slices;
+        }
+
+        public String getLabel() { return label; }
+        public long getMillis() { return sliceMillis * slices; }
+    }
+
+    private static final class Slice {
+        long epoch = Long.MIN_VALUE;
+        long critical;
+        double sum;
+        final ValueHistogram histogram = new ValueHistogram();
+    }
+
+    /** Anneau de tranches d'une fenêtre pour une série ; protégé par son propre moniteur. */
+    private static final class Ring {
+        final Window window;
+        final Slice[] slices;
+
+        Ring(Window window) {
+            this.window = window;
+            this.slices = new Slice[window.slices];
+        }
+
+        synchronized void record(long time, double value, boolean isCritical) {
+            long epoch = Math.floorDiv(time, window.sliceMillis);
+            int slot = (int) Math.floorMod(epoch, (long) slices.length);
+            Slice slice = slices[slot];
+            if (slice == null) {
+                slice = slices[slot] = new Slice();
+            }
+            if (slice.epoch > epoch) {
+                return; // Plus ancien que la fenêtre : déjà sorti
+            }
+            if (slice.epoch < epoch) {
+                slice.epoch = epoch;
+                slice.critical = 0;
+                slice.sum = 0;
+                slice.histogram.clear();
+            }
+            slice.histogram.add(value);
+            slice.sum += value;
+            if (isCritical) slice.critical++;
+        }
+
+        synchronized WindowStatistics query(String testType, long now) {
+            long current = Math.floorDiv(now, window.sliceMillis);
+            ValueHistogram merged = new ValueHistogram();
+            long critical = 0;
+            double sum = 0;
+            for (Slice slice : slices) {
+                if (slice != null && slice.epoch <= current && slice.epoch > current - slices.length) {
+                    merged.merge(slice.histogram);
+                    critical += slice.critical;
+                    sum += slice.sum;
+                }
+            }
+            long count = merged.getCount();
+            return new WindowStatistics(testType, window.label, window.getMillis(), count, critical,
+                    count > 0 ? sum / count : 0,
+                    merged.quantile(0.50), merged.quantile(0.95), merged.quantile(0.99),
+                    merged.getMin(), merged.getMax());
+        }
+    }
+
+    private static final class Series {
+        final Ring[] rings = new Ring[Window.values().length];
+
+        Series() {
+            for (Window window : Window.values()) {
+                rings[window.ordinal()] = new Ring(window);
+            }
+        }
+
+        void record(long time, double value, boolean isCritical) {
+            for (Ring ring : rings) {
+                ring.record(time, value, isCritical);
+            }
+        }
+    }
+
+    private final Series all = new Series();
+    private final ConcurrentHashMap<String, Series> byTestType = new ConcurrentHashMap<>();
+
+    public void record(MedicalRecord record) {
+        long time = record.getTimestamp() != null ? record.getTimestamp().getTime() : System.currentTimeMillis();
+        all.record(time, record.getValue(), record.isCritical());
+        seriesFor(record.getTestType()).record(time, record.getValue(), record.isCritical());
+    }
+
+    private Series seriesFor(String testType) {
+        String type = testType != null ? testType : UNKNOWN_TEST_TYPE;
+        Series series = byTestType.get(type);
+        if (series != null) return series;
+        if (byTestType.size() >= MAX_TEST_TYPES) {
+            return byTestType.computeIfAbsent(OTHER_TEST_TYPES, k -> new Series());
+        }
+        return byTestType.computeIfAbsent(type, k -> new Series());
+    }
+
+    public List<WindowStatistics> query(String testType) {
+        return query(testType, System.currentTimeMillis());
+    }
+
+    /**
+     * @param testType type de test, ALL_TEST_TYPES pour l'ensemble, ou null pour l'ensemble
+     *                 suivi de chaque type de test
+     * @return une entrée par fenêtre (et par type si testType est null)
+     */
+    public List<WindowStatistics> query(String testType, long now) {
+        List<WindowStatistics> result = new ArrayList<>();
+        if (testType == null) {
+            addWindows(result, ALL_TEST_TYPES, all, now);
+            for (String type : new TreeSet<>(byTestType.keySet())) {
+                addWindows(result, type, byTestType.get(type), now);
+            }
+        } else if (ALL_TEST_TYPES.equals(testType)) {
+            addWindows(result, ALL_TEST_TYPES, all, now);
+        } else {
+            Series series = byTestType.get(testType);
+            addWindows(result, testType, series != null ? series : new Series(), now);
+        }
+        return result;
+    }
+
+    private static void addWindows(List<WindowStatistics> result, String testType, Series series, long now) {
+        for (Ring ring : series.rings) {
+            result.add(ring.query(testType, now));
+        }
+    }
+
+    // ===== BANC D'ESSAI =====
+
+    // Usage : SlidingWindowStatistics [résultats]
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        System.out.println(" TEST FENÊTRES GLISSANTES");
+        System.out.println("===========================\n");
+
+        // 1. Précision des percentiles (valeurs uniformes 0.5 - 3.0 sur les 5 dernières minutes)
+        SlidingWindowStatistics stats = new SlidingWindowStatistics();
+        long now = System.currentTimeMillis();
+        Random random = new Random(42);
+        double[] values = new double[count];
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long memoryBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            values[i] = 0.5 + 2.5 * random.nextDouble();
+            MedicalRecord record = new MedicalRecord("Patient " + (i % 100), i % 2 == 0 ? "Glycémie" : "Tension",
+                    values[i], "g/L", values[i] > 1.26);
+            // Réparti sur les 4 dernières minutes
+            record.setTimestamp(new Date(now - (long) i * 240_000 / count));
+            stats.record(record);
+        }
+        long nanos = System.nanoTime() - start;
+        System.gc();
+        long memoryAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        Arrays.sort(values);
+        System.out.println("1. " + count + " résultats en " + nanos / 1_000_000 + " ms (" +
+                nanos / count + " ns/résultat), mémoire ~" + Math.max(0, memoryAfter - memoryBefore) / 1024 + " Ko");
+        WindowStatistics fiveMinutes = stats.query(ALL_TEST_TYPES, now).get(0);
+        System.out.printf("   p50 %.4f (exact %.4f), p95 %.4f (exact %.4f), p99 %.4f (exact %.4f)%n",
+                fiveMinutes.getP50(), values[(int) (0.50 * (count - 1))],
+                fiveMinutes.getP95(), values[(int) (0.95 * (count - 1))],
+                fiveMinutes.getP99(), values[(int) (0.99 * (count - 1))]);
+
+        // 2. Glissement : 10 minutes plus tard, la fenêtre de 5 min est vide, celle d'1 h non
+        System.out.println("\n2. Requête 10 minutes plus tard:");
+        for (WindowStatistics window : stats.query("Glycémie", now + 10 * 60_000)) {
+            System.out.println("   " + window);
+        }
+
+        // 3. Coût d'une requête complète
+        start = System.nanoTime();
+        int queries = 1000;
+        long sink = 0;
+        for (int i = 0; i < queries; i++) {
+            sink += stats.query(null, now).size();
+        }
+        System.out.println("\n3. Requête toutes fenêtres / tous types: " +
+                (System.nanoTime() - start) / queries / 1000 + " µs (" + sink / queries + " entrées)");
+    }
+}
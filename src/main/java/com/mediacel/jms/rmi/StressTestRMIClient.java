@@ -0,0 +1,242 @@
+package com.medical.jms.rmi;
+
+import com.medical.jms.config.JMSResourceManager;
+import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.ResultPage;
+
+import java.rmi.Naming;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test de charge : des centaines de clients RMI écrivent et lisent en même temps,
+ * puis on vérifie qu'aucun enregistrement ni aucune alerte n'a été perdu.
+ * Usage : StressTestRMIClient [clients] [appels par client] [port]
+ * Le serveur est démarré dans ce processus, sur un registre dédié (1199 par défaut).
+ */
+public class StressTestRMIClient {
+
+    public static void main(String[] args) {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int callsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 1199;
+
+        System.out.println(" TEST DE CHARGE RMI");
+        System.out.println("=====================");
+        System.out.println(clients + " clients x " + callsPerClient + " appels, port " + port + "\n");
+
+        MedicalServiceImpl server = null;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            // 1. Serveur
+            Registry registry = LocateRegistry.createRegistry(port);
+            server = new MedicalServiceImpl();
+            String serviceUrl = "rmi://localhost:" + port + "/MedicalService";
+            Naming.rebind(serviceUrl, server);
+
+            MedicalService probe = (MedicalService) Naming.lookup(serviceUrl);
+            int initialTotal = probe.getTotalResults();
+            int initialCritical = probe.getCriticalCount();
+            int initialPending = probe.getPendingAlerts();
+
+            // Deux tableaux de bord abonnés : un rapide et un lent (100 ms par mise à jour)
+            CountingListener fastListener = new CountingListener(0);
+            CountingListener slowListener = new CountingListener(100);
+            probe.subscribe(fastListener);
+            probe.subscribe(slowListener);
+
+            // 2. Clients : chacun écrit callsPerClient résultats et lit entre deux écritures
+            AtomicInteger written = new AtomicInteger();
+            AtomicInteger criticalWritten = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+            AtomicLong reads = new AtomicLong();
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(clients);
+
+            for (int c = 0; c < clients; c++) {
+                int clientId = c;
+                pool.execute(() -> {
+                    try {
+                        MedicalService service = (MedicalService) Naming.lookup(serviceUrl);
+                        start.await();
+                        for (int i = 0; i < callsPerClient; i++) {
+                            // Une valeur sur deux au-dessus du seuil de glycémie (1.26)
+                            double value = i % 2 == 0 ? 1.40 : 1.00;
+                            if (i % 4 == 3) {
+                                MedicalResult result = new MedicalResult("STRESS_" + clientId, "Stress " + clientId,
+                                        "Glycémie", String.valueOf(value), "g/L", "", value > 1.26);
+                                service.sendTestResult(result);
+                            } else {
+                                service.addMedicalResult("Stress " + clientId, "Glycémie", value);
+                            }
+                            written.incrementAndGet();
+                            if (value > 1.26) criticalWritten.incrementAndGet();
+
+                            service.getStatistics();
+                            service.getRecentResults(10);
+                            ResultPage<MedicalRecord> page = service.getCriticalResultsPage(null, 50);
+                            if (page.getItems().size() > 50) errors.incrementAndGet();
+                            reads.addAndGet(3);
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        System.err.println(" Client " + clientId + ": " + e);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            if (!done.await(5, TimeUnit.MINUTES)) {
+                System.err.println(" Délai dépassé, clients restants: " + done.getCount());
+            }
+            long millis = (System.nanoTime() - begin) / 1_000_000;
+
+            // 3. Vérifications
+            int total = probe.getTotalResults();
+            int critical = probe.getCriticalCount();
+            int pending = probe.getPendingAlerts();
+            int expectedTotal = initialTotal + written.get();
+            int expectedCritical = initialCritical + criticalWritten.get();
+
+            // Parcours complet par pages : chaque enregistrement critique vu une seule fois
+            int paged = 0;
+            String cursor = null;
+            do {
+                ResultPage<MedicalRecord> page = probe.getCriticalResultsPage(cursor, 1000);
+                paged += page.getItems().size();
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            List<MedicalResult> recent = probe.getRecentResults(5);
+
+            System.out.println("\n RÉSULTATS (" + millis + " ms, " +
+                    (written.get() + reads.get()) * 1000 / Math.max(1, millis) + " appels/s)");
+            check("Enregistrements", total, expectedTotal);
+            check("Critiques", critical, expectedCritical);
+            check("Alertes en attente", pending, initialPending + criticalWritten.get());
+            check("Critiques parcourus par pages", paged, expectedCritical);
+            check("Erreurs client", errors.get(), 0);
+            System.out.println("   Derniers résultats: " + recent.size());
+
+            // 4. Téléversement d'un automate : appels unitaires contre un seul lot
+            int uploads = Math.max(1, callsPerClient) * 25;
+            List<MedicalResult> run = new ArrayList<>(uploads);
+            for (int i = 0; i < uploads; i++) {
+                run.add(new MedicalResult("LAB_" + i, "Automate " + (i % 50), "Glycémie",
+                        String.valueOf(i % 3 == 0 ? 1.40 : 1.00), "g/L", "", i % 3 == 0));
+            }
+            long unitStart = System.nanoTime();
+            for (MedicalResult result : run) {
+                probe.sendTestResult(result);
+            }
+            long unitMillis = (System.nanoTime() - unitStart) / 1_000_000;
+            long batchStart = System.nanoTime();
+            byte[] statuses = probe.addMedicalResults(run);
+            long batchMillis = (System.nanoTime() - batchStart) / 1_000_000;
+            int stored = 0;
+            for (byte status : statuses) {
+                if ((status & MedicalService.RESULT_STORED) != 0) stored++;
+            }
+            System.out.println("\n LOT DE " + uploads + " RÉSULTATS: " + unitMillis + " ms en appels unitaires, " +
+                    batchMillis + " ms en un lot");
+            check("Résultats du lot enregistrés", stored, uploads);
+            int finalTotal = probe.getTotalResults();
+            check("Enregistrements après les lots", finalTotal, expectedTotal + 2L * uploads);
+
+            // 5. Notifications : chaque abonné finit à jour, le lent avec bien moins d'appels
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((fastListener.lastTotal < finalTotal || slowListener.lastTotal < finalTotal)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            System.out.println("\n NOTIFICATIONS (" + (finalTotal - initialTotal) + " écritures)");
+            System.out.println("   Rapide: " + fastListener);
+            System.out.println("   Lent:   " + slowListener);
+            check("Compteur final (rapide)", fastListener.lastTotal, finalTotal);
+            check("Compteur final (lent)", slowListener.lastTotal, finalTotal);
+            check("Résultats reçus ou abandonnés (rapide)", fastListener.results + fastListener.dropped,
+                    finalTotal - initialTotal);
+            check("Résultats reçus ou abandonnés (lent)", slowListener.results + slowListener.dropped,
+                    finalTotal - initialTotal);
+            probe.unsubscribe(fastListener);
+            probe.unsubscribe(slowListener);
+            UnicastRemoteObject.unexportObject(fastListener, true);
+            UnicastRemoteObject.unexportObject(slowListener, true);
+
+            Naming.unbind(serviceUrl);
+            UnicastRemoteObject.unexportObject(registry, true);
+        } catch (Exception e) {
+            System.err.println(" ERREUR TEST DE CHARGE: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            pool.shutdownNow();
+            if (server != null) {
+                try {
+                    UnicastRemoteObject.unexportObject(server, true);
+                } catch (Exception ignored) {
+                    // Déjà retiré
+                }
+                server.shutdown();
+            }
+            JMSResourceManager.getInstance().close();
+        }
+    }
+
+    /** Abonné de test : compte les mises à jour reçues, avec un délai optionnel par appel. */
+    private static final class CountingListener extends UnicastRemoteObject implements MedicalServiceListener {
+        private static final long serialVersionUID = 1L;
+
+        private final long delayMillis;
+        private volatile int updates;
+        private volatile long results;
+        private volatile long alerts;
+        private volatile long dropped;
+        private volatile int lastTotal;
+
+        CountingListener(long delayMillis) throws RemoteException {
+            super();
+            this.delayMillis = delayMillis;
+        }
+
+        // Jamais appelé en parallèle pour un même abonné
+        @Override
+        public void onUpdate(ServiceUpdate update) throws RemoteException {
+            updates++;
+            results += update.getNewResults().size();
+            alerts += update.getNewCriticalAlerts().size();
+            dropped += update.getDroppedResults();
+            lastTotal = update.getTotalResults();
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return updates + " mises à jour, " + results + " résultats, " + alerts + " alertes, " +
+                    dropped + " abandonnés";
+        }
+    }
+
+    private static void check(String label, long actual, long expected) {
+        System.out.println("   " + (actual == expected ? "✅ " : "❌ ") + label + ": " + actual +
+                (actual == expected ? "" : " (attendu " + expected + ")"));
+    }
+}
@@ -36,21 +36,20 @@ public class TestRMIClient {
             String sendResult = service.sendTestResult(testResult);
             System.out.println(" Résultat: " + sendResult.split("\n")[0]);
 
-            // 5. Récupérer les statistiques (CORRIGÉ)
-            System.out.println("\nStatistiques:");
-            MedicalStatistics stats = service.getStatistics();
-            System.out.println(stats);
+            // 5. Tableau de bord en un seul appel : statistiques, comptes et résultats récents
+            DashboardSnapshot dashboard = service.getDashboardSnapshot(3);
+            System.out.println("\nStatistiques (tableau de bord v" + dashboard.getVersion() + "):");
+            System.out.println(dashboard.getStatistics());
 
-            // 6. Récupérer les comptes (CORRIGÉ)
+            // 6. Comptes
             System.out.println("\n Comptes:");
-            System.out.println("Total résultats: " + service.getTotalResults());
-            System.out.println("Alertes critiques: " + service.getCriticalCount());
-            System.out.println("Alertes en attente: " + service.getPendingAlerts());
+            System.out.println("Total résultats: " + dashboard.getTotalResults());
+            System.out.println("Alertes critiques: " + dashboard.getCriticalCount());
+            System.out.println("Alertes en attente: " + dashboard.getPendingAlerts());
 
-            // 7. Récupérer les résultats récents (CORRIGÉ)
+            // 7. Résultats récents
             System.out.println("\n Derniers résultats (max 3):");
-            List<MedicalResult> recent = service.getRecentResults(3);
-            for (MedicalResult res : recent) {
+            for (MedicalResult res : dashboard.getRecentResults()) {
                 System.out.println("  • " + res.getPatientName() +
                         " - " + res.getTestType() +
                         ": " + res.getValue() + " " + res.getUnit());
@@ -66,6 +65,11 @@ public class TestRMIClient {
             List<MedicalRecord> criticals = service.getCriticalResults();
             System.out.println("  Total critiques: " + criticals.size());
 
+            // Rafraîchissement conditionnel : rien n'est renvoyé si rien n'a changé
+            DashboardSnapshot refreshed = service.getDashboardSnapshot(3, dashboard.getVersion());
+            System.out.println("\n Rafraîchissement du tableau de bord: " +
+                    (refreshed == null ? "inchangé" : "nouvelle version v" + refreshed.getVersion()));
+
             // 10. Tester isAlive
             System.out.println("\n Vérification status service:");
             boolean alive = service.isAlive();
@@ -0,0 +1,236 @@
+package com.medical.jms.rmi;
+
+import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.QueryResult;
+import com.medical.jms.model.ResultQuery;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Vérifie la sérialisation compacte (Externalizable) de MedicalRecord, MedicalResult et
+ * MedicalStatistics, puis la compare à la sérialisation par défaut des mêmes champs
+ * (format d'avant) : octets par enregistrement et temps d'aller-retour d'une liste,
+ * comme la réponse de getCriticalResults().
+ * Usage : TestRecordSerialization [enregistrements] [itérations]
+ */
+public class TestRecordSerialization {
+
+    private static final String[][] TESTS = {
+            {"Glycémie", "g/L", "0.70-1.10 g/L"},
+            {"Cholestérol", "g/L", "< 2.0 g/L"},
+            {"Tension", "mmHg", "120/80 mmHg"},
+            {"Température", "°C", "36.5-37.5 °C"},
+            {"Créatinine", "mg/dL", "6-13 mg/dL"}
+    };
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        System.out.println(" TEST SÉRIALISATION COMPACTE");
+        System.out.println("==============================\n");
+
+        // Chaînes recréées à chaque enregistrement, comme celles reçues par appel RMI
+        List<MedicalRecord> records = new ArrayList<>(count);
+        List<LegacyRecord> legacyRecords = new ArrayList<>(count);
+        List<MedicalResult> results = new ArrayList<>(count);
+        List<LegacyResult> legacyResults = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] test = TESTS[i % TESTS.length];
+            int patient = (i * 7919) % 500;
+            MedicalRecord record = new MedicalRecord(new String("PAT" + patient), new String("Patient " + patient),
+                    new String(test[0]), 0.5 + (i % 300) / 100.0, new String(test[1]), i % 3 == 0);
+            record.setTimestamp(new Date(1_700_000_000_000L + i * 1000L));
+            records.add(record);
+            legacyRecords.add(new LegacyRecord(record));
+
+            MedicalResult result = new MedicalResult(record.getPatientId(), record.getPatientName(),
+                    record.getTestType(), String.valueOf(record.getValue()), record.getUnit(), new String(test[2]),
+                    record.isCritical());
+            result.setTimestamp(record.getTimestamp());
+            results.add(result);
+            legacyResults.add(new LegacyResult(result));
+        }
+
+        // 1. Aller-retour
+        System.out.println("1. Aller-retour...");
+        List<?> copy = roundTrip(records);
+        boolean same = copy.size() == records.size();
+        for (int i = 0; same && i < records.size(); i++) {
+            same = sameRecord(records.get(i), (MedicalRecord) copy.get(i));
+        }
+        check(same, count + " MedicalRecord identiques");
+
+        copy = roundTrip(results);
+        same = copy.size() == results.size();
+        for (int i = 0; same && i < results.size(); i++) {
+            same = sameResult(results.get(i), (MedicalResult) copy.get(i));
+        }
+        check(same, count + " MedicalResult identiques");
+
+        MedicalRecord empty = new MedicalRecord();
+        MedicalRecord emptyCopy = (MedicalRecord) roundTrip(listOf(empty)).get(0);
+        check(emptyCopy.getTimestamp() == null && emptyCopy.getPatientName() == null, "champs null conservés");
+
+        MedicalStatistics statistics = new MedicalStatistics(count, count / 3, 1.9, 0.8, 0.5, 3.49);
+        for (String[] test : TESTS) {
+            statistics.putTestType(test[0], new MedicalStatistics(count / 5, count / 15, 1.9, 0.8, 0.5, 3.49));
+        }
+        MedicalStatistics statisticsCopy = (MedicalStatistics) roundTrip(listOf(statistics)).get(0);
+        check(statisticsCopy.toString().equals(statistics.toString()), "MedicalStatistics identiques");
+
+        // Chaînes répétées partagées côté client
+        List<?> sharedCopy = roundTrip(records);
+        check(((MedicalRecord) sharedCopy.get(0)).getTestType()
+                == ((MedicalRecord) sharedCopy.get(TESTS.length)).getTestType(), "types de test partagés à la lecture");
+
+        // 2. Taille et temps
+        System.out.println("\n2. Liste de " + count + " éléments (" + iterations + " itérations):");
+        report("MedicalRecord, défaut  ", legacyRecords, count, iterations);
+        report("MedicalRecord, compact ", records, count, iterations);
+        report("MedicalResult, défaut  ", legacyResults, count, iterations);
+        report("MedicalResult, compact ", results, count, iterations);
+        System.out.println("   MedicalStatistics (" + TESTS.length + " types): " + serialize(statistics).length +
+                " octets");
+
+        // 3. Projection côté serveur (queryResults) : nom, test et valeur seulement, en colonnes
+        QueryResult.Rows rows = new QueryResult.Rows(EnumSet.of(ResultQuery.Field.PATIENT_NAME,
+                ResultQuery.Field.TEST_TYPE, ResultQuery.Field.VALUE), count);
+        for (MedicalRecord record : records) {
+            rows.add(record.getPatientId(), record.getPatientName(), record.getTestType(), record.getValue(),
+                    record.getUnit(), record.isCritical(), record.getTimestamp());
+        }
+        int projected = serialize(rows.toResult(false, "mémoire")).length;
+        System.out.printf("%n3. Projection nom + test + valeur: %d octets (%.1f/ligne)%n",
+                projected, (double) projected / count);
+
+        System.out.println("\nTESTS RÉUSSIS!");
+    }
+
+    private static void report(String label, List<?> list, int count, int iterations) throws Exception {
+        int size = serialize(list).length;
+        // Préchauffage
+        for (int i = 0; i < Math.max(3, iterations / 5); i++) {
+            roundTrip(list);
+        }
+        long writeNanos = 0;
+        long readNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            byte[] bytes = serialize(list);
+            long middle = System.nanoTime();
+            deserialize(bytes);
+            readNanos += System.nanoTime() - middle;
+            writeNanos += middle - start;
+        }
+        System.out.printf("   %s: %7d octets (%5.1f/élément), écriture %6.2f ms, lecture %6.2f ms%n",
+                label, size, (double) size / count, writeNanos / 1e6 / iterations, readNanos / 1e6 / iterations);
+    }
+
+    private static List<Object> listOf(Object item) {
+        List<Object> list = new ArrayList<>();
+        list.add(item);
+        return list;
+    }
+
+    // Une réponse RMI = un flux de sérialisation
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    private static List<?> roundTrip(List<?> list) throws Exception {
+        return (List<?>) deserialize(serialize(list));
+    }
+
+    private static boolean sameRecord(MedicalRecord a, MedicalRecord b) {
+        return Objects.equals(a.getPatientId(), b.getPatientId()) && a.getPatientName().equals(b.getPatientName())
+                && a.getTestType().equals(b.getTestType()) && Double.compare(a.getValue(), b.getValue()) == 0
+                && a.getUnit().equals(b.getUnit()) && a.isCritical() == b.isCritical()
+                && a.getTimestamp().equals(b.getTimestamp());
+    }
+
+    private static boolean sameResult(MedicalResult a, MedicalResult b) {
+        return a.getId().equals(b.getId()) && a.getPatientId().equals(b.getPatientId())
+                && a.getPatientName().equals(b.getPatientName()) && a.getTestType().equals(b.getTestType())
+                && Double.compare(a.getValue(), b.getValue()) == 0 && a.getUnit().equals(b.getUnit())
+                && a.getReferenceRange().equals(b.getReferenceRange()) && a.isCritical() == b.isCritical()
+                && a.getTimestamp().equals(b.getTimestamp()) && a.getDoctorNotes().equals(b.getDoctorNotes());
+    }
+
+    private static void check(boolean ok, String label) {
+        System.out.println("   " + (ok ? "✅ " : "❌ ") + label);
+        if (!ok) throw new IllegalStateException("Échec: " + label);
+    }
+
+    // ===== FORMAT D'AVANT : mêmes champs, sérialisation par défaut =====
+
+    private static final class LegacyRecord implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String patientId;
+        private final String patientName;
+        private final String testType;
+        private final double value;
+        private final String unit;
+        private final boolean critical;
+        private final Date timestamp;
+
+        LegacyRecord(MedicalRecord record) {
+            this.patientId = record.getPatientId();
+            this.patientName = record.getPatientName();
+            this.testType = record.getTestType();
+            this.value = record.getValue();
+            this.unit = record.getUnit();
+            this.critical = record.isCritical();
+            this.timestamp = record.getTimestamp();
+        }
+    }
+
+    private static final class LegacyResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+        private final String patientName;
+        private final String patientId;
+        private final String testType;
+        private final double value;
+        private final String unit;
+        private final String referenceRange;
+        private final boolean isCritical;
+        private final Date timestamp;
+        private final String doctorNotes;
+
+        LegacyResult(MedicalResult result) {
+            this.id = result.getId();
+            this.patientName = result.getPatientName();
+            this.patientId = result.getPatientId();
+            this.testType = result.getTestType();
+            this.value = result.getValue();
+            this.unit = result.getUnit();
+            this.referenceRange = result.getReferenceRange();
+            this.isCritical = result.isCritical();
+            this.timestamp = result.getTimestamp();
+            this.doctorNotes = result.getDoctorNotes();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.medical.jms.rmi;
+
+import com.medical.jms.model.MedicalResult;
+
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diffusion des changements de MedicalService aux abonnés (rappels RMI).
+ * L'écriture ne fait qu'ajouter le changement aux changements en attente de chaque abonné ;
+ * les appels distants partent d'un pool de threads dédié, un seul à la fois par abonné.
+ * Un abonné lent reçoit donc moins de mises à jour, chacune regroupant tout ce qui s'est
+ * passé depuis la précédente (compteurs à jour, au plus MAX_PENDING_RESULTS résultats).
+ * Un abonné qui lève une exception (client arrêté, réseau coupé) est retiré.
+ */
+public class UpdatePublisher {
+
+    private static final int MAX_PENDING_RESULTS = 200;
+    private static final int MAX_PENDING_ALERTS = 1000;
+
+    private final Map<MedicalServiceListener, Subscriber> subscribers = new ConcurrentHashMap<>();
+    // Un client bloqué occupe un thread jusqu'au délai RMI (sun.rmi.transport.tcp.responseTimeout)
+    private final ExecutorService notifier;
+
+    // Compteurs pour le diagnostic
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+
+    public UpdatePublisher() {
+        AtomicInteger threads = new AtomicInteger();
+        this.notifier = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread t = new Thread(r, "medical-update-notifier-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Abonne listener ; il reçoit aussitôt une première mise à jour avec les compteurs courants.
+     * @return false si déjà abonné
+     */
+    public boolean subscribe(MedicalServiceListener listener, long version, int totalResults, int criticalCount,
+                             int pendingAlerts) {
+        Subscriber subscriber = new Subscriber(listener);
+        if (subscribers.putIfAbsent(listener, subscriber) != null) {
+            return false;
+        }
+        offer(subscriber, version, totalResults, criticalCount, pendingAlerts, Collections.<MedicalResult>emptyList());
+        return true;
+    }
+
+    public boolean unsubscribe(MedicalServiceListener listener) {
+        return subscribers.remove(listener) != null;
+    }
+
+    // Permet à l'appelant d'éviter de préparer les résultats quand personne n'écoute
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @param version version du tableau de bord après le changement (DashboardSnapshot.getVersion)
+     * @param added   résultats ajoutés par le changement, dans l'ordre
+     */
+    public void publish(long version, int totalResults, int criticalCount, int pendingAlerts,
+                        List<MedicalResult> added) {
+        published.incrementAndGet();
+        for (Subscriber subscriber : subscribers.values()) {
+            offer(subscriber, version, totalResults, criticalCount, pendingAlerts, added);
+        }
+    }
+
+    private void offer(Subscriber subscriber, long version, int totalResults, int criticalCount, int pendingAlerts,
+                       List<MedicalResult> added) {
+        if (subscriber.offer(version, totalResults, criticalCount, pendingAlerts, added)) {
+            schedule(subscriber);
+        } else {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        try {
+            notifier.execute(subscriber);
+        } catch (RejectedExecutionException e) {
+            // Arrêt en cours
+        }
+    }
+
+    public void shutdown() {
+        subscribers.clear();
+        notifier.shutdownNow();
+    }
+
+    public String getStats() {
+        return String.format("Notifications[abonnés=%d] publiées=%d, envoyées=%d, regroupées=%d, abonnés retirés=%d",
+                subscribers.size(), published.get(), delivered.get(), coalesced.get(), removed.get());
+    }
+
+    /** Changements en attente d'un abonné, protégés par son moniteur. */
+    private final class Subscriber implements Runnable {
+        private final MedicalServiceListener listener;
+        private long version = -1;
+        private int totalResults;
+        private int criticalCount;
+        private int pendingAlerts;
+        private final ArrayDeque<MedicalResult> results = new ArrayDeque<>();
+        private final ArrayDeque<MedicalResult> alerts = new ArrayDeque<>();
+        private int dropped;
+        private boolean dirty;
+        // Une mise à jour est en file ou en cours d'envoi
+        private boolean scheduled;
+
+        Subscriber(MedicalServiceListener listener) {
+            this.listener = listener;
+        }
+
+        /** @return true s'il faut planifier un envoi, false si le changement rejoint l'envoi déjà prévu */
+        synchronized boolean offer(long version, int totalResults, int criticalCount, int pendingAlerts,
+                                   List<MedicalResult> added) {
+            // Écritures concurrentes : on garde les compteurs de la version la plus récente
+            if (version > this.version) {
+                this.version = version;
+                this.totalResults = totalResults;
+                this.criticalCount = criticalCount;
+                this.pendingAlerts = pendingAlerts;
+            }
+            for (MedicalResult result : added) {
+                append(results, result, MAX_PENDING_RESULTS);
+                if (result.isCritical()) {
+                    append(alerts, result, MAX_PENDING_ALERTS);
+                }
+            }
+            dirty = true;
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        private void append(ArrayDeque<MedicalResult> pending, MedicalResult result, int max) {
+            if (pending.size() >= max) {
+                pending.pollFirst();
+                dropped++;
+            }
+            pending.addLast(result);
+        }
+
+        private synchronized ServiceUpdate take() {
+            ServiceUpdate update = new ServiceUpdate(version, totalResults, criticalCount, pendingAlerts,
+                    new ArrayList<>(results), new ArrayList<>(alerts), dropped);
+            results.clear();
+            alerts.clear();
+            dropped = 0;
+            dirty = false;
+            return update;
+        }
+
+        @Override
+        public void run() {
+            try {
+                listener.onUpdate(take());
+                delivered.incrementAndGet();
+            } catch (RemoteException | RuntimeException e) {
+                if (subscribers.remove(listener, this)) {
+                    removed.incrementAndGet();
+                    System.err.println(" Abonné retiré: " + e.getMessage());
+                }
+                return;
+            }
+
+            // Replanifié plutôt que bouclé : un abonné très actif ne monopolise pas un thread
+            boolean again;
+            synchronized (this) {
+                again = dirty && subscribers.get(listener) == this;
+                scheduled = again;
+            }
+            if (again) {
+                schedule(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.medical.jms.rmi;
+
+import java.util.Arrays;
+
+/**
+ * Histogramme à seaux logarithmiques (même principe que HdrHistogram / DDSketch) :
+ * chaque seau couvre un intervalle [g^(i-1), g^i], ce qui garantit une erreur relative
+ * d'au plus 1 % sur les percentiles, quelle que soit l'échelle des valeurs.
+ * Fusionnable (addition seau par seau) et de taille bornée : le nombre de seaux ne dépend que
+ * de l'étendue des valeurs observées, jamais du nombre de valeurs.
+ * Non thread-safe : protégé par l'appelant.
+ */
+public class ValueHistogram {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // En dessous (en valeur absolue), une valeur compte comme zéro
+    private static final double MIN_INDEXED_VALUE = 1e-9;
+    // Au-delà, les valeurs tombent dans le dernier seau : 2 x 2100 seaux au plus
+    private static final int MAX_INDEX = (int) Math.ceil(Math.log(1e18) / LOG_GAMMA);
+    private static final int MIN_INDEX = (int) Math.ceil(Math.log(MIN_INDEXED_VALUE) / LOG_GAMMA);
+
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeroCount;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /** Compteurs denses sur [offset, offset + counts.length), agrandis à la demande. */
+    private static final class Buckets {
+        long[] counts;
+        int offset;
+
+        void add(int index, long n) {
+            if (counts == null) {
+                counts = new long[8];
+                offset = index - 4;
+            } else if (index < offset || index >= offset + counts.length) {
+                int end = offset + counts.length;
+                // Marge pour éviter de réallouer à chaque nouvelle valeur extrême
+                int margin = Math.max(4, (Math.max(end, index + 1) - Math.min(offset, index)) / 4);
+                int newOffset = index < offset ? index - margin : offset;
+                int newEnd = index >= end ? index + 1 + margin : end;
+                long[] grown = new long[newEnd - newOffset];
+                System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+                counts = grown;
+                offset = newOffset;
+            }
+            counts[index - offset] += n;
+        }
+
+        void merge(Buckets other) {
+            if (other.counts == null) return;
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        void clear() {
+            if (counts != null) Arrays.fill(counts, 0);
+        }
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        double magnitude = Math.abs(value);
+        if (magnitude < MIN_INDEXED_VALUE) {
+            zeroCount++;
+        } else if (value > 0) {
+            positive.add(indexOf(magnitude), 1);
+        } else {
+            negative.add(indexOf(magnitude), 1);
+        }
+        count++;
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+    }
+
+    private static int indexOf(double magnitude) {
+        int index = (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+        return Math.max(MIN_INDEX, Math.min(MAX_INDEX, index));
+    }
+
+    // Milieu (au sens relatif) du seau : erreur relative <= RELATIVE_ACCURACY
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    public void merge(ValueHistogram other) {
+        if (other.count == 0) return;
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+    }
+
+    /** Garde les tableaux alloués pour la réutilisation (tranches de fenêtre glissante). */
+    public void clear() {
+        positive.clear();
+        negative.clear();
+        zeroCount = 0;
+        count = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+    }
+
+    /**
+     * @param q entre 0 et 1 (0.5 = médiane)
+     * @return valeur approchée à 1 % près, NaN si l'histogramme est vide
+     */
+    public double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        // Rang au plus proche (nearest-rank) : p99 de 4 valeurs = la plus grande
+        long rank = Math.max(0, (long) Math.ceil(Math.max(0, Math.min(1, q)) * count) - 1);
+
+        // Ordre croissant : négatifs (du plus grand module au plus petit), zéro, positifs
+        long seen = 0;
+        if (negative.counts != null) {
+            for (int i = negative.counts.length - 1; i >= 0; i--) {
+                seen += negative.counts[i];
+                if (seen > rank) return clamp(-valueOf(negative.offset + i));
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) return 0;
+        if (positive.counts != null) {
+            for (int i = 0; i < positive.counts.length; i++) {
+                seen += positive.counts[i];
+                if (seen > rank) return clamp(valueOf(positive.offset + i));
+            }
+        }
+        return max;
+    }
+
+    // Les extrêmes sont connus exactement
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public long getCount() { return count; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+}
@@ -0,0 +1,65 @@
+package com.medical.jms.rmi;
+
+import java.io.Serializable;
+
+/**
+ * Statistiques d'un type de test sur une fenêtre glissante (5 min, 1 h, 24 h),
+ * renvoyées par MedicalService.getWindowedStatistics.
+ * Les percentiles sont approchés à 1 % près (ValueHistogram).
+ */
+public class WindowStatistics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String testType;
+    private final String window;
+    private final long windowMillis;
+    private final long count;
+    private final long criticalCount;
+    private final double average;
+    private final double p50;
+    private final double p95;
+    private final double p99;
+    private final double minValue;
+    private final double maxValue;
+
+    public WindowStatistics(String testType, String window, long windowMillis, long count, long criticalCount,
+                            double average, double p50, double p95, double p99, double minValue, double maxValue) {
+        this.testType = testType;
+        this.window = window;
+        this.windowMillis = windowMillis;
+        this.count = count;
+        this.criticalCount = criticalCount;
+        this.average = average;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+    }
+
+    // Getters
+    public String getTestType() { return testType; }
+    public String getWindow() { return window; }
+    public long getWindowMillis() { return windowMillis; }
+    public long getCount() { return count; }
+    public long getCriticalCount() { return criticalCount; }
+    public double getAverage() { return average; }
+    public double getP50() { return p50; }
+    public double getP95() { return p95; }
+    public double getP99() { return p99; }
+    public double getMinValue() { return minValue; }
+    public double getMaxValue() { return maxValue; }
+
+    public double getCriticalRate() {
+        return count > 0 ? (double) criticalCount / count : 0;
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) {
+            return String.format("%s [%s]: aucun résultat", testType, window);
+        }
+        return String.format("%s [%s]: %d résultats, %.1f%% critiques, moyenne %.2f, p50 %.2f, p95 %.2f, p99 %.2f",
+                testType, window, count, getCriticalRate() * 100, average, p50, p95, p99);
+    }
+}
@@ -0,0 +1,349 @@
+package com.medical.jms.service;
+
+import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.MedicalResultCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Tampon circulaire borné entre les appelants d'AlertService et les threads d'envoi JMS.
+ * Quand il est plein, la politique choisie s'applique :
+ * BLOCK attend une place, DROP_OLDEST écrase le plus ancien résultat,
+ * SPILL_TO_DISK écrit le résultat dans un fichier de débordement (format MedicalResultCodec).
+ * L'ordre d'arrivée est conservé : tant que le fichier n'est pas vidé, les nouveaux résultats
+ * y sont ajoutés, et il n'est relu qu'une fois l'anneau vide.
+ * Un fichier non vidé à l'arrêt est repris au démarrage suivant.
+ * Le fichier est verrouillé (FileLock) tant que le tampon l'utilise : un second tampon, dans ce
+ * processus ou un autre, ne peut pas l'ouvrir et le constructeur lève une IOException.
+ */
+public class AlertIntakeBuffer {
+
+    private static final Logger LOG = Logger.getLogger(AlertIntakeBuffer.class.getName());
+
+    public enum OverflowPolicy { BLOCK, DROP_OLDEST, SPILL_TO_DISK }
+
+    // Taille maximale d'un enregistrement relu (protection contre un fichier corrompu)
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private final MedicalResult[] ring;
+    private int head;
+    private int count;
+    private final OverflowPolicy policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private boolean closed;
+
+    // Débordement sur disque : enregistrements [longueur int][octets MedicalResultCodec]
+    private final Path spillPath;
+    private FileChannel spill;
+    private long spillReadPos;
+    private long spillWritePos;
+    private int spillPending;
+
+    // Métriques
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+
+    /**
+     * @param spillPath fichier de débordement (utilisé seulement avec SPILL_TO_DISK)
+     * @throws IOException si le fichier ne peut pas être ouvert ou s'il est déjà verrouillé
+     */
+    public AlertIntakeBuffer(int capacity, OverflowPolicy policy, Path spillPath) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacité invalide: " + capacity);
+        }
+        this.ring = new MedicalResult[capacity];
+        this.policy = policy;
+        this.spillPath = spillPath;
+        if (policy == OverflowPolicy.SPILL_TO_DISK) {
+            openSpill();
+        }
+    }
+
+    /**
+     * Dépose un résultat sans attendre, sauf avec BLOCK quand le tampon est plein.
+     * @return false si le tampon est fermé, si l'attente a été interrompue
+     *         ou si l'écriture sur disque a échoué
+     */
+    public boolean offer(MedicalResult result) {
+        lock.lock();
+        try {
+            if (closed) return false;
+
+            if (count == ring.length || spillPending > 0) {
+                switch (policy) {
+                    case BLOCK:
+                        long start = System.nanoTime();
+                        try {
+                            while (count == ring.length && !closed) {
+                                notFull.await();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return false;
+                        } finally {
+                            blockedNanos.addAndGet(System.nanoTime() - start);
+                        }
+                        if (closed) return false;
+                        break;
+                    case DROP_OLDEST:
+                        ring[head] = null;
+                        head = (head + 1) % ring.length;
+                        count--;
+                        dropped.incrementAndGet();
+                        break;
+                    case SPILL_TO_DISK:
+                        if (!writeSpill(result)) return false;
+                        accepted.incrementAndGet();
+                        notEmpty.signal();
+                        return true;
+                }
+            }
+
+            ring[(head + count) % ring.length] = result;
+            count++;
+            accepted.incrementAndGet();
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remet un résultat dont l'envoi a échoué, sans jamais attendre (threads d'envoi, accusés JMS) :
+     * dans l'anneau s'il reste une place, sinon dans le fichier de débordement s'il existe.
+     * Après close(), le résultat va dans le fichier, repris au prochain démarrage si besoin.
+     * @return false si le résultat n'a pas pu être gardé
+     */
+    public boolean requeue(MedicalResult result) {
+        lock.lock();
+        try {
+            if (!closed && count < ring.length && spillPending == 0) {
+                ring[(head + count) % ring.length] = result;
+                count++;
+            } else if (spill == null || !writeSpill(result)) {
+                return false;
+            }
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retire jusqu'à max résultats (anneau d'abord, puis fichier de débordement),
+     * en attendant au plus timeoutMillis qu'il en arrive un.
+     * @return nombre de résultats ajoutés à out ; 0 si rien n'est arrivé à temps
+     */
+    public int drainTo(List<MedicalResult> out, int max, long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (count == 0 && spillPending == 0) {
+                if (closed || remaining <= 0) return 0;
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+
+            int taken = 0;
+            while (count > 0 && taken < max) {
+                out.add(ring[head]);
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                count--;
+                taken++;
+            }
+            if (taken > 0) {
+                notFull.signalAll();
+                return taken;
+            }
+            return readSpill(out, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Refuse les nouveaux résultats ; ceux déjà reçus restent à retirer. */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Ferme le fichier de débordement (son contenu éventuel est gardé pour le prochain démarrage). */
+    public void release() {
+        lock.lock();
+        try {
+            if (spill != null) {
+                spill.close();
+                spill = null;
+            }
+        } catch (IOException e) {
+            LOG.warning("Erreur fermeture fichier de débordement: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ===== DÉBORDEMENT SUR DISQUE (appelé sous verrou) =====
+
+    private void openSpill() throws IOException {
+        spill = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        // Verrou exclusif avant toute lecture : un autre tampon pourrait tronquer le fichier
+        // pendant qu'on y écrit ou qu'on le relit. Libéré à la fermeture du canal (release)
+        FileLock fileLock;
+        try {
+            fileLock = spill.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;  // déjà verrouillé dans ce processus
+        }
+        if (fileLock == null) {
+            spill.close();
+            spill = null;
+            throw new IOException("Fichier de débordement déjà utilisé: " + spillPath);
+        }
+        // Reprise d'un fichier laissé par un arrêt précédent ; une fin tronquée est ignorée
+        ByteBuffer header = ByteBuffer.allocate(4);
+        long pos = 0;
+        long size = spill.size();
+        while (pos + 4 <= size) {
+            header.clear();
+            spill.read(header, pos);
+            int length = header.getInt(0);
+            if (length <= 0 || length > MAX_RECORD_SIZE || pos + 4 + length > size) break;
+            pos += 4 + length;
+            spillPending++;
+        }
+        spillWritePos = pos;
+        spill.truncate(pos);
+        if (spillPending > 0) {
+            LOG.info(spillPending + " résultat(s) repris depuis " + spillPath);
+        }
+    }
+
+    private boolean writeSpill(MedicalResult result) {
+        byte[] data = MedicalResultCodec.encode(result);
+        ByteBuffer record = ByteBuffer.allocate(4 + data.length);
+        record.putInt(data.length).put(data).flip();
+        try {
+            while (record.hasRemaining()) {
+                spillWritePos += spill.write(record, spillWritePos);
+            }
+        } catch (IOException e) {
+            LOG.severe("Écriture impossible dans " + spillPath + ": " + e.getMessage());
+            return false;
+        }
+        spillPending++;
+        spilled.incrementAndGet();
+        return true;
+    }
+
+    private int readSpill(List<MedicalResult> out, int max) {
+        int taken = 0;
+        ByteBuffer header = ByteBuffer.allocate(4);
+        try {
+            while (spillPending > 0 && taken < max) {
+                header.clear();
+                spill.read(header, spillReadPos);
+                int length = header.getInt(0);
+                ByteBuffer data = ByteBuffer.allocate(length);
+                while (data.hasRemaining()) {
+                    if (spill.read(data, spillReadPos + 4 + data.position()) < 0) {
+                        throw new IOException("Fichier de débordement tronqué");
+                    }
+                }
+                spillReadPos += 4 + length;
+                spillPending--;
+                out.add(MedicalResultCodec.decode(data.array()));
+                taken++;
+            }
+            if (spillPending == 0) {
+                // Fichier entièrement relu : on repart de zéro
+                spill.truncate(0);
+                spillReadPos = 0;
+                spillWritePos = 0;
+            }
+        } catch (IOException e) {
+            LOG.severe("Lecture impossible dans " + spillPath + ", " + spillPending + " résultat(s) perdu(s): " +
+                    e.getMessage());
+            dropped.addAndGet(spillPending);
+            spillPending = 0;
+            spillReadPos = 0;
+            spillWritePos = 0;
+            try {
+                spill.truncate(0);
+            } catch (IOException ignored) {
+                // Le fichier sera écrasé à partir du début
+            }
+        }
+        return taken;
+    }
+
+    // ===== MÉTRIQUES =====
+
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSpilledPending() {
+        lock.lock();
+        try {
+            return spillPending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isDrained() {
+        lock.lock();
+        try {
+            return count == 0 && spillPending == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() { return ring.length; }
+    public OverflowPolicy getPolicy() { return policy; }
+    public long getAcceptedCount() { return accepted.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public long getSpilledCount() { return spilled.get(); }
+    public double getBlockedMillis() { return blockedNanos.get() / 1e6; }
+}
@@ -1,26 +1,92 @@
 package com.medical.jms.service;
 
 import com.medical.jms.config.JMSConstants;
+import com.medical.jms.config.JMSResourceManager;
 import com.medical.jms.model.MedicalResult;
 import com.medical.jms.producer.AlertProducer;
 import com.medical.jms.producer.MedicalResultProducer;
 
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
+/**
+ * Pipeline des résultats reçus :
+ * 1. stockage local des alertes critiques (PendingAlertIndex, immédiat, pour l'UI et les tests) ;
+ * 2. dépôt dans le tampon d'entrée (AlertIntakeBuffer), seule étape vue par l'appelant ;
+ * 3. threads d'envoi qui retirent les résultats par lots et les publient en JMS
+ *    (envois asynchrones, accusés traités par AsyncMessageSender).
+ * Un résultat dont l'envoi ou l'accusé échoue repasse par le tampon d'entrée (au moins une fois :
+ * si seule son alerte a échoué, le résultat est aussi renvoyé).
+ * L'ordre n'est garanti qu'à l'intérieur d'un lot quand plusieurs threads d'envoi tournent.
+ */
 public class AlertService {
 
-    // File d'attente locale (pour l'affichage UI et les Tests)
-    private final ConcurrentLinkedQueue<MedicalResult> alertQueue;
+    private static final Logger LOG = Logger.getLogger(AlertService.class.getName());
+
+    public static final int DEFAULT_INTAKE_CAPACITY = 4096;
+    public static final int DEFAULT_DISPATCHER_THREADS = 2;
+    public static final int DISPATCH_BATCH_SIZE = 64;
+    private static final long DISPATCH_POLL_MS = 200;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+    // Fichier de débordement, à côté de la base ~/medicaldb
+    private static final Path DEFAULT_SPILL_FILE = Paths.get(System.getProperty("user.home"), "medical_alerts_spill.bin");
+
+    // Alertes locales en attente d'acquittement (pour l'affichage UI et les Tests)
+    private final PendingAlertIndex pendingAlerts;
 
     // Producteurs JMS (pour l'architecture distribuée)
     private AlertProducer alertProducer;
     private MedicalResultProducer resultProducer;
     private boolean jmsEnabled;
 
+    // Étapes d'entrée et d'envoi (null en mode local)
+    private AlertIntakeBuffer intake;
+    private ExecutorService dispatchers;
+    private final AtomicInteger dispatching = new AtomicInteger();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+    private final AtomicLong ackFailures = new AtomicLong();
+    private final AtomicLong requeued = new AtomicLong();
+    private final AtomicLong transactedBatches = new AtomicLong();
+    private final AtomicLong transactedMessages = new AtomicLong();
+
+    /** Sort JMS d'un résultat confié à addAlerts. */
+    public enum Delivery {
+        SENT,       // parti dans la transaction JMS du lot
+        QUEUED,     // transaction impossible, accepté par le tampon d'entrée
+        NOT_SENT    // JMS désactivé, ou refusé par le tampon d'entrée
+    }
+
     public AlertService() {
-        this.alertQueue = new ConcurrentLinkedQueue<>();
+        this(DEFAULT_INTAKE_CAPACITY, AlertIntakeBuffer.OverflowPolicy.SPILL_TO_DISK, DEFAULT_DISPATCHER_THREADS,
+                DEFAULT_SPILL_FILE);
+    }
+
+    /**
+     * @param intakeCapacity résultats en attente d'envoi gardés en mémoire
+     * @param overflowPolicy comportement quand le tampon d'entrée est plein
+     * @param dispatcherThreads threads d'envoi JMS
+     * @param spillFile fichier de débordement (SPILL_TO_DISK)
+     */
+    public AlertService(int intakeCapacity, AlertIntakeBuffer.OverflowPolicy overflowPolicy, int dispatcherThreads,
+                        Path spillFile) {
+        this.pendingAlerts = new PendingAlertIndex();
         this.jmsEnabled = false;
 
         try {
@@ -28,70 +94,282 @@ public class AlertService {
             this.alertProducer = new AlertProducer(JMSConstants.MEDICAL_ALERTS_QUEUE);
             this.resultProducer = new MedicalResultProducer(JMSConstants.MEDICAL_RESULTS_QUEUE);
             this.jmsEnabled = true;
-            System.out.println(" AlertService: Mode Hybride (Local + JMS) activé");
         } catch (Exception e) {
             System.err.println(" AlertService: JMS non disponible, mode Local uniquement (" + e.getMessage() + ")");
             this.jmsEnabled = false;
         }
+
+        if (jmsEnabled) {
+            try {
+                this.intake = new AlertIntakeBuffer(intakeCapacity, overflowPolicy, spillFile);
+            } catch (IOException e) {
+                // Fichier de débordement inaccessible : on garde un tampon qui bloque plutôt que de perdre
+                System.err.println(" AlertService: débordement sur disque indisponible (" + e.getMessage() +
+                        "), politique BLOCK");
+                try {
+                    this.intake = new AlertIntakeBuffer(intakeCapacity, AlertIntakeBuffer.OverflowPolicy.BLOCK, spillFile);
+                } catch (IOException impossible) {
+                    throw new IllegalStateException(impossible);
+                }
+            }
+            AtomicInteger threadId = new AtomicInteger();
+            this.dispatchers = Executors.newFixedThreadPool(dispatcherThreads, r -> {
+                Thread t = new Thread(r, "alert-dispatcher-" + threadId.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            for (int i = 0; i < dispatcherThreads; i++) {
+                dispatchers.execute(this::dispatchLoop);
+            }
+            System.out.println(" AlertService: Mode Hybride (Local + JMS) activé - tampon " + intakeCapacity +
+                    " (" + intake.getPolicy() + "), " + dispatcherThreads + " thread(s) d'envoi");
+        }
     }
 
     /**
-     * Méthode principale qui gère la logique métier et l'envoi JMS
+     * Méthode principale appelée pour chaque résultat : mise à jour locale puis dépôt
+     * dans le tampon d'entrée. Ne parle jamais au broker.
      */
     public void addAlert(MedicalResult result) {
         if (result == null) return;
 
-        // 1. Logique JMS (Architecture)
-        if (jmsEnabled) {
+        // 1. Logique Locale (Pour vos tests et l'interface graphique)
+        if (result.isCritical()) {
+            pendingAlerts.add(result);
+        }
+
+        // 2. Tampon d'entrée vers les threads d'envoi JMS
+        if (jmsEnabled && !intake.offer(result)) {
+            rejected.incrementAndGet();
+            LOG.warning("Résultat non transmis (tampon fermé ou débordement impossible): " +
+                    result.getPatientId() + " - " + result.getTestType());
+        }
+    }
+
+    /**
+     * Lot de résultats (téléversement d'un automate) : mise à jour locale puis envoi de tout le lot
+     * dans une seule transaction JMS (résultats et alertes critiques), depuis le thread appelant.
+     * Si la transaction échoue, aucun message n'est délivré et le lot repasse par le tampon d'entrée.
+     * @return le sort de chaque résultat, dans l'ordre de results
+     */
+    public Delivery[] addAlerts(List<MedicalResult> results) {
+        for (MedicalResult result : results) {
+            if (result.isCritical()) {
+                pendingAlerts.add(result);
+            }
+        }
+        Delivery[] deliveries = new Delivery[results.size()];
+        if (!jmsEnabled) {
+            Arrays.fill(deliveries, Delivery.NOT_SENT);
+            return deliveries;
+        }
+        if (results.isEmpty()) return deliveries;
+
+        try {
+            int sent = JMSResourceManager.getInstance().inTransaction(session -> {
+                MessageProducer resultSender = session.createProducer(
+                        session.createQueue(JMSConstants.MEDICAL_RESULTS_QUEUE));
+                MessageProducer alertSender = session.createProducer(
+                        session.createQueue(JMSConstants.MEDICAL_ALERTS_QUEUE));
+                try {
+                    int messages = 0;
+                    for (MedicalResult result : results) {
+                        resultSender.send(MedicalResultProducer.createResultMessage(session, result));
+                        messages++;
+                        if (result.isCritical()) {
+                            alertSender.send(AlertProducer.createAlertMessage(session, result));
+                            messages++;
+                        }
+                    }
+                    return messages;
+                } finally {
+                    resultSender.close();
+                    alertSender.close();
+                }
+            });
+            transactedBatches.incrementAndGet();
+            transactedMessages.addAndGet(sent);
+            Arrays.fill(deliveries, Delivery.SENT);
+        } catch (JMSException e) {
+            LOG.warning("Transaction JMS annulée pour un lot de " + results.size() +
+                    " résultat(s), envoi par le tampon d'entrée: " + e.getMessage());
+            for (int i = 0; i < deliveries.length; i++) {
+                if (intake.offer(results.get(i))) {
+                    deliveries[i] = Delivery.QUEUED;
+                } else {
+                    rejected.incrementAndGet();
+                    deliveries[i] = Delivery.NOT_SENT;
+                }
+            }
+        }
+        return deliveries;
+    }
+
+    // Boucle d'un thread d'envoi : retire un lot, le publie, recommence jusqu'à l'arrêt et au vidage
+    private void dispatchLoop() {
+        List<MedicalResult> batch = new ArrayList<>(DISPATCH_BATCH_SIZE);
+        while (true) {
+            batch.clear();
+            try {
+                if (intake.drainTo(batch, DISPATCH_BATCH_SIZE, DISPATCH_POLL_MS) == 0) {
+                    if (intake.isClosed() && intake.isDrained()) return;
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!dispatchBatch(batch)) {
+                // Broker en erreur : pause avant de reprendre les résultats remis dans le tampon
+                try {
+                    Thread.sleep(DISPATCH_POLL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // @return false si un envoi a échoué immédiatement
+    private boolean dispatchBatch(List<MedicalResult> batch) {
+        boolean ok = true;
+        dispatching.addAndGet(batch.size());
+        for (MedicalResult result : batch) {
             try {
                 // Toujours envoyer vers le stockage (MedicalResultProducer)
-                resultProducer.sendResult(result);
-                System.out.println(" [JMS] Résultat envoyé au système d'archivage");
+                CompletableFuture<Void> archived = resultProducer.sendResultAsync(result)
+                        .whenComplete((done, error) -> reportFailure("Résultat non archivé", result, error));
 
                 // Si critique, envoyer vers les alertes (AlertProducer)
-                if (result.isCritical()) {
-                    alertProducer.sendAlert(result);
-                    System.out.println(" [JMS] ALERTE CRITIQUE envoyée au médecin");
-                }
+                CompletableFuture<Void> alerted = result.isCritical()
+                        ? alertProducer.sendAlertAsync(result)
+                                .whenComplete((done, error) -> reportFailure("ALERTE CRITIQUE non délivrée", result, error))
+                        : CompletableFuture.completedFuture(null);
+
+                // Accusé en échec : le résultat repasse une seule fois par le tampon
+                CompletableFuture.allOf(archived, alerted).whenComplete((done, error) -> {
+                    if (error != null) requeue(result);
+                });
+                dispatched.incrementAndGet();
             } catch (Exception e) {
-                System.err.println(" Erreur d'envoi JMS: " + e.getMessage());
+                sendErrors.incrementAndGet();
+                ok = false;
+                System.err.println(" Erreur d'envoi JMS (" + result.getPatientId() + "): " + e.getMessage());
+                requeue(result);
+            } finally {
+                dispatching.decrementAndGet();
             }
         }
+        batches.incrementAndGet();
+        return ok;
+    }
 
-        // 2. Logique Locale (Pour vos tests et l'interface graphique)
-        if (result.isCritical()) {
-            alertQueue.offer(result);
-            System.out.println(" [LOCAL] Alerte ajoutée à la liste interne");
+    private void reportFailure(String what, MedicalResult result, Throwable error) {
+        if (error != null) {
+            ackFailures.incrementAndGet();
+            System.err.println(" [JMS] " + what + " (" + result.getPatientId() + " - " + result.getTestType() +
+                    "): " + error.getMessage());
+        }
+    }
+
+    // Remet un résultat non transmis dans le tampon d'entrée (débordement sur disque si besoin)
+    private void requeue(MedicalResult result) {
+        if (intake.requeue(result)) {
+            requeued.incrementAndGet();
+        } else {
+            rejected.incrementAndGet();
+            LOG.warning("Résultat perdu après un échec d'envoi: " + result.getPatientId() + " - " +
+                    result.getTestType());
         }
     }
 
+    public String getJmsStats() {
+        if (!jmsEnabled) return "JMS désactivé";
+        return resultProducer.getAsyncSender().getStats() + "\n" + alertProducer.getAsyncSender().getStats();
+    }
+
+    // ===== MÉTRIQUES PAR ÉTAPE =====
+
+    /** Résultats en mémoire dans le tampon d'entrée. */
+    public int getIntakeDepth() {
+        return jmsEnabled ? intake.size() : 0;
+    }
+
+    /** Résultats en attente dans le fichier de débordement. */
+    public int getSpilledDepth() {
+        return jmsEnabled ? intake.getSpilledPending() : 0;
+    }
+
+    /** Résultats retirés du tampon mais pas encore confiés aux producteurs. */
+    public int getDispatchDepth() {
+        return dispatching.get();
+    }
+
+    /** Messages envoyés au broker sans accusé de réception. */
+    public int getJmsInFlight() {
+        if (!jmsEnabled) return 0;
+        return resultProducer.getAsyncSender().getInFlightCount() + alertProducer.getAsyncSender().getInFlightCount();
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    public String getPipelineStats() {
+        if (!jmsEnabled) {
+            return String.format("Pipeline[local seulement] alertes=%d", pendingAlerts.size());
+        }
+        return String.format("Pipeline[entrée=%d/%d (%s), disque=%d, envoi=%d, JMS en vol=%d, alertes locales=%d] " +
+                        "acceptés=%d, écartés=%d, sur disque=%d, refusés=%d, attente=%.1f ms, " +
+                        "envoyés=%d en %d lots, erreurs=%d, accusés en échec=%d, renvoyés=%d, " +
+                        "transactions=%d (%d messages)",
+                intake.size(), intake.getCapacity(), intake.getPolicy(), intake.getSpilledPending(),
+                dispatching.get(), getJmsInFlight(), pendingAlerts.size(),
+                intake.getAcceptedCount(), intake.getDroppedCount(), intake.getSpilledCount(), rejected.get(),
+                intake.getBlockedMillis(), dispatched.get(), batches.get(), sendErrors.get(),
+                ackFailures.get(), requeued.get(), transactedBatches.get(), transactedMessages.get());
+    }
+
     // --- MÉTHODES REQUISES PAR TestAlertService.java ---
 
     public int getAlertCount() {
-        return alertQueue.size();
+        return pendingAlerts.size();
+    }
+
+    public int getAlertCount(String patientId) {
+        return pendingAlerts.countForPatient(patientId);
     }
 
     public boolean hasAlerts() {
-        return !alertQueue.isEmpty();
+        return !pendingAlerts.isEmpty();
     }
 
+    /** Alertes en attente, les critiques puis les plus anciennes d'abord. */
     public List<MedicalResult> getPendingAlerts() {
-        return new ArrayList<>(alertQueue);
+        return pendingAlerts.snapshot();
+    }
+
+    public List<MedicalResult> getPendingAlerts(int limit) {
+        return pendingAlerts.top(limit);
     }
 
     public void acknowledgeAlert(String patientId) {
         if (patientId == null) return;
-        // Supprime l'alerte de la liste locale si l'ID correspond
-        boolean removed = alertQueue.removeIf(r -> r.getPatientId() != null && r.getPatientId().equals(patientId));
-        if (removed) {
-            System.out.println(" Alerte acquittée pour le patient: " + patientId);
+        // Supprime les alertes locales de ce patient
+        int removed = pendingAlerts.acknowledgePatient(patientId).size();
+        if (removed > 0) {
+            System.out.println(" Alerte acquittée pour le patient: " + patientId + " (" + removed + ")");
         } else {
             System.out.println("Aucune alerte trouvée pour: " + patientId);
         }
     }
 
+    /** @return true si l'alerte (MedicalResult.getId()) était en attente */
+    public boolean acknowledgeAlertById(String alertId) {
+        return pendingAlerts.acknowledge(alertId) != null;
+    }
+
     public void clearAlerts() {
-        alertQueue.clear();
+        pendingAlerts.clear();
         System.out.println(" Toutes les alertes locales ont été effacées.");
     }
 
@@ -110,14 +388,31 @@ public class AlertService {
         }
     }
 
+    /**
+     * Arrête l'entrée, laisse les threads d'envoi vider le tampon (disque compris),
+     * puis ferme les producteurs, qui attendent eux-mêmes les accusés en cours.
+     */
     public void shutdown() {
         try {
+            if (jmsEnabled) {
+                intake.close();
+                dispatchers.shutdown();
+                if (!dispatchers.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    System.err.println(" AlertService: envoi interrompu, " + (intake.size() + intake.getSpilledPending()) +
+                            " résultat(s) non transmis");
+                    dispatchers.shutdownNow();
+                }
+                intake.release();
+                System.out.println(" " + getPipelineStats());
+            }
             if (alertProducer != null) alertProducer.close();
             if (resultProducer != null) resultProducer.close();
-            alertQueue.clear();
+            pendingAlerts.clear();
             System.out.println(" AlertService arrêté.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,402 @@
+package com.medical.jms.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool borné de connexions JDBC.
+ * Les connexions rendues par borrow() se referment avec close() comme d'habitude :
+ * la connexion physique retourne simplement dans le pool.
+ */
+public class ConnectionPool {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+
+    // Connexions physiques disponibles (la plus récemment rendue en tête)
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int totalConnections = 0;
+    private boolean closed = false;
+
+    private final ScheduledExecutorService evictor;
+
+    // Métriques
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize, long maxWaitMillis, long idleTimeoutMillis) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Taille de pool invalide: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        fillToMinimum();
+    }
+
+    /**
+     * Emprunte une connexion validée, en attendant au plus maxWaitMillis si le pool est plein.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+
+        while (true) {
+            PooledEntry entry = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLNonTransientConnectionException("Pool de connexions fermé", "08003");
+                    }
+                    entry = idle.pollFirst();
+                    if (entry != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        create = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.incrementAndGet();
+                        throw new SQLTransientConnectionException("Aucune connexion disponible après "
+                                + maxWaitMillis + " ms (max=" + maxSize + ")", "08001");
+                    }
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLTransientConnectionException("Attente de connexion interrompue", "08001", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    entry = new PooledEntry(openPhysical());
+                } catch (SQLException e) {
+                    releaseSlot();
+                    throw e;
+                }
+            } else if (!isValid(entry.connection)) {
+                // Validation à l'emprunt : une connexion morte est détruite et on réessaie
+                destroy(entry);
+                continue;
+            }
+
+            recordWait(System.nanoTime() - start);
+            return wrap(entry);
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        do {
+            max = maxWaitNanos.get();
+        } while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos));
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, user, password);
+        createdCount.incrementAndGet();
+        return conn;
+    }
+
+    private boolean isValid(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Retour d'une connexion dans le pool (appelé par close() du proxy)
+    private void release(PooledEntry entry) {
+        boolean reusable;
+        try {
+            // Remettre la connexion dans un état neutre pour le prochain emprunteur
+            if (!entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            reusable = !entry.connection.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (!reusable) {
+            destroy(entry);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                totalConnections--;
+            } else {
+                entry.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(entry);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(entry.connection);
+    }
+
+    private void destroy(PooledEntry entry) {
+        closeQuietly(entry.connection);
+        releaseSlot();
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println(" Erreur fermeture connexion du pool: " + e.getMessage());
+        }
+        destroyedCount.incrementAndGet();
+    }
+
+    // Éviction des connexions inactives au-delà de la taille minimale
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Deque<PooledEntry> evicted = new ArrayDeque<>();
+
+        lock.lock();
+        try {
+            // Les plus anciennes sont en queue de la file
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections - evicted.size() > minSize) {
+                PooledEntry entry = it.next();
+                if (now - entry.lastUsed >= idleTimeoutMillis) {
+                    it.remove();
+                    evicted.add(entry);
+                }
+            }
+            totalConnections -= evicted.size();
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledEntry entry : evicted) {
+            closeQuietly(entry.connection);
+        }
+        fillToMinimum();
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || totalConnections >= minSize) {
+                    return;
+                }
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                release(new PooledEntry(openPhysical()));
+            } catch (SQLException e) {
+                releaseSlot();
+                System.err.println(" Pool: impossible d'ouvrir une connexion: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private Connection wrap(PooledEntry entry) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new BorrowedConnection(entry));
+    }
+
+    /**
+     * Ferme le pool et toutes les connexions inactives.
+     * Les connexions encore empruntées sont fermées à leur retour.
+     */
+    public void close() {
+        evictor.shutdownNow();
+        Deque<PooledEntry> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            totalConnections -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (PooledEntry entry : toClose) {
+            closeQuietly(entry.connection);
+        }
+    }
+
+    // ===== MÉTRIQUES =====
+
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveConnections() {
+        lock.lock();
+        try {
+            return totalConnections - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public long getCreatedCount() { return createdCount.get(); }
+    public long getDestroyedCount() { return destroyedCount.get(); }
+
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public String getStats() {
+        return String.format(
+                "Pool JDBC [min=%d, max=%d] actives=%d, inactives=%d, emprunts=%d, " +
+                        "attente moy=%.3f ms, attente max=%.3f ms, timeouts=%d, créées=%d, détruites=%d",
+                minSize, maxSize, getActiveConnections(), getIdleConnections(), getBorrowCount(),
+                getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount(),
+                getCreatedCount(), getDestroyedCount());
+    }
+
+    // Connexion physique gérée par le pool
+    private static final class PooledEntry {
+        final Connection connection;
+        long lastUsed;
+
+        PooledEntry(Connection connection) {
+            this.connection = connection;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    // Vue empruntée d'une connexion : close() la rend au pool au lieu de la fermer
+    private final class BorrowedConnection implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean returned = false;
+
+        BorrowedConnection(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.connection + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Connexion déjà rendue au pool");
+                    }
+                    try {
+                        return method.invoke(entry.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -1,9 +1,28 @@
 package com.medical.jms.service;
 
 import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.QueryResult;
+import com.medical.jms.model.ResultPage;
+import com.medical.jms.model.ResultQuery;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DatabaseService {
 
@@ -11,12 +30,146 @@ public class DatabaseService {
     private static final String USER = "sa";
     private static final String PASS = "";
 
+    // Configuration du pool de connexions
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_MAX_WAIT_MS = 5000;
+    private static final long POOL_IDLE_TIMEOUT_MS = 60000;
+
+    // Les requêtes sont des modèles : %s désigne une partition mensuelle (ou la vue medical_results)
+    private static final String INSERT_SQL = "INSERT INTO %s (" + PartitionManager.COLUMNS + ") " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Insertion ignorée si l'id existe déjà (mêmes paramètres que INSERT_SQL)
+    private static final String INSERT_IF_ABSENT_SQL = "MERGE INTO %s t " +
+            "USING (SELECT CAST(? AS VARCHAR(50)) AS id) s ON t.id = s.id " +
+            "WHEN NOT MATCHED THEN INSERT (" + PartitionManager.COLUMNS + ") " +
+            "VALUES (s.id, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Requêtes de lecture (package-private pour la vérification des plans d'exécution)
+    static final String SELECT_RECENT_SQL =
+            "SELECT * FROM %s ORDER BY created_at DESC LIMIT ?";
+    static final String SELECT_PATIENT_SQL =
+            "SELECT * FROM %s WHERE patient_id = ? ORDER BY created_at DESC";
+    static final String SELECT_CRITICAL_SQL =
+            "SELECT * FROM %s WHERE is_critical = TRUE ORDER BY created_at DESC";
+    static final String COUNT_TOTAL_SQL =
+            "SELECT COUNT(*) as total FROM %s";
+    static final String COUNT_CRITICAL_SQL =
+            "SELECT COUNT(*) as critical FROM %s WHERE is_critical = TRUE";
+    // Pagination par curseur (keyset) sur (created_at, id), du plus récent au plus ancien.
+    // "created_at <= ?" borne le parcours de l'index, le OR départage les ex aequo.
+    static final String PAGE_PATIENT_FIRST_SQL =
+            "SELECT * FROM %s WHERE patient_id = ? " +
+                    "ORDER BY created_at DESC, id DESC LIMIT ?";
+    static final String PAGE_PATIENT_NEXT_SQL =
+            "SELECT * FROM %s WHERE patient_id = ? " +
+                    "AND created_at <= ? AND (created_at < ? OR id < ?) " +
+                    "ORDER BY created_at DESC, id DESC LIMIT ?";
+    static final String PAGE_CRITICAL_FIRST_SQL =
+            "SELECT * FROM %s WHERE is_critical = TRUE " +
+                    "ORDER BY created_at DESC, id DESC LIMIT ?";
+    static final String PAGE_CRITICAL_NEXT_SQL =
+            "SELECT * FROM %s WHERE is_critical = TRUE " +
+                    "AND created_at <= ? AND (created_at < ? OR id < ?) " +
+                    "ORDER BY created_at DESC, id DESC LIMIT ?";
+    // Parcours complet en flux (exports, analyses), dans l'ordre de l'index created_at
+    static final String STREAM_ALL_SQL =
+            "SELECT * FROM %s ORDER BY created_at DESC";
+    // Suppression dans la seule partition à cheval sur la date limite
+    static final String DELETE_OLD_SQL =
+            "DELETE FROM %s WHERE created_at < ?";
+    // Suppression qui retourne, par groupe, ce qui a été supprimé (pour tenir les compteurs à jour)
+    static final String DELETE_OLD_GROUPED_SQL =
+            "SELECT test_type, CAST(created_at AS DATE) AS result_day, is_critical, COUNT(*) AS cnt " +
+                    "FROM OLD TABLE (" + DELETE_OLD_SQL + ") " +
+                    "GROUP BY test_type, CAST(created_at AS DATE), is_critical";
+    static final String COUNT_GROUPED_SQL =
+            "SELECT test_type, CAST(created_at AS DATE) AS result_day, is_critical, COUNT(*) AS cnt " +
+                    "FROM %s GROUP BY test_type, CAST(created_at AS DATE), is_critical";
+
+    // Étape d'une migration, exécutée dans la transaction de la migration
+    private interface MigrationStep {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final MigrationStep step;
+
+        Migration(int version, String description, MigrationStep step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+
+        static Migration sql(int version, String description, String... statements) {
+            return new Migration(version, description, conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    for (String statement : statements) {
+                        stmt.execute(statement);
+                    }
+                }
+            });
+        }
+    }
+
+    // Migrations de schéma versionnées
+    private static final Migration[] MIGRATIONS = {
+            Migration.sql(1, "Index secondaires sur patient_id, is_critical et created_at",
+                    "CREATE INDEX IF NOT EXISTS idx_results_patient_created " +
+                            "ON medical_results (patient_id, created_at DESC)",
+                    "CREATE INDEX IF NOT EXISTS idx_results_critical_created " +
+                            "ON medical_results (is_critical, created_at DESC)",
+                    "CREATE INDEX IF NOT EXISTS idx_results_created " +
+                            "ON medical_results (created_at DESC)"),
+            Migration.sql(2, "Clé de tri (created_at, id) dans les index pour la pagination par curseur",
+                    "DROP INDEX IF EXISTS idx_results_patient_created",
+                    "CREATE INDEX idx_results_patient_created " +
+                            "ON medical_results (patient_id, created_at DESC, id DESC)",
+                    "DROP INDEX IF EXISTS idx_results_critical_created",
+                    "CREATE INDEX idx_results_critical_created " +
+                            "ON medical_results (is_critical, created_at DESC, id DESC)"),
+            new Migration(3, "Partitions mensuelles medical_results_AAAAMM et vue medical_results",
+                    PartitionManager::partitionLegacyTable),
+            new Migration(4, "Clés de recherche patient_name_key et test_type_key indexées par partition",
+                    PartitionManager::addSearchKeys)
+    };
+
+    // Taille de lot par défaut lors de la lecture en flux
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    // Taille de page maximale acceptée pour les requêtes paginées
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Nombre d'ordres accumulés avant chaque executeBatch()
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private final ConnectionPool connectionPool;
+    private volatile ResultWriteBuffer writeBuffer;
+    private final ResultCounters counters = new ResultCounters();
+    private final PartitionManager partitions = new PartitionManager();
+
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return connectionPool.borrow();
     }
 
     public DatabaseService() {
+        this(POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_MAX_WAIT_MS, POOL_IDLE_TIMEOUT_MS);
+    }
+
+    public DatabaseService(int poolMinSize, int poolMaxSize, long poolMaxWaitMillis, long poolIdleTimeoutMillis) {
+        this(DB_URL, poolMinSize, poolMaxSize, poolMaxWaitMillis, poolIdleTimeoutMillis);
+    }
+
+    public DatabaseService(String dbUrl, int poolMinSize, int poolMaxSize,
+                           long poolMaxWaitMillis, long poolIdleTimeoutMillis) {
+        this.connectionPool = new ConnectionPool(dbUrl, USER, PASS,
+                poolMinSize, poolMaxSize, poolMaxWaitMillis, poolIdleTimeoutMillis);
         initializeDatabase();
+        migrateSchema();
+        loadPartitions();
+        rebuildCounters();
         System.out.println(" DatabaseService initialisé");
     }
 
@@ -44,30 +197,95 @@ public class DatabaseService {
         }
     }
 
+    // Applique les migrations de schéma non encore enregistrées dans schema_version
+    private void migrateSchema() {
+        String createVersionTable = "CREATE TABLE IF NOT EXISTS schema_version (" +
+                "version INT PRIMARY KEY," +
+                "description VARCHAR(200)," +
+                "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                ")";
+
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(createVersionTable);
+
+            int current = 0;
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+                if (rs.next()) {
+                    current = rs.getInt(1);
+                }
+            }
+
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= current) continue;
+
+                conn.setAutoCommit(false);
+                try {
+                    migration.step.apply(conn);
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                        pstmt.setInt(1, migration.version);
+                        pstmt.setString(2, migration.description);
+                        pstmt.executeUpdate();
+                    }
+                    conn.commit();
+                    System.out.println(" Migration schéma v" + migration.version + " appliquée: " +
+                            migration.description);
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println(" Erreur migration du schéma");
+            logSQLException(e);
+        }
+    }
+
+    private void loadPartitions() {
+        try (Connection conn = getConnection()) {
+            partitions.load(conn);
+        } catch (SQLException e) {
+            System.err.println(" Erreur chargement des partitions");
+            logSQLException(e);
+        }
+    }
+
+    // Crée au besoin la partition du mois (hors transaction : le DDL H2 valide implicitement)
+    String ensurePartition(YearMonth month) throws SQLException {
+        try (Connection conn = getConnection()) {
+            return partitions.ensurePartition(conn, month);
+        }
+    }
+
+    // Plan d'exécution H2 d'une requête (utilisé pour vérifier l'usage des index)
+    String explain(String sql, Object... params) throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+
     public void saveResult(MedicalResult result) {
         if (result == null) {
             System.err.println(" Impossible de sauvegarder: MedicalResult est null");
             return;
         }
 
-        String sql = "INSERT INTO medical_results (id, patient_name, patient_id, " +
-                "test_type, result_value, unit, is_critical, doctor_notes, created_at) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, result.getId());
-            pstmt.setString(2, result.getPatientName());
-            pstmt.setString(3, result.getPatientId());
-            pstmt.setString(4, result.getTestType());
-            pstmt.setDouble(5, result.getValue());
-            pstmt.setString(6, result.getUnit());
-            pstmt.setBoolean(7, result.isCritical());
-            pstmt.setString(8, result.getDoctorNotes());
-            pstmt.setTimestamp(9, new Timestamp(result.getTimestamp().getTime()));
-
-            int rows = pstmt.executeUpdate();
+        try (Connection conn = getConnection()) {
+            int rows = insertResult(conn, result);
             System.out.println("💾 Résultat sauvegardé: " + result.getId() +
                     " (" + rows + " ligne(s) affectée(s))");
 
@@ -77,6 +295,227 @@ public class DatabaseService {
         }
     }
 
+    // Insère un résultat seul (connexion en auto-commit)
+    private int insertResult(Connection conn, MedicalResult result) throws SQLException {
+        String table = partitions.ensurePartition(conn, PartitionManager.monthOf(result.getTimestamp()));
+
+        int rows;
+        try (PreparedStatement pstmt = conn.prepareStatement(String.format(INSERT_SQL, table))) {
+            bindResult(pstmt, result);
+            rows = pstmt.executeUpdate();
+        }
+        if (rows > 0) {
+            counters.recordInsert(result);
+        }
+        return rows;
+    }
+
+    /**
+     * Sauvegarde plusieurs résultats en lots JDBC, validés dans une seule transaction.
+     * Les résultats sont regroupés par partition mensuelle.
+     * Si la transaction échoue (id en double, champ trop long...), les résultats sont réécrits
+     * un par un : seuls ceux qui échouent seuls sont écartés.
+     * @return nombre de lignes insérées
+     */
+    public int saveResults(Collection<MedicalResult> results) {
+        if (results == null || results.isEmpty()) {
+            return 0;
+        }
+        List<MedicalResult> list = new ArrayList<>(results);
+        return saveResults(list, (index, e) -> System.err.println(" Résultat écarté " + list.get(index).getId() +
+                " (patient " + list.get(index).getPatientName() + "): " + e.getMessage()));
+    }
+
+    /**
+     * Comme saveResults(Collection), en signalant à rejected la position de chaque résultat écarté
+     * et son erreur.
+     */
+    public int saveResults(List<MedicalResult> results, BiConsumer<Integer, Exception> rejected) {
+        if (results == null || results.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            int rows = writeResults(results, INSERT_SQL);
+            System.out.println("💾 Lot sauvegardé: " + rows + " résultat(s)");
+            return rows;
+        } catch (SQLException e) {
+            System.err.println(" Lot de " + results.size() + " résultat(s) annulé (" + e.getMessage() +
+                    "), écriture ligne par ligne");
+        }
+
+        int rows = 0;
+        int index = 0;
+        try (Connection conn = getConnection()) {
+            for (; index < results.size(); index++) {
+                MedicalResult result = results.get(index);
+                if (result == null) {
+                    continue;
+                }
+                try {
+                    rows += insertResult(conn, result);
+                } catch (SQLException e) {
+                    rejected.accept(index, e);
+                }
+            }
+        } catch (SQLException e) {
+            // Plus de connexion : le reste du lot n'est pas écrit
+            logSQLException(e);
+            for (; index < results.size(); index++) {
+                rejected.accept(index, e);
+            }
+        }
+        System.out.println("💾 Lot sauvegardé ligne par ligne: " + rows + "/" + results.size() + " résultat(s)");
+        return rows;
+    }
+
+    /**
+     * Variante idempotente de saveResults : un résultat dont l'id existe déjà dans sa partition
+     * est ignoré, ce qui permet de rejouer un lot (redélivrance JMS après un échec de commit).
+     * Contrairement à saveResults, l'erreur est propagée pour que l'appelant annule sa propre transaction.
+     * @return nombre de lignes réellement insérées (hors doublons)
+     */
+    public int saveResultsIdempotent(Collection<MedicalResult> results) throws SQLException {
+        if (results == null || results.isEmpty()) {
+            return 0;
+        }
+        return writeResults(results, INSERT_IF_ABSENT_SQL);
+    }
+
+    // Écrit les résultats regroupés par partition, en lots JDBC, dans une seule transaction
+    private int writeResults(Collection<MedicalResult> results, String sqlTemplate) throws SQLException {
+        Map<YearMonth, List<MedicalResult>> byPartition = new TreeMap<>();
+        for (MedicalResult result : results) {
+            if (result != null) {
+                byPartition.computeIfAbsent(PartitionManager.monthOf(result.getTimestamp()),
+                        k -> new ArrayList<>()).add(result);
+            }
+        }
+
+        try (Connection conn = getConnection()) {
+            // Création des partitions avant la transaction (DDL)
+            for (YearMonth month : byPartition.keySet()) {
+                partitions.ensurePartition(conn, month);
+            }
+
+            conn.setAutoCommit(false);
+            List<MedicalResult> inserted = new ArrayList<>(results.size());
+
+            try {
+                for (Map.Entry<YearMonth, List<MedicalResult>> entry : byPartition.entrySet()) {
+                    List<MedicalResult> partition = entry.getValue();
+                    String sql = String.format(sqlTemplate, PartitionManager.tableName(entry.getKey()));
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        int start = 0;
+                        for (int i = 0; i < partition.size(); i++) {
+                            bindResult(pstmt, partition.get(i));
+                            pstmt.addBatch();
+                            if (i + 1 - start == JDBC_BATCH_SIZE || i + 1 == partition.size()) {
+                                collectInserted(pstmt.executeBatch(), partition.subList(start, i + 1), inserted);
+                                start = i + 1;
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+            for (MedicalResult result : inserted) {
+                counters.recordInsert(result);
+            }
+            return inserted.size();
+        }
+    }
+
+    private void collectInserted(int[] counts, List<MedicalResult> batch, List<MedicalResult> inserted) {
+        for (int i = 0; i < counts.length; i++) {
+            // SUCCESS_NO_INFO : le pilote ne connaît pas le nombre exact, une ligne par ordre
+            if (counts[i] == Statement.SUCCESS_NO_INFO || counts[i] > 0) {
+                inserted.add(batch.get(i));
+            }
+        }
+    }
+
+    private void bindResult(PreparedStatement pstmt, MedicalResult result) throws SQLException {
+        pstmt.setString(1, result.getId());
+        pstmt.setString(2, result.getPatientName());
+        pstmt.setString(3, result.getPatientId());
+        pstmt.setString(4, result.getTestType());
+        pstmt.setDouble(5, result.getValue());
+        pstmt.setString(6, result.getUnit());
+        pstmt.setBoolean(7, result.isCritical());
+        pstmt.setString(8, result.getDoctorNotes());
+        pstmt.setTimestamp(9, new Timestamp(result.getTimestamp().getTime()));
+    }
+
+    // ===== ÉCRITURE DIFFÉRÉE (WRITE-BEHIND) =====
+
+    /**
+     * Active le mode asynchrone : saveResultAsync() regroupe les résultats de tous
+     * les appelants en lots, écrits quand le lot est plein ou après flushIntervalMillis.
+     */
+    public synchronized void enableWriteBehind(int batchSize, long flushIntervalMillis, int capacity) {
+        if (writeBuffer != null) {
+            System.out.println(" Write-behind déjà actif");
+            return;
+        }
+        writeBuffer = new ResultWriteBuffer(this::saveResults, batchSize, flushIntervalMillis, capacity);
+        System.out.println(" Write-behind activé (lot=" + batchSize + ", délai=" + flushIntervalMillis +
+                " ms, capacité=" + capacity + ")");
+    }
+
+    /**
+     * Dépose un résultat dans le tampon d'écriture différée.
+     * Bloque si le tampon est plein ; écrit directement si le mode n'est pas actif.
+     * @return complété quand le résultat est écrit, en erreur (SQLException...) s'il a été écarté
+     */
+    public CompletableFuture<Void> saveResultAsync(MedicalResult result) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        if (result == null) {
+            System.err.println(" Impossible de sauvegarder: MedicalResult est null");
+            written.completeExceptionally(new IllegalArgumentException("MedicalResult est null"));
+            return written;
+        }
+
+        ResultWriteBuffer buffer = writeBuffer;
+        if (buffer == null) {
+            try (Connection conn = getConnection()) {
+                insertResult(conn, result);
+                written.complete(null);
+            } catch (SQLException e) {
+                System.err.println("Erreur sauvegarde pour patient: " + result.getPatientName());
+                logSQLException(e);
+                written.completeExceptionally(e);
+            }
+            return written;
+        }
+
+        try {
+            return buffer.submit(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println(" Dépôt interrompu pour patient: " + result.getPatientName());
+            written.completeExceptionally(e);
+            return written;
+        }
+    }
+
+    // Force l'écriture de tous les résultats en attente
+    public void flush() {
+        ResultWriteBuffer buffer = writeBuffer;
+        if (buffer != null) {
+            buffer.flush();
+        }
+    }
+
+    public String getWriteBehindStats() {
+        ResultWriteBuffer buffer = writeBuffer;
+        return buffer != null ? buffer.getStats() : "Write-behind inactif";
+    }
+
     public List<MedicalResult> getRecentResults(int limit) {
         // VALIDATION AJOUTÉE
         if (limit <= 0) {
@@ -85,18 +524,12 @@ public class DatabaseService {
         }
 
         List<MedicalResult> results = new ArrayList<>();
-        String sql = "SELECT * FROM medical_results ORDER BY created_at DESC LIMIT ?";
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, limit);
-            ResultSet rs = pstmt.executeQuery();
+        try (Connection conn = getConnection()) {
 
-            while (rs.next()) {
-                MedicalResult result = createMedicalResultFromResultSet(rs);
-                results.add(result);
-            }
+            // Élagage : les partitions plus anciennes ne sont lues que si la limite n'est pas atteinte
+            readNewestFirst(conn, partitions.newestFirst(), SELECT_RECENT_SQL,
+                    (pstmt, remaining) -> pstmt.setInt(1, remaining), limit, results);
 
             System.out.println("📋 " + results.size() + " résultats récents récupérés (limite: " + limit + ")");
 
@@ -115,18 +548,12 @@ public class DatabaseService {
         }
 
         List<MedicalResult> results = new ArrayList<>();
-        String sql = "SELECT * FROM medical_results WHERE patient_id = ? ORDER BY created_at DESC";
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = getConnection()) {
 
-            pstmt.setString(1, patientId.trim());
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                MedicalResult result = createMedicalResultFromResultSet(rs);
-                results.add(result);
-            }
+            String id = patientId.trim();
+            readNewestFirst(conn, partitions.newestFirst(), SELECT_PATIENT_SQL,
+                    (pstmt, remaining) -> pstmt.setString(1, id), Integer.MAX_VALUE, results);
 
             System.out.println("👤 " + results.size() + " résultats trouvés pour patient: " + patientId);
 
@@ -140,16 +567,11 @@ public class DatabaseService {
 
     public List<MedicalResult> getCriticalResults() {
         List<MedicalResult> results = new ArrayList<>();
-        String sql = "SELECT * FROM medical_results WHERE is_critical = TRUE ORDER BY created_at DESC";
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {  // CORRIGÉ: try-with-resources
+        try (Connection conn = getConnection()) {  // CORRIGÉ: try-with-resources
 
-            while (rs.next()) {
-                MedicalResult result = createMedicalResultFromResultSet(rs);
-                results.add(result);
-            }
+            readNewestFirst(conn, partitions.newestFirst(), SELECT_CRITICAL_SQL,
+                    (pstmt, remaining) -> { }, Integer.MAX_VALUE, results);
 
             System.out.println("🚨 " + results.size() + " alertes critiques trouvées");
 
@@ -161,12 +583,436 @@ public class DatabaseService {
         return results;
     }
 
+    // Paramètres d'une requête de partition ; remaining = nombre de lignes encore attendues
+    private interface PartitionBinder {
+        void bind(PreparedStatement pstmt, int remaining) throws SQLException;
+    }
+
+    // Exécute la requête sur chaque partition, de la plus récente à la plus ancienne,
+    // et s'arrête dès que limit résultats ont été lus
+    private void readNewestFirst(Connection conn, List<YearMonth> months, String sqlTemplate,
+                                 PartitionBinder binder, int limit, List<MedicalResult> results) throws SQLException {
+        for (YearMonth month : months) {
+            int remaining = limit - results.size();
+            if (remaining <= 0) break;
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    String.format(sqlTemplate, PartitionManager.tableName(month)))) {
+                binder.bind(pstmt, remaining);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        results.add(createMedicalResultFromResultSet(rs));
+                    }
+                }
+            }
+        }
+    }
+
+    // ===== PAGINATION PAR CURSEUR =====
+
+    /**
+     * Page de résultats d'un patient, du plus récent au plus ancien.
+     * @param cursor null pour la première page, sinon le curseur de la page précédente
+     */
+    public ResultPage<MedicalResult> getPatientResultsPage(String patientId, String cursor, int pageSize) {
+        if (patientId == null || patientId.trim().isEmpty()) {
+            System.err.println("ID patient invalide");
+            return ResultPage.empty();
+        }
+        return queryPage(PAGE_PATIENT_FIRST_SQL, PAGE_PATIENT_NEXT_SQL, patientId.trim(), cursor, pageSize);
+    }
+
+    /**
+     * Page de résultats critiques, du plus récent au plus ancien.
+     */
+    public ResultPage<MedicalResult> getCriticalResultsPage(String cursor, int pageSize) {
+        return queryPage(PAGE_CRITICAL_FIRST_SQL, PAGE_CRITICAL_NEXT_SQL, null, cursor, pageSize);
+    }
+
+    private ResultPage<MedicalResult> queryPage(String firstSql, String nextSql, String patientId,
+                                                String cursor, int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            System.err.println(" Taille de page invalide: " + pageSize + " (1.." + MAX_PAGE_SIZE + ")");
+            return ResultPage.empty();
+        }
+
+        Object[] after = null;
+        if (cursor != null) {
+            after = decodeCursor(cursor);
+            if (after == null) {
+                System.err.println(" Curseur invalide: " + cursor);
+                return ResultPage.empty();
+            }
+        }
+
+        List<MedicalResult> results = new ArrayList<>(pageSize);
+        Timestamp lastCreatedAt = null;
+        boolean hasMore = false;
+
+        // Les partitions plus récentes que le curseur sont ignorées ; seule la partition
+        // du curseur a besoin du prédicat keyset, les suivantes sont entièrement plus anciennes
+        List<YearMonth> months = after == null ? partitions.newestFirst()
+                : partitions.newestFirst(PartitionManager.monthOf((Timestamp) after[0]));
+
+        try (Connection conn = getConnection()) {
+            for (YearMonth month : months) {
+                if (hasMore) break;
+
+                boolean keyset = after != null && month.equals(PartitionManager.monthOf((Timestamp) after[0]));
+                String sql = String.format(keyset ? nextSql : firstSql, PartitionManager.tableName(month));
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    if (patientId != null) {
+                        pstmt.setString(index++, patientId);
+                    }
+                    if (keyset) {
+                        pstmt.setTimestamp(index++, (Timestamp) after[0]);
+                        pstmt.setTimestamp(index++, (Timestamp) after[0]);
+                        pstmt.setString(index++, (String) after[1]);
+                    }
+                    // Une ligne de plus pour savoir s'il existe une page suivante
+                    pstmt.setInt(index, pageSize - results.size() + 1);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (results.size() == pageSize) {
+                                hasMore = true;
+                                break;
+                            }
+                            lastCreatedAt = rs.getTimestamp("created_at");
+                            results.add(createMedicalResultFromResultSet(rs));
+                        }
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println(" Erreur lecture page de résultats");
+            logSQLException(e);
+            return ResultPage.empty();
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            nextCursor = encodeCursor(lastCreatedAt, results.get(results.size() - 1).getId());
+        }
+        return new ResultPage<>(results, nextCursor);
+    }
+
+    // Curseur opaque : "<created_at en nanos depuis l'epoch>:<id>" encodé en Base64 URL
+    private String encodeCursor(Timestamp createdAt, String id) {
+        long epochNanos = createdAt.getTime() / 1000 * 1_000_000_000L + createdAt.getNanos();
+        String raw = epochNanos + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0) return null;
+
+            long epochNanos = Long.parseLong(raw.substring(0, sep));
+            Timestamp createdAt = new Timestamp(Math.floorDiv(epochNanos, 1_000_000_000L) * 1000);
+            createdAt.setNanos((int) Math.floorMod(epochNanos, 1_000_000_000L));
+            return new Object[]{createdAt, raw.substring(sep + 1)};
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // ===== REQUÊTES FILTRÉES ET PROJETÉES =====
+
+    /**
+     * Évalue une ResultQuery en SQL, partition par partition, du plus récent au plus ancien :
+     * seules les colonnes projetées sont lues et les partitions hors période sont ignorées.
+     */
+    public QueryResult queryResults(ResultQuery query) {
+        int limit = query.effectiveLimit();
+        QueryResult.Rows rows = new QueryResult.Rows(query.getFields(), limit);
+        boolean truncated = false;
+
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (query.getPatientId() != null) {
+            where.append(" AND patient_id = ?");
+            params.add(query.getPatientId());
+        }
+        // Clés de recherche calculées par la partition (voir PartitionManager), indexées
+        if (query.getPatientName() != null) {
+            where.append(" AND patient_name_key = ?");
+            params.add(ResultQuery.searchKey(query.getPatientName()));
+        }
+        if (query.getTestType() != null) {
+            where.append(" AND test_type_key = ?");
+            params.add(ResultQuery.searchKey(query.getTestType()));
+        }
+        if (query.getCritical() != null) {
+            where.append(" AND is_critical = ?");
+            params.add(query.getCritical());
+        }
+        if (!Double.isNaN(query.getMinValue())) {
+            where.append(" AND result_value >= ?");
+            params.add(query.getMinValue());
+        }
+        if (!Double.isNaN(query.getMaxValue())) {
+            where.append(" AND result_value <= ?");
+            params.add(query.getMaxValue());
+        }
+        if (query.getFrom() != null) {
+            where.append(" AND created_at >= ?");
+            params.add(new Timestamp(query.getFrom().getTime()));
+        }
+        if (query.getTo() != null) {
+            where.append(" AND created_at <= ?");
+            params.add(new Timestamp(query.getTo().getTime()));
+        }
+        String sqlTemplate = "SELECT " + projectedColumns(query) + " FROM %s" + where +
+                " ORDER BY created_at DESC, id DESC LIMIT ?";
+
+        // Élagage par période : partitions entre le mois de 'to' et celui de 'from'
+        List<YearMonth> months = query.getTo() != null
+                ? partitions.newestFirst(PartitionManager.monthOf(query.getTo()))
+                : partitions.newestFirst();
+        YearMonth oldest = query.getFrom() != null ? PartitionManager.monthOf(query.getFrom()) : null;
+
+        try (Connection conn = getConnection()) {
+            for (YearMonth month : months) {
+                if (truncated || (oldest != null && month.isBefore(oldest))) break;
+
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        String.format(sqlTemplate, PartitionManager.tableName(month)))) {
+                    int index = 1;
+                    for (Object param : params) {
+                        pstmt.setObject(index++, param);
+                    }
+                    // Une ligne de plus pour savoir si la limite tronque le résultat
+                    pstmt.setInt(index, limit - rows.size() + 1);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (rows.size() == limit) {
+                                truncated = true;
+                                break;
+                            }
+                            addProjectedRow(rs, query, rows);
+                        }
+                    }
+                }
+            }
+
+            System.out.println("🔎 " + rows.size() + " résultat(s) pour " + query);
+
+        } catch (SQLException e) {
+            System.err.println(" Erreur requête filtrée: " + query);
+            logSQLException(e);
+            return new QueryResult.Rows(query.getFields(), 0).toResult(false, "base");
+        }
+
+        return rows.toResult(truncated, "base");
+    }
+
+    private static String projectedColumns(ResultQuery query) {
+        List<String> columns = new ArrayList<>();
+        if (query.hasField(ResultQuery.Field.PATIENT_ID)) columns.add("patient_id");
+        if (query.hasField(ResultQuery.Field.PATIENT_NAME)) columns.add("patient_name");
+        if (query.hasField(ResultQuery.Field.TEST_TYPE)) columns.add("test_type");
+        if (query.hasField(ResultQuery.Field.VALUE)) columns.add("result_value");
+        if (query.hasField(ResultQuery.Field.UNIT)) columns.add("unit");
+        if (query.hasField(ResultQuery.Field.CRITICAL)) columns.add("is_critical");
+        if (query.hasField(ResultQuery.Field.TIMESTAMP)) columns.add("created_at");
+        // Aucune colonne demandée : seul le nombre de lignes compte
+        return columns.isEmpty() ? "id" : String.join(", ", columns);
+    }
+
+    private static void addProjectedRow(ResultSet rs, ResultQuery query, QueryResult.Rows rows) throws SQLException {
+        rows.add(
+                query.hasField(ResultQuery.Field.PATIENT_ID) ? rs.getString("patient_id") : null,
+                query.hasField(ResultQuery.Field.PATIENT_NAME) ? rs.getString("patient_name") : null,
+                query.hasField(ResultQuery.Field.TEST_TYPE) ? rs.getString("test_type") : null,
+                query.hasField(ResultQuery.Field.VALUE) ? rs.getDouble("result_value") : 0,
+                query.hasField(ResultQuery.Field.UNIT) ? rs.getString("unit") : null,
+                query.hasField(ResultQuery.Field.CRITICAL) && rs.getBoolean("is_critical"),
+                query.hasField(ResultQuery.Field.TIMESTAMP) ? rs.getTimestamp("created_at") : null);
+    }
+
+    // ===== LECTURE EN FLUX =====
+
+    public Stream<MedicalResult> streamAllResults() {
+        return streamAllResults(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Parcourt toute la table sans matérialiser le résultat : les lignes sont lues
+     * au fil de l'eau sur un ResultSet en avant seulement, partition par partition.
+     * Le flux DOIT être fermé (try-with-resources) pour rendre la connexion au pool.
+     */
+    public Stream<MedicalResult> streamAllResults(int fetchSize) {
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            // Exécution paresseuse H2 : les lignes ne sont pas chargées en mémoire à l'avance
+            setLazyQueryExecution(conn, true);
+        } catch (SQLException e) {
+            System.err.println(" Erreur ouverture du flux de résultats");
+            logSQLException(e);
+            if (conn != null) {
+                closeStreamResources(conn);
+            }
+            return Stream.empty();
+        }
+
+        PartitionSpliterator spliterator = new PartitionSpliterator(conn, partitions.newestFirst(),
+                fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    // Enchaîne un ResultSet par partition sur une même connexion, du plus récent au plus ancien
+    private class PartitionSpliterator extends Spliterators.AbstractSpliterator<MedicalResult> {
+        private final Connection conn;
+        private final Iterator<YearMonth> months;
+        private final int fetchSize;
+        private PreparedStatement pstmt;
+        private ResultSet rs;
+
+        PartitionSpliterator(Connection conn, List<YearMonth> months, int fetchSize) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.months = months.iterator();
+            this.fetchSize = fetchSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super MedicalResult> action) {
+            try {
+                while (rs == null || !rs.next()) {
+                    closeCurrent();
+                    if (!months.hasNext()) {
+                        return false;
+                    }
+                    pstmt = conn.prepareStatement(
+                            String.format(STREAM_ALL_SQL, PartitionManager.tableName(months.next())),
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    pstmt.setFetchSize(fetchSize);
+                    rs = pstmt.executeQuery();
+                }
+                action.accept(createMedicalResultFromResultSet(rs));
+                return true;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Erreur lecture du flux de résultats: " + e.getMessage(), e);
+            }
+        }
+
+        private void closeCurrent() throws SQLException {
+            if (rs != null) rs.close();
+            if (pstmt != null) pstmt.close();
+            rs = null;
+            pstmt = null;
+        }
+
+        void close() {
+            try {
+                closeCurrent();
+            } catch (SQLException e) {
+                logSQLException(e);
+            }
+            closeStreamResources(conn);
+        }
+    }
+
+    /**
+     * Variante visiteur : applique visitor à chaque résultat et ferme les ressources JDBC.
+     * @return nombre de résultats visités
+     */
+    public long forEachResult(int fetchSize, Consumer<MedicalResult> visitor) {
+        long[] count = {0};
+        try (Stream<MedicalResult> stream = streamAllResults(fetchSize)) {
+            stream.forEach(result -> {
+                visitor.accept(result);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    private void setLazyQueryExecution(Connection conn, boolean lazy) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    private void closeStreamResources(Connection conn) {
+        try {
+            setLazyQueryExecution(conn, false);
+        } catch (SQLException e) {
+            logSQLException(e);
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logSQLException(e);
+        }
+    }
+
+    // Lecture O(1) depuis les compteurs maintenus à chaque écriture
     public int getTotalCount() {
-        return getCount("SELECT COUNT(*) as total FROM medical_results", "total");
+        return (int) counters.getTotal();
     }
 
     public int getCriticalCount() {
-        return getCount("SELECT COUNT(*) as critical FROM medical_results WHERE is_critical = TRUE", "critical");
+        return (int) counters.getCritical();
+    }
+
+    public Map<String, Long> getCountsByTestType() {
+        return counters.getCountsByTestType();
+    }
+
+    public Map<String, Long> getCriticalCountsByTestType() {
+        return counters.getCriticalCountsByTestType();
+    }
+
+    public Map<LocalDate, Long> getCountsByDay() {
+        return counters.getCountsByDay();
+    }
+
+    // ===== COMPTEURS =====
+
+    // Reconstruit les compteurs à partir de la table, au démarrage seulement : les compteurs
+    // sont vidés puis remplis sans bloquer les écritures, qui n'ont pas encore commencé
+    private void rebuildCounters() {
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(String.format(COUNT_GROUPED_SQL, PartitionManager.VIEW_NAME))) {
+
+            counters.clear();
+            while (rs.next()) {
+                counters.add(rs.getString("test_type"), rs.getObject("result_day", LocalDate.class),
+                        rs.getBoolean("is_critical"), rs.getLong("cnt"));
+            }
+            System.out.println("📊 Compteurs reconstruits: " + counters);
+
+        } catch (SQLException e) {
+            System.err.println(" Erreur reconstruction des compteurs");
+            logSQLException(e);
+        }
+    }
+
+    /**
+     * Compare les compteurs avec un COUNT(*) réel sur la table.
+     * @return true si les compteurs sont cohérents
+     */
+    public boolean verifyCounters() {
+        int realTotal = getCount(String.format(COUNT_TOTAL_SQL, PartitionManager.VIEW_NAME), "total");
+        int realCritical = getCount(String.format(COUNT_CRITICAL_SQL, PartitionManager.VIEW_NAME), "critical");
+        boolean consistent = realTotal == counters.getTotal() && realCritical == counters.getCritical();
+
+        if (consistent) {
+            System.out.println("📊 Compteurs cohérents avec la table");
+        } else {
+            System.err.println(" Compteurs incohérents: total " + counters.getTotal() + " vs " + realTotal +
+                    ", critiques " + counters.getCritical() + " vs " + realCritical);
+        }
+        return consistent;
     }
 
     // MÉTHODE COMMUNE POUR ÉVITER LA DUPLICATION
@@ -189,27 +1035,69 @@ public class DatabaseService {
         return 0;
     }
 
+    /**
+     * Rétention : les partitions entièrement antérieures à la date limite sont supprimées
+     * d'un bloc (DROP TABLE) ; seule la partition à cheval sur la limite subit un DELETE.
+     */
     public int clearOldData(int days) {
         if (days <= 0) {
             System.err.println(" Nombre de jours invalide: " + days);
             return 0;
         }
 
-        // CORRIGÉ: Syntaxe H2 correcte
-        String sql = "DELETE FROM medical_results WHERE created_at < DATEADD('DAY', -?, CURRENT_TIMESTAMP)";
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(days));
+        YearMonth cutoffMonth = PartitionManager.monthOf(cutoff);
+        int deleted = 0;
+        int dropped = 0;
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = getConnection()) {
+
+            for (YearMonth month : partitions.olderThan(cutoffMonth)) {
+                // Décompte par groupe avant suppression pour tenir les compteurs à jour
+                List<Object[]> groups = new ArrayList<>();
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(
+                             String.format(COUNT_GROUPED_SQL, PartitionManager.tableName(month)))) {
+                    while (rs.next()) {
+                        groups.add(new Object[]{rs.getString("test_type"),
+                                rs.getObject("result_day", LocalDate.class),
+                                rs.getBoolean("is_critical"), rs.getLong("cnt")});
+                    }
+                }
+
+                partitions.dropPartition(conn, month);
+                dropped++;
+                for (Object[] group : groups) {
+                    long count = (Long) group[3];
+                    counters.recordDelete((String) group[0], (LocalDate) group[1], (Boolean) group[2], count);
+                    deleted += count;
+                }
+            }
+
+            if (partitions.contains(cutoffMonth)) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        String.format(DELETE_OLD_GROUPED_SQL, PartitionManager.tableName(cutoffMonth)))) {
+                    pstmt.setTimestamp(1, cutoff);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            long count = rs.getLong("cnt");
+                            counters.recordDelete(rs.getString("test_type"),
+                                    rs.getObject("result_day", LocalDate.class),
+                                    rs.getBoolean("is_critical"), count);
+                            deleted += count;
+                        }
+                    }
+                }
+            }
 
-            pstmt.setInt(1, days);
-            int deleted = pstmt.executeUpdate();
-            System.out.println("🧹 " + deleted + " anciens enregistrements supprimés (> " + days + " jours)");
+            System.out.println("🧹 " + deleted + " anciens enregistrements supprimés (> " + days + " jours, " +
+                    dropped + " partition(s) supprimée(s))");
             return deleted;
 
         } catch (SQLException e) {
             System.err.println(" Erreur nettoyage données (> " + days + " jours)");
             logSQLException(e);
-            return 0;
+            return deleted;
         }
     }
 
@@ -275,6 +1163,30 @@ public class DatabaseService {
         }
     }
 
+    // Vrai si le pool fournit une connexion valide (vérifiée à l'emprunt), sans trace console
+    public boolean isAvailable() {
+        try (Connection conn = getConnection()) {
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Statistiques du pool de connexions (attente, emprunts, timeouts)
+    public String getPoolStats() {
+        return connectionPool.getStats();
+    }
+
+    public void close() {
+        ResultWriteBuffer buffer = writeBuffer;
+        if (buffer != null) {
+            buffer.close();
+            writeBuffer = null;
+        }
+        connectionPool.close();
+        System.out.println(" DatabaseService fermé");
+    }
+
     // Méthode de test améliorée
     public static void main(String[] args) {
         System.out.println(" TEST DATABASE SERVICE");
@@ -331,6 +1243,82 @@ public class DatabaseService {
         System.out.println("   Patient null: " + dbService.getPatientResults(null).size() + " résultats");
         System.out.println("   Patient vide: " + dbService.getPatientResults("").size() + " résultats");
 
+        // 6. Sauvegarde par lots et write-behind
+        System.out.println("\n7. Sauvegarde par lots...");
+        List<MedicalResult> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MedicalResult r = new MedicalResult("PAT10" + i, "Patient Lot " + i, "Tension", 120.0 + i, "mmHg", false);
+            r.setId(r.getId() + "_B" + i);
+            batch.add(r);
+        }
+        System.out.println("   Lignes insérées: " + dbService.saveResults(batch));
+
+        dbService.enableWriteBehind(100, 200, 1000);
+        for (int i = 0; i < 5; i++) {
+            MedicalResult r = new MedicalResult("PAT20" + i, "Patient Async " + i, "Glycémie", 0.9 + i / 10.0, "g/L", false);
+            r.setId(r.getId() + "_A" + i);
+            dbService.saveResultAsync(r);
+        }
+        dbService.flush();
+        System.out.println("   " + dbService.getWriteBehindStats());
+
+        // Un id en double n'annule que sa propre ligne, pas le lot
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MedicalResult r = new MedicalResult("PAT30" + i, "Patient Doublon " + i, "Glycémie", 1.0, "g/L", false);
+            r.setId(batch.get(0).getId() + (i == 2 ? "" : "_D" + i));
+            writes.add(dbService.saveResultAsync(r));
+        }
+        dbService.flush();
+        int rejectedWrites = 0;
+        for (CompletableFuture<Void> write : writes) {
+            if (write.isCompletedExceptionally()) rejectedWrites++;
+        }
+        System.out.println("   Lot avec un doublon: " + (writes.size() - rejectedWrites) + " écrits, " +
+                rejectedWrites + " écarté(s) (attendu: 4, 1)");
+
+        // 7. Pagination par curseur
+        System.out.println("\n8. Pagination des alertes critiques (pages de 2)...");
+        String cursor = null;
+        int pages = 0;
+        int paged = 0;
+        do {
+            ResultPage<MedicalResult> page = dbService.getCriticalResultsPage(cursor, 2);
+            pages++;
+            paged += page.size();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        System.out.println("   " + paged + " résultats en " + pages + " page(s)");
+
+        // 8. Lecture en flux
+        System.out.println("\n9. Lecture en flux...");
+        try (Stream<MedicalResult> stream = dbService.streamAllResults(100)) {
+            System.out.println("   Résultats critiques parcourus: " + stream.filter(MedicalResult::isCritical).count());
+        }
+
+        // 9. Compteurs
+        System.out.println("\n10. Compteurs...");
+        System.out.println("   Par type de test: " + dbService.getCountsByTestType());
+        System.out.println("   Nettoyage > 3650 jours: " + dbService.clearOldData(3650));
+        System.out.println("   Cohérents: " + dbService.verifyCounters());
+
+        // 10. Requête filtrée et projetée
+        System.out.println("\n11. Requête filtrée (Tension >= 122, nom et valeur seulement)...");
+        ResultQuery query = new ResultQuery(ResultQuery.Field.PATIENT_NAME, ResultQuery.Field.VALUE);
+        query.setTestType("tension");
+        query.setValueRange(122.0, Double.NaN);
+        query.setLimit(2);
+        QueryResult rows = dbService.queryResults(query);
+        for (int row = 0; row < rows.size(); row++) {
+            System.out.println("   • " + rows.getPatientName(row) + ": " + rows.getValue(row));
+        }
+        System.out.println("   " + rows);
+
+        // 11. Pool de connexions
+        System.out.println("\n12. Pool de connexions...");
+        System.out.println("   " + dbService.getPoolStats());
+        dbService.close();
+
         System.out.println("\n TEST DATABASE SERVICE RÉUSSI!");
     }
 }
\ No newline at end of file
@@ -0,0 +1,277 @@
+package com.medical.jms.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Partitionnement mensuel de medical_results : une table medical_results_AAAAMM par mois,
+ * réunies par la vue medical_results (UNION ALL) pour les lectures globales.
+ * La rétention supprime des partitions entières au lieu d'un DELETE massif.
+ * Attention : sous H2, le DDL valide la transaction courante ; les partitions
+ * doivent donc être créées avant d'ouvrir une transaction d'écriture.
+ */
+public class PartitionManager {
+
+    public static final String VIEW_NAME = "medical_results";
+    private static final String TABLE_PREFIX = "medical_results_";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    static final String COLUMNS = "id, patient_name, patient_id, test_type, " +
+            "result_value, unit, is_critical, doctor_notes, created_at";
+
+    // Nom et type de test normalisés (casse et espaces de bord ignorés) pour queryResults :
+    // contrairement à LOWER(patient_name) = ?, une égalité sur ces colonnes peut utiliser un index
+    private static final String[] SEARCH_KEY_COLUMNS = {
+            "patient_name_key VARCHAR(100) GENERATED ALWAYS AS (LOWER(TRIM(patient_name)))",
+            "test_type_key VARCHAR(50) GENERATED ALWAYS AS (LOWER(TRIM(test_type)))"
+    };
+
+    private static final String CREATE_PARTITION_SQL = "CREATE TABLE IF NOT EXISTS %s (" +
+            "id VARCHAR(50) PRIMARY KEY," +
+            "patient_name VARCHAR(100)," +
+            "patient_id VARCHAR(50)," +
+            "test_type VARCHAR(50)," +
+            "result_value DOUBLE," +
+            "unit VARCHAR(20)," +
+            "is_critical BOOLEAN," +
+            "doctor_notes TEXT," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            String.join(",", SEARCH_KEY_COLUMNS) +
+            ")";
+
+    // Mêmes index que la table unique d'origine (migrations v1 et v2), préfixés par la partition,
+    // plus ceux des clés de recherche (migration v4)
+    private static final String[] PARTITION_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_%1$s_patient_created ON %1$s (patient_id, created_at DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_%1$s_critical_created ON %1$s (is_critical, created_at DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_%1$s_created ON %1$s (created_at DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_%1$s_name_created ON %1$s (patient_name_key, created_at DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_%1$s_test_created ON %1$s (test_type_key, created_at DESC, id DESC)"
+    };
+
+    private final ConcurrentSkipListSet<YearMonth> partitions = new ConcurrentSkipListSet<>();
+
+    public static YearMonth monthOf(Date date) {
+        return YearMonth.from(date.toInstant().atZone(ZoneId.systemDefault()));
+    }
+
+    public static String tableName(YearMonth month) {
+        return TABLE_PREFIX + month.format(SUFFIX);
+    }
+
+    // Premier instant du mois (borne incluse de la partition)
+    public static Timestamp startOf(YearMonth month) {
+        return Timestamp.valueOf(month.atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Relit les partitions existantes, crée celle du mois courant si besoin et reconstruit la vue.
+     */
+    public synchronized void load(Connection conn) throws SQLException {
+        List<YearMonth> found = existingPartitions(conn);
+
+        partitions.clear();
+        partitions.addAll(found);
+
+        YearMonth current = YearMonth.now();
+        if (!partitions.contains(current)) {
+            createPartition(conn, current);
+            partitions.add(current);
+        }
+        rebuildView(conn);
+        System.out.println("🗂️ " + partitions.size() + " partition(s) mensuelle(s): " +
+                partitions.first() + " .. " + partitions.last());
+    }
+
+    private static List<YearMonth> existingPartitions(Connection conn) throws SQLException {
+        List<YearMonth> found = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                        "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE' AND TABLE_NAME LIKE ?")) {
+            pstmt.setString(1, TABLE_PREFIX.toUpperCase().replace("_", "\\_") + "%");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    YearMonth month = parseMonth(rs.getString(1));
+                    if (month != null) {
+                        found.add(month);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static YearMonth parseMonth(String table) {
+        String suffix = table.substring(TABLE_PREFIX.length());
+        try {
+            return YearMonth.parse(suffix, SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Garantit l'existence de la partition du mois donné.
+     * @return nom de la table de partition
+     */
+    public String ensurePartition(Connection conn, YearMonth month) throws SQLException {
+        if (!partitions.contains(month)) {
+            synchronized (this) {
+                if (!partitions.contains(month)) {
+                    createPartition(conn, month);
+                    partitions.add(month);
+                    rebuildView(conn);
+                    System.out.println("🗂️ Partition créée: " + tableName(month));
+                }
+            }
+        }
+        return tableName(month);
+    }
+
+    /**
+     * Supprime une partition entière : retrait de la vue puis DROP TABLE (quasi instantané).
+     */
+    public synchronized void dropPartition(Connection conn, YearMonth month) throws SQLException {
+        if (!partitions.remove(month)) {
+            return;
+        }
+        try {
+            rebuildView(conn);
+        } catch (SQLException e) {
+            partitions.add(month);
+            throw e;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + tableName(month));
+        }
+    }
+
+    // Partitions du plus récent au plus ancien
+    public List<YearMonth> newestFirst() {
+        return new ArrayList<>(partitions.descendingSet());
+    }
+
+    // Partitions du mois donné (inclus) jusqu'à la plus ancienne
+    public List<YearMonth> newestFirst(YearMonth from) {
+        return new ArrayList<>(partitions.headSet(from, true).descendingSet());
+    }
+
+    // Partitions strictement antérieures au mois donné
+    public List<YearMonth> olderThan(YearMonth month) {
+        return new ArrayList<>(partitions.headSet(month, false));
+    }
+
+    public boolean contains(YearMonth month) {
+        return partitions.contains(month);
+    }
+
+    public int size() {
+        return partitions.size();
+    }
+
+    private void rebuildView(Connection conn) throws SQLException {
+        StringBuilder sql = new StringBuilder("CREATE OR REPLACE VIEW ").append(VIEW_NAME).append(" AS ");
+        boolean first = true;
+        for (YearMonth month : partitions) {
+            if (!first) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT ").append(COLUMNS).append(" FROM ").append(tableName(month));
+            first = false;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql.toString());
+        }
+    }
+
+    private static void createPartition(Connection conn, YearMonth month) throws SQLException {
+        String table = tableName(month);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(String.format(CREATE_PARTITION_SQL, table));
+            for (String index : PARTITION_INDEXES) {
+                stmt.execute(String.format(index, table));
+            }
+        }
+    }
+
+    /**
+     * Migration v3 : répartit la table unique medical_results dans les partitions mensuelles
+     * puis la supprime (la vue est créée ensuite par load()).
+     * Rejouable : MERGE sur l'id, et rien à faire si medical_results n'est plus une table.
+     */
+    static void partitionLegacyTable(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES " +
+                        "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = 'MEDICAL_RESULTS' AND TABLE_TYPE = 'BASE TABLE'");
+             ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next() || rs.getInt(1) == 0) {
+                return;
+            }
+        }
+
+        List<YearMonth> months = new ArrayList<>();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE medical_results SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL");
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT DISTINCT YEAR(created_at) AS y, MONTH(created_at) AS m FROM medical_results")) {
+                while (rs.next()) {
+                    months.add(YearMonth.of(rs.getInt("y"), rs.getInt("m")));
+                }
+            }
+        }
+
+        long moved = 0;
+        for (YearMonth month : months) {
+            createPartition(conn, month);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "MERGE INTO " + tableName(month) + " (" + COLUMNS + ") KEY (id) " +
+                            "SELECT " + COLUMNS + " FROM medical_results WHERE created_at >= ? AND created_at < ?")) {
+                pstmt.setTimestamp(1, startOf(month));
+                pstmt.setTimestamp(2, startOf(month.plusMonths(1)));
+                moved += pstmt.executeUpdate();
+            }
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE medical_results");
+        }
+        System.out.println("🗂️ " + moved + " ligne(s) réparties dans " + months.size() + " partition(s)");
+    }
+
+    /**
+     * Migration v4 : ajoute les clés de recherche et leurs index aux partitions existantes.
+     * Rejouable (IF NOT EXISTS) ; les partitions créées ensuite les ont dès leur création.
+     */
+    static void addSearchKeys(Connection conn) throws SQLException {
+        List<YearMonth> months = existingPartitions(conn);
+        try (Statement stmt = conn.createStatement()) {
+            for (YearMonth month : months) {
+                String table = tableName(month);
+                for (String column : SEARCH_KEY_COLUMNS) {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS " + column);
+                }
+                for (String index : PARTITION_INDEXES) {
+                    stmt.execute(String.format(index, table));
+                }
+            }
+        }
+        System.out.println("🗂️ Clés de recherche ajoutées à " + months.size() + " partition(s)");
+    }
+
+    @Override
+    public String toString() {
+        return "Partitions" + partitions;
+    }
+}
@@ -0,0 +1,293 @@
+package com.medical.jms.service;
+
+import com.medical.jms.model.MedicalResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alertes en attente d'acquittement, indexées par identifiant d'alerte et par patient.
+ * - acquittement par alerte : accès direct par table de hachage, puis retrait de la liste triée (O(log n)) ;
+ * - acquittement par patient : seules les alertes de ce patient sont parcourues ;
+ * - comptes (total et par patient) en O(1) ;
+ * - parcours trié par priorité décroissante puis par date (la plus ancienne d'abord).
+ * Chaque alerte n'est acquittée qu'une fois, même si plusieurs threads l'acquittent en même temps.
+ */
+public class PendingAlertIndex {
+
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_CRITICAL = 1;
+
+    private static final class Entry {
+        final String alertId;
+        final MedicalResult result;
+        final int priority;
+        final long time;
+        final long sequence;
+        final AtomicBoolean acknowledged = new AtomicBoolean();
+
+        Entry(String alertId, MedicalResult result, int priority, long sequence) {
+            this.alertId = alertId;
+            this.result = result;
+            this.priority = priority;
+            Date timestamp = result.getTimestamp();
+            this.time = timestamp != null ? timestamp.getTime() : Long.MAX_VALUE;
+            this.sequence = sequence;
+        }
+    }
+
+    // Priorité décroissante, puis date, puis ordre d'arrivée (rend chaque entrée unique dans l'ensemble)
+    private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingInt(e -> -e.priority)
+            .thenComparingLong(e -> e.time)
+            .thenComparingLong(e -> e.sequence);
+
+    private final ConcurrentHashMap<String, Entry> byAlertId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Entry>> byPatient = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ordered = new ConcurrentSkipListSet<>(ORDER);
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** Ajoute une alerte avec la priorité déduite de sa criticité. */
+    public String add(MedicalResult result) {
+        return add(result, result.isCritical() ? PRIORITY_CRITICAL : PRIORITY_NORMAL);
+    }
+
+    /**
+     * @return identifiant de l'alerte, à passer à {@link #acknowledge(String)} : l'id du résultat,
+     *         suffixé si cet id est déjà en attente (les id MedicalResult peuvent se répéter)
+     */
+    public String add(MedicalResult result, int priority) {
+        long seq = sequence.incrementAndGet();
+        String baseId = result.getId() != null ? result.getId() : "ALERT_" + seq;
+
+        Entry entry = new Entry(baseId, result, priority, seq);
+        if (byAlertId.putIfAbsent(baseId, entry) != null) {
+            entry = new Entry(baseId + "#" + seq, result, priority, seq);
+            byAlertId.put(entry.alertId, entry);
+        }
+        count.incrementAndGet();
+
+        // Liste triée avant l'index patient : une alerte trouvée par patient est toujours déjà triée
+        ordered.add(entry);
+        String patientKey = patientKey(result);
+        Entry added = entry;
+        byPatient.compute(patientKey, (k, entries) -> {
+            if (entries == null) entries = ConcurrentHashMap.newKeySet();
+            entries.add(added);
+            return entries;
+        });
+
+        // Acquittée par id pendant l'insertion : on retire ce qui vient d'être ajouté
+        if (entry.acknowledged.get()) {
+            ordered.remove(entry);
+            unlinkPatient(entry);
+        }
+        return entry.alertId;
+    }
+
+    /** @return l'alerte acquittée, ou null si elle n'est pas (ou plus) en attente */
+    public MedicalResult acknowledge(String alertId) {
+        if (alertId == null) return null;
+        Entry entry = byAlertId.get(alertId);
+        if (entry == null || !markAcknowledged(entry)) return null;
+        byAlertId.remove(alertId, entry);
+        ordered.remove(entry);
+        unlinkPatient(entry);
+        return entry.result;
+    }
+
+    /** @return les alertes acquittées pour ce patient, dans l'ordre de priorité */
+    public List<MedicalResult> acknowledgePatient(String patientId) {
+        Set<Entry> entries = byPatient.remove(patientKey(patientId));
+        if (entries == null) return new ArrayList<>();
+
+        List<Entry> removed = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (markAcknowledged(entry)) {
+                byAlertId.remove(entry.alertId, entry);
+                ordered.remove(entry);
+                removed.add(entry);
+            }
+        }
+        removed.sort(ORDER);
+        List<MedicalResult> results = new ArrayList<>(removed.size());
+        for (Entry entry : removed) {
+            results.add(entry.result);
+        }
+        return results;
+    }
+
+    private boolean markAcknowledged(Entry entry) {
+        if (!entry.acknowledged.compareAndSet(false, true)) return false;
+        count.decrementAndGet();
+        return true;
+    }
+
+    private void unlinkPatient(Entry entry) {
+        byPatient.computeIfPresent(patientKey(entry.result), (k, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    // ConcurrentHashMap refuse les clés null
+    private static String patientKey(MedicalResult result) {
+        return patientKey(result.getPatientId());
+    }
+
+    private static String patientKey(String patientId) {
+        return patientId != null ? patientId : "";
+    }
+
+    public void clear() {
+        for (Entry entry : byAlertId.values()) {
+            acknowledge(entry.alertId);
+        }
+    }
+
+    // ===== LECTURE =====
+
+    public int size() {
+        return count.get();
+    }
+
+    public boolean isEmpty() {
+        return count.get() == 0;
+    }
+
+    public int countForPatient(String patientId) {
+        Set<Entry> entries = byPatient.get(patientKey(patientId));
+        return entries != null ? entries.size() : 0;
+    }
+
+    public boolean contains(String alertId) {
+        Entry entry = alertId != null ? byAlertId.get(alertId) : null;
+        return entry != null && !entry.acknowledged.get();
+    }
+
+    public MedicalResult get(String alertId) {
+        Entry entry = alertId != null ? byAlertId.get(alertId) : null;
+        return entry != null && !entry.acknowledged.get() ? entry.result : null;
+    }
+
+    /** Copie triée de toutes les alertes en attente. */
+    public List<MedicalResult> snapshot() {
+        return top(Integer.MAX_VALUE);
+    }
+
+    /** Les limit premières alertes dans l'ordre de priorité, sans parcourir le reste. */
+    public List<MedicalResult> top(int limit) {
+        List<MedicalResult> results = new ArrayList<>(Math.min(limit, Math.max(count.get(), 0)));
+        Iterator<Entry> it = ordered.iterator();
+        while (it.hasNext() && results.size() < limit) {
+            Entry entry = it.next();
+            if (!entry.acknowledged.get()) {
+                results.add(entry.result);
+            }
+        }
+        return results;
+    }
+
+    // ===== BANC D'ESSAI =====
+
+    // Usage : PendingAlertIndex [alertes]
+    public static void main(String[] args) {
+        int alerts = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int patients = Math.max(1, alerts / 4);
+
+        System.out.println(" TEST INDEX DES ALERTES EN ATTENTE");
+        System.out.println("====================================\n");
+
+        // 1. Ordre et acquittements
+        PendingAlertIndex index = new PendingAlertIndex();
+        MedicalResult normal = new MedicalResult("PAT001", "Ali Ben Mohamed", "Glycémie", "1.0", "g/L", "", false);
+        MedicalResult critical = new MedicalResult("PAT002", "Fatima Zohra", "Tension", "180", "mmHg", "", true);
+        MedicalResult critical2 = new MedicalResult("PAT001", "Ali Ben Mohamed", "Potassium", "6.5", "mmol/L", "", true);
+        critical2.setId(critical.getId()); // id en double : doit recevoir un suffixe
+        String normalId = index.add(normal);
+        index.add(critical);
+        String duplicateId = index.add(critical2);
+
+        System.out.println("1. Ordre: " + index.snapshot().get(0).getPatientId() + ", " +
+                index.snapshot().get(1).getPatientId() + ", " + index.snapshot().get(2).getTestType());
+        System.out.println("   id en double -> " + duplicateId);
+        System.out.println("   PAT001: " + index.countForPatient("PAT001") + " alerte(s), total " + index.size());
+        System.out.println("   acquittement " + normalId + ": " + (index.acknowledge(normalId) != null) +
+                ", deuxième fois: " + (index.acknowledge(normalId) != null));
+        System.out.println("   acquittement PAT001: " + index.acknowledgePatient("PAT001").size() +
+                " alerte(s), reste " + index.size());
+
+        // 2. Comparaison avec l'ancienne file (removeIf sur ConcurrentLinkedQueue)
+        System.out.println("\n2. " + alerts + " alertes, " + patients + " patients, acquittement de chaque patient...");
+        List<MedicalResult> results = new ArrayList<>(alerts);
+        for (int i = 0; i < alerts; i++) {
+            MedicalResult r = new MedicalResult("PAT" + (i % patients), "Patient", "Glycémie", "1.5", "g/L", "", i % 3 == 0);
+            r.setId("MED_" + i);
+            results.add(r);
+        }
+
+        ConcurrentLinkedQueue<MedicalResult> queue = new ConcurrentLinkedQueue<>(results);
+        long start = System.nanoTime();
+        for (int p = 0; p < patients; p++) {
+            String patientId = "PAT" + p;
+            queue.removeIf(r -> patientId.equals(r.getPatientId()));
+            queue.size();
+        }
+        long queueMillis = (System.nanoTime() - start) / 1_000_000;
+
+        PendingAlertIndex bench = new PendingAlertIndex();
+        for (MedicalResult r : results) {
+            bench.add(r);
+        }
+        start = System.nanoTime();
+        for (int p = 0; p < patients; p++) {
+            bench.acknowledgePatient("PAT" + p);
+            bench.size();
+        }
+        long indexMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("   ConcurrentLinkedQueue.removeIf : " + queueMillis + " ms");
+        System.out.println("   PendingAlertIndex             : " + indexMillis + " ms (reste " + bench.size() + ")");
+
+        // 3. Acquittements concurrents : chaque alerte acquittée exactement une fois
+        System.out.println("\n3. Acquittements concurrents...");
+        PendingAlertIndex shared = new PendingAlertIndex();
+        for (MedicalResult r : results) {
+            shared.add(r);
+        }
+        AtomicInteger acked = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            boolean byPatientAck = t % 2 == 0;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < alerts; i++) {
+                    if (byPatientAck) {
+                        acked.addAndGet(shared.acknowledgePatient("PAT" + (i % patients)).size());
+                    } else if (shared.acknowledge("MED_" + i) != null) {
+                        acked.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println("   acquittées: " + acked.get() + "/" + alerts + ", reste " + shared.size() +
+                (acked.get() == alerts && shared.isEmpty() ? " ✅" : " ❌"));
+    }
+}
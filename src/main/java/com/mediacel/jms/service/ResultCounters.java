@@ -0,0 +1,94 @@
+package com.medical.jms.service;
+
+import com.medical.jms.model.MedicalResult;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs de medical_results maintenus à chaque insertion et suppression,
+ * pour lire les totaux en O(1) au lieu d'exécuter un COUNT(*) sur toute la table.
+ */
+public class ResultCounters {
+
+    private static final String UNKNOWN_TEST_TYPE = "N/A";
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong critical = new AtomicLong();
+    private final ConcurrentHashMap<String, LongAdder> byTestType = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> criticalByTestType = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<LocalDate, LongAdder> byDay = new ConcurrentHashMap<>();
+
+    public void recordInsert(MedicalResult result) {
+        LocalDate day = result.getTimestamp().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        add(result.getTestType(), day, result.isCritical(), 1);
+    }
+
+    public void recordDelete(String testType, LocalDate day, boolean isCritical, long count) {
+        add(testType, day, isCritical, -count);
+    }
+
+    /**
+     * Applique un delta (positif ou négatif) à un groupe (type de test, jour, criticité).
+     */
+    public void add(String testType, LocalDate day, boolean isCritical, long delta) {
+        String type = testType != null ? testType : UNKNOWN_TEST_TYPE;
+
+        total.addAndGet(delta);
+        byTestType.computeIfAbsent(type, k -> new LongAdder()).add(delta);
+        if (day != null) {
+            byDay.computeIfAbsent(day, k -> new LongAdder()).add(delta);
+        }
+        if (isCritical) {
+            critical.addAndGet(delta);
+            criticalByTestType.computeIfAbsent(type, k -> new LongAdder()).add(delta);
+        }
+    }
+
+    // Remise à zéro avant reconstruction depuis la table
+    public void clear() {
+        total.set(0);
+        critical.set(0);
+        byTestType.clear();
+        criticalByTestType.clear();
+        byDay.clear();
+    }
+
+    public long getTotal() { return total.get(); }
+    public long getCritical() { return critical.get(); }
+
+    public Map<String, Long> getCountsByTestType() {
+        return snapshot(byTestType);
+    }
+
+    public Map<String, Long> getCriticalCountsByTestType() {
+        return snapshot(criticalByTestType);
+    }
+
+    public Map<LocalDate, Long> getCountsByDay() {
+        return snapshot(byDay);
+    }
+
+    // Copie triée, sans les groupes retombés à zéro
+    private <K extends Comparable<? super K>> Map<K, Long> snapshot(ConcurrentHashMap<K, LongAdder> source) {
+        Map<K, Long> copy = new TreeMap<>();
+        for (Map.Entry<K, LongAdder> entry : source.entrySet()) {
+            long value = entry.getValue().sum();
+            if (value != 0) {
+                copy.put(entry.getKey(), value);
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "Compteurs[total=" + getTotal() + ", critiques=" + getCritical() +
+                ", types=" + getCountsByTestType().size() + ", jours=" + getCountsByDay().size() + "]";
+    }
+}
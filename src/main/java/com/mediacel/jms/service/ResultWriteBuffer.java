@@ -0,0 +1,243 @@
+package com.medical.jms.service;
+
+import com.medical.jms.model.MedicalResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Tampon d'écriture différée (write-behind) pour les résultats médicaux.
+ * Les appelants déposent des résultats dans une file bornée ; un thread dédié
+ * les regroupe en lots écrits et validés ensemble, dès que le lot est plein
+ * ou que le délai de vidage est écoulé. Quand la file est pleine, submit() bloque.
+ * Chaque dépôt retourne un CompletableFuture complété une fois le résultat écrit,
+ * ou en erreur si l'écriture l'a rejeté.
+ */
+public class ResultWriteBuffer {
+
+    /** Écriture d'un lot par le thread du tampon. */
+    public interface BatchWriter {
+        /**
+         * Écrit le lot et signale à rejected la position de chaque résultat qui n'a pas pu l'être,
+         * avec la cause.
+         * @return nombre de lignes insérées
+         */
+        int write(List<MedicalResult> batch, BiConsumer<Integer, Exception> rejected);
+    }
+
+    // Résultat déposé et accusé d'écriture rendu au déposant
+    private static final class Pending {
+        final MedicalResult result;
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        Pending(MedicalResult result) {
+            this.result = result;
+        }
+    }
+
+    private final BlockingQueue<Pending> queue;
+    private final BatchWriter batchWriter;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    // Sérialise les écritures et permet à flush() d'attendre les lots en cours
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Condition batchWritten = writeLock.newCondition();
+
+    // Métriques
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param batchWriter écrit un lot et signale les résultats rejetés
+     * @param batchSize taille maximale d'un lot
+     * @param flushIntervalMillis délai maximal avant l'écriture d'un lot incomplet
+     * @param capacity nombre maximal de résultats en attente
+     */
+    public ResultWriteBuffer(BatchWriter batchWriter,
+                             int batchSize, long flushIntervalMillis, int capacity) {
+        if (batchSize <= 0 || capacity <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Paramètres write-behind invalides");
+        }
+        this.batchWriter = batchWriter;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.flusher = new Thread(this::runFlusher, "result-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Dépose un résultat, en bloquant tant que le tampon est plein (contre-pression).
+     * @return complété quand le résultat est écrit, en erreur s'il a été rejeté
+     */
+    public CompletableFuture<Void> submit(MedicalResult result) throws InterruptedException {
+        ensureRunning();
+        Pending pending = new Pending(result);
+        queue.put(pending);
+        accepted.incrementAndGet();
+        return pending.written;
+    }
+
+    /**
+     * Dépose un résultat en attendant au plus timeoutMillis.
+     * @return comme submit(), ou null si le tampon est resté plein
+     */
+    public CompletableFuture<Void> offer(MedicalResult result, long timeoutMillis) throws InterruptedException {
+        ensureRunning();
+        Pending pending = new Pending(result);
+        if (queue.offer(pending, timeoutMillis, TimeUnit.MILLISECONDS)) {
+            accepted.incrementAndGet();
+            return pending.written;
+        }
+        rejected.incrementAndGet();
+        return null;
+    }
+
+    private void ensureRunning() {
+        if (!running) {
+            throw new IllegalStateException("Tampon write-behind arrêté");
+        }
+    }
+
+    private void runFlusher() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Compléter le lot jusqu'à la taille maximale ou l'échéance
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    if (batch.size() >= batchSize) break;
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) break;
+
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (!running) break;
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        if (batch.isEmpty()) return;
+
+        List<MedicalResult> results = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            results.add(pending.result);
+        }
+
+        writeLock.lock();
+        try {
+            int rows;
+            try {
+                rows = batchWriter.write(results, (index, cause) -> batch.get(index).written.completeExceptionally(cause));
+            } catch (RuntimeException e) {
+                System.err.println(" Erreur écriture lot write-behind: " + e.getMessage());
+                rows = 0;
+                for (Pending pending : batch) {
+                    pending.written.completeExceptionally(e);
+                }
+            }
+            // Ce qui n'a pas été signalé comme rejeté est écrit
+            int rejectedRows = 0;
+            for (Pending pending : batch) {
+                if (!pending.written.complete(null)) {
+                    rejectedRows++;
+                }
+            }
+            written.addAndGet(rows);
+            failed.addAndGet(rejectedRows);
+            batches.incrementAndGet();
+            processed.addAndGet(batch.size());
+            batchWritten.signalAll();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Écrit immédiatement tout ce qui a été accepté jusqu'ici et attend la fin des lots en cours.
+     */
+    public void flush() {
+        long target = accepted.get();
+
+        List<Pending> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (int i = 0; i < pending.size(); i += batchSize) {
+            writeBatch(pending.subList(i, Math.min(pending.size(), i + batchSize)));
+        }
+
+        writeLock.lock();
+        try {
+            while (processed.get() < target) {
+                if (!batchWritten.await(flushIntervalMillis * 2, TimeUnit.MILLISECONDS) && !flusher.isAlive()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Arrête le thread d'écriture après avoir vidé le tampon.
+     */
+    public void close() {
+        running = false;
+        try {
+            flusher.join(flushIntervalMillis * 4 + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // ===== MÉTRIQUES =====
+
+    public int getPendingCount() { return queue.size(); }
+    public int getRemainingCapacity() { return queue.remainingCapacity(); }
+    public long getAcceptedCount() { return accepted.get(); }
+    public long getWrittenCount() { return written.get(); }
+    public long getFailedCount() { return failed.get(); }
+    public long getBatchCount() { return batches.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+
+    public String getStats() {
+        return String.format(
+                "Write-behind [lot=%d, délai=%d ms] en attente=%d, acceptés=%d, écrits=%d, échecs=%d, lots=%d, rejetés=%d",
+                batchSize, flushIntervalMillis, getPendingCount(), getAcceptedCount(),
+                getWrittenCount(), getFailedCount(), getBatchCount(), getRejectedCount());
+    }
+}
@@ -1,7 +1,10 @@
 package com.medical.jms.service;
 
+import com.medical.jms.config.JMSResourceManager;
 import com.medical.jms.model.MedicalResult;
 
+import java.nio.file.Paths;
+
 public class TestAlertService {
     public static void main(String[] args) {
         System.out.println("TEST ALERT SERVICE");
@@ -67,9 +70,33 @@ public class TestAlertService {
         alertService.clearAlerts();
         System.out.println("   Alertes restantes: " + alertService.getAlertCount());
 
-        // 7. Fermer le service
+        // 7. Second service sur le même fichier de débordement (verrouillé) : repli sur BLOCK
+        System.out.println("\n7. Second AlertService sur le même fichier de débordement...");
+        AlertService second = new AlertService();
+        System.out.println("   " + second.getPipelineStats());
+        second.shutdown();
+
+        // 8. Fermer le service
+        System.out.println("\n8. " + alertService.getPipelineStats());
         alertService.shutdown();
 
+        // 9. Politiques de débordement : petit tampon, rafale de résultats
+        System.out.println("\n9. Politiques de débordement (tampon 16, rafale de 2000)...");
+        for (AlertIntakeBuffer.OverflowPolicy policy : AlertIntakeBuffer.OverflowPolicy.values()) {
+            AlertService burst = new AlertService(16, policy, 1,
+                    Paths.get(System.getProperty("java.io.tmpdir"), "test_alerts_spill.bin"));
+            long start = System.nanoTime();
+            for (int i = 0; i < 2000; i++) {
+                burst.addAlert(new MedicalResult("Patient " + i, "BURST_" + i, "Glycémie", 1.0 + i % 100 / 100.0,
+                        "g/L", i % 10 == 0));
+            }
+            long micros = (System.nanoTime() - start) / 1000;
+            System.out.println("   " + policy + ": dépôt " + micros / 2000.0 + " µs/résultat");
+            System.out.println("   " + burst.getPipelineStats());
+            burst.shutdown();
+        }
+
+        JMSResourceManager.getInstance().close();
         System.out.println("\n TEST TERMINÉ");
     }
 }
\ No newline at end of file
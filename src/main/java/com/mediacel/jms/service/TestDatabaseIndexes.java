@@ -0,0 +1,151 @@
+package com.medical.jms.service;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+
+/**
+ * Vérifie, via EXPLAIN, que chaque requête de DatabaseService utilise l'index de la partition
+ * sur une base volumineuse (10 millions de lignes par défaut), puis mesure la rétention.
+ * Usage : TestDatabaseIndexes [nombreDeLignes]
+ */
+public class TestDatabaseIndexes {
+
+    public static void main(String[] args) throws Exception {
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+
+        System.out.println("TEST INDEX DATABASE SERVICE");
+        System.out.println("=============================\n");
+
+        // Base dédiée au test pour ne pas toucher ~/medicaldb
+        File dir = new File(System.getProperty("java.io.tmpdir"), "medical-explain-" + System.currentTimeMillis());
+        String url = "jdbc:h2:" + new File(dir, "medicaldb").getAbsolutePath();
+
+        DatabaseService dbService = new DatabaseService(url, 1, 4, 5000, 60000);
+        boolean success;
+        try {
+            System.out.println("1. Remplissage de " + rows + " lignes sur 13 partitions mensuelles...");
+            long start = System.currentTimeMillis();
+            fillPartitions(dbService, url, rows);
+            System.out.println("   Terminé en " + (System.currentTimeMillis() - start) / 1000.0 + " s");
+
+            // Plans vérifiés sur la partition du mois précédent (complète)
+            String table = PartitionManager.tableName(YearMonth.now().minusMonths(1));
+            String prefix = "IDX_" + table.toUpperCase();
+
+            System.out.println("\n2. Vérification des plans d'exécution (" + table + ")...");
+            success = checkPlan(dbService, "getRecentResults", table, DatabaseService.SELECT_RECENT_SQL,
+                    prefix + "_CREATED", 10);
+            success &= checkPlan(dbService, "getPatientResults", table, DatabaseService.SELECT_PATIENT_SQL,
+                    prefix + "_PATIENT_CREATED", "PAT42");
+            success &= checkPlan(dbService, "getCriticalResults", table, DatabaseService.SELECT_CRITICAL_SQL,
+                    prefix + "_CRITICAL_CREATED");
+            success &= checkPlan(dbService, "getCriticalCount", table, DatabaseService.COUNT_CRITICAL_SQL,
+                    prefix + "_CRITICAL_CREATED");
+            success &= checkPlan(dbService, "clearOldData", table, DatabaseService.DELETE_OLD_SQL,
+                    prefix + "_CREATED", new Timestamp(System.currentTimeMillis() - 30 * 86_400_000L));
+            success &= checkPlan(dbService, "getTotalCount", table, DatabaseService.COUNT_TOTAL_SQL,
+                    "direct lookup");
+
+            Timestamp after = PartitionManager.startOf(YearMonth.now().minusMonths(1));
+            after.setTime(after.getTime() + 86_400_000L);
+            success &= checkPlan(dbService, "getPatientResultsPage", table, DatabaseService.PAGE_PATIENT_NEXT_SQL,
+                    prefix + "_PATIENT_CREATED", "PAT42", after, after, "MED42", 51);
+            success &= checkPlan(dbService, "getCriticalResultsPage", table, DatabaseService.PAGE_CRITICAL_NEXT_SQL,
+                    prefix + "_CRITICAL_CREATED", after, after, "MED100", 51);
+            // Filtres sans casse de queryResults, sur les clés de recherche de la partition
+            success &= checkPlan(dbService, "queryResults (patient)", table,
+                    "SELECT result_value FROM %s WHERE patient_name_key = ? ORDER BY created_at DESC, id DESC LIMIT ?",
+                    prefix + "_NAME_CREATED", "patient 42", 1001);
+            success &= checkPlan(dbService, "queryResults (test)", table,
+                    "SELECT result_value FROM %s WHERE test_type_key = ? ORDER BY created_at DESC, id DESC LIMIT ?",
+                    prefix + "_TEST_CREATED", "glycémie", 1001);
+
+            // Rétention : suppression de partitions entières au lieu d'un DELETE massif
+            System.out.println("\n3. Rétention à 90 jours...");
+            // Lignes insérées hors du service : ses compteurs sont reconstruits au redémarrage
+            dbService.close();
+            dbService = new DatabaseService(url, 1, 4, 5000, 60000);
+            start = System.currentTimeMillis();
+            int deleted = dbService.clearOldData(90);
+            System.out.println("   " + deleted + " lignes supprimées en " +
+                    (System.currentTimeMillis() - start) / 1000.0 + " s");
+            success &= dbService.verifyCounters();
+        } finally {
+            dbService.close();
+            deleteRecursively(dir);
+        }
+
+        System.out.println(success ? "\n TEST INDEX RÉUSSI!" : "\n TEST INDEX ÉCHOUÉ");
+        if (!success) {
+            System.exit(1);
+        }
+    }
+
+    // Insertion massive côté serveur, réparties sur les 13 derniers mois :
+    // 1000 patients, ~1% de résultats critiques
+    private static void fillPartitions(DatabaseService dbService, String url, long rows) throws SQLException {
+        int months = 13;
+        long perMonth = Math.max(1, rows / months);
+        long next = 1;
+
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            for (int i = months - 1; i >= 0; i--) {
+                YearMonth month = YearMonth.now().minusMonths(i);
+                String table = dbService.ensurePartition(month);
+                Timestamp from = PartitionManager.startOf(month);
+                long end = Math.min(PartitionManager.startOf(month.plusMonths(1)).getTime(), System.currentTimeMillis());
+                long spanSeconds = Math.max(1, (end - from.getTime()) / 1000);
+
+                String sql = "INSERT INTO " + table + " (" + PartitionManager.COLUMNS + ") " +
+                        "SELECT 'MED' || X, 'Patient ' || MOD(X, 1000), 'PAT' || MOD(X, 1000), " +
+                        "CASEWHEN(MOD(X, 2) = 0, 'Glycémie', 'Tension'), MOD(X, 200) / 10.0, 'g/L', " +
+                        "MOD(X, 100) = 0, '', DATEADD('SECOND', MOD(X * 7919, ?), CAST(? AS TIMESTAMP)) " +
+                        "FROM SYSTEM_RANGE(?, ?)";
+                long last = (i == 0) ? rows : Math.min(rows, next + perMonth - 1);
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    long chunk = 1_000_000L;
+                    for (long x = next; x <= last; x += chunk) {
+                        pstmt.setLong(1, spanSeconds);
+                        pstmt.setTimestamp(2, from);
+                        pstmt.setLong(3, x);
+                        pstmt.setLong(4, Math.min(last, x + chunk - 1));
+                        pstmt.executeUpdate();
+                    }
+                }
+                next = last + 1;
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE");
+            }
+        }
+    }
+
+    private static boolean checkPlan(DatabaseService dbService, String method, String table, String sql,
+                                     String expected, Object... params) throws SQLException {
+        String plan = dbService.explain(String.format(sql, table), params);
+        boolean ok = plan.contains(expected);
+
+        System.out.println("   " + (ok ? "✅ " : "❌ ") + method + " -> " + expected);
+        if (!ok) {
+            System.out.println("      Plan: " + plan.replace('\n', ' '));
+        }
+        return ok;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
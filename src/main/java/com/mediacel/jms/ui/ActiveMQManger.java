@@ -1,6 +1,6 @@
 package com.medical.jms.ui;
 
-import org.apache.activemq.ActiveMQConnectionFactory;
+import com.medical.jms.config.JMSResourceManager;
 import javax.jms.*;
 import javax.swing.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -11,37 +11,22 @@ public class ActiveMQManager {
     private final AtomicBoolean isConnected = new AtomicBoolean(false);
 
     public boolean sendMessage(String text) {
-        Connection connection = null;
-        Session session = null;
-        MessageProducer producer = null;
-
         try {
             System.out.println(" Tentative d'envoi à ActiveMQ...");
             System.out.println("   Broker: " + BROKER_URL);
             System.out.println("   Queue: " + QUEUE_NAME);
             System.out.println("   Message: " + (text.length() > 50 ? text.substring(0, 50) + "..." : text));
 
-            // Connexion ActiveMQ
-            ConnectionFactory factory = new ActiveMQConnectionFactory(BROKER_URL);
-            connection = factory.createConnection();
-            connection.start();
-
-            // Création session et queue
-            session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-            Queue queue = session.createQueue(QUEUE_NAME);
-            producer = session.createProducer(queue);
-            producer.setDeliveryMode(DeliveryMode.PERSISTENT);
-
-            // Création du message
-            TextMessage message = session.createTextMessage(text);
+            // Envoi par le producteur en cache (ni connexion ni session créée par message)
+            JMSResourceManager.forBroker(BROKER_URL).send(QUEUE_NAME, session -> {
+                TextMessage message = session.createTextMessage(text);
 
-            // Ajouter des propriétés pour le suivi
-            message.setStringProperty("source", "MedicalInterface");
-            message.setLongProperty("timestamp", System.currentTimeMillis());
-            message.setStringProperty("type", "MEDICAL_ALERT");
-
-            // Envoi
-            producer.send(message);
+                // Ajouter des propriétés pour le suivi
+                message.setStringProperty("source", "MedicalInterface");
+                message.setLongProperty("timestamp", System.currentTimeMillis());
+                message.setStringProperty("type", "MEDICAL_ALERT");
+                return message;
+            });
 
             System.out.println(" Message envoyé avec succès!");
             isConnected.set(true);
@@ -67,10 +52,6 @@ public class ActiveMQManager {
             });
 
             return false;
-
-        } finally {
-            // TOUJOURS FERMER LES RESSOURCES
-            closeResources(producer, session, connection);
         }
     }
 
@@ -80,8 +61,7 @@ public class ActiveMQManager {
         try {
             System.out.println(" Test connexion ActiveMQ...");
 
-            ConnectionFactory factory = new ActiveMQConnectionFactory(BROKER_URL);
-            testConn = factory.createConnection();
+            testConn = JMSResourceManager.forBroker(BROKER_URL).createConnection();
             testConn.start();
 
             System.out.println(" Connexion ActiveMQ OK");
@@ -106,78 +86,30 @@ public class ActiveMQManager {
 
     // Méthode pour recevoir des messages (optionnel)
     public void testReceiveMessage(int timeoutMillis) {
-        Connection connection = null;
-        Session session = null;
-        MessageConsumer consumer = null;
-
         try {
-            ConnectionFactory factory = new ActiveMQConnectionFactory(BROKER_URL);
-            connection = factory.createConnection();
-            connection.start();
-
-            session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-            Queue queue = session.createQueue(QUEUE_NAME);
-            consumer = session.createConsumer(queue);
-
-            System.out.println(" En attente de message sur " + QUEUE_NAME + " (" + timeoutMillis + "ms)...");
-
-            Message message = consumer.receive(timeoutMillis);
-
-            if (message != null && message instanceof TextMessage) {
-                String text = ((TextMessage) message).getText();
-                System.out.println(" Message reçu: " + text);
-                System.out.println("   Type: " + message.getStringProperty("type"));
-                System.out.println("   Timestamp: " + message.getLongProperty("timestamp"));
-            } else {
-                System.out.println(" Aucun message reçu dans " + timeoutMillis + "ms");
-            }
+            // Session empruntée au pool, rendue (avec son consumer) à la fin
+            JMSResourceManager.forBroker(BROKER_URL).withSession(session -> {
+                Queue queue = session.createQueue(QUEUE_NAME);
+                MessageConsumer consumer = session.createConsumer(queue);
+
+                System.out.println(" En attente de message sur " + QUEUE_NAME + " (" + timeoutMillis + "ms)...");
+
+                Message message = consumer.receive(timeoutMillis);
+
+                if (message != null && message instanceof TextMessage) {
+                    String text = ((TextMessage) message).getText();
+                    System.out.println(" Message reçu: " + text);
+                    System.out.println("   Type: " + message.getStringProperty("type"));
+                    System.out.println("   Timestamp: " + message.getLongProperty("timestamp"));
+                } else {
+                    System.out.println(" Aucun message reçu dans " + timeoutMillis + "ms");
+                }
+                consumer.close();
+                return null;
+            });
 
         } catch (Exception e) {
             System.err.println(" Erreur réception: " + e.getMessage());
-
-        } finally {
-            closeResources(consumer, session, connection);
-        }
-    }
-
-    // MÉTHODE UTILITAIRE POUR FERMER LES RESSOURCES
-    private void closeResources(MessageProducer producer, Session session, Connection connection) {
-        try {
-            if (producer != null) producer.close();
-        } catch (JMSException e) {
-            System.err.println("Erreur fermeture producer: " + e.getMessage());
-        }
-
-        try {
-            if (session != null) session.close();
-        } catch (JMSException e) {
-            System.err.println("Erreur fermeture session: " + e.getMessage());
-        }
-
-        try {
-            if (connection != null) connection.close();
-        } catch (JMSException e) {
-            System.err.println("Erreur fermeture connection: " + e.getMessage());
-        }
-    }
-
-    private void closeResources(MessageConsumer consumer, Session session, Connection connection) {
-        try {
-            if (consumer != null) consumer.close();
-        } catch (JMSException e) {
-            System.err.println("Erreur fermeture consumer: " + e.getMessage());
-        }
-
-        try {
-            if (session != null) session.close();
-        } catch (JMSException e) {
-            System.err.println("Erreur fermeture session: " + e.getMessage());
-        }
-
-        try {
-            if (connection != null) connection.close();
-        } catch (JMSException e) {
-            System.err.println("Erreur fermeture connection: " + e.getMessage());
         }
     }
 
@@ -1,7 +1,9 @@
 package com.medical.jms.ui;
 
 import com.medical.jms.config.JMSConstants;
-import org.apache.activemq.ActiveMQConnectionFactory;
+import com.medical.jms.config.JMSResourceManager;
+import com.medical.jms.model.MedicalResult;
+import com.medical.jms.model.MedicalResultCodec;
 import javax.jms.*;
 import javax.swing.*;
 import java.awt.*;
@@ -181,8 +183,8 @@ public class JMSConsumerUI extends JFrame {
         }
 
         try {
-            ConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
-            connection = factory.createConnection();
+            // Connexion empruntée au pool du broker choisi, rendue par stopConsumer()
+            connection = JMSResourceManager.forBroker(brokerUrl).createConnection();
             connection.start();
 
             session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
@@ -240,6 +242,18 @@ public class JMSConsumerUI extends JFrame {
                     }
                     messageArea.append("──\n");
                 });
+            } else if (message instanceof BytesMessage) {
+                // Résultat au format binaire (MedicalResultCodec)
+                BytesMessage bytesMessage = (BytesMessage) message;
+                byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(body);
+                MedicalResult result = MedicalResultCodec.decode(body);
+                SwingUtilities.invokeLater(() -> {
+                    messageArea.append("📩 [" + getCurrentTime() + "] Résultat reçu (binaire v" +
+                            MedicalResultCodec.versionOf(body) + ", " + body.length + " octets):\n");
+                    messageArea.append("   " + result + "\n");
+                    messageArea.append("──\n");
+                });
             } else if (message instanceof ObjectMessage) {
                 SwingUtilities.invokeLater(() -> {
                     messageArea.append("📦 [" + getCurrentTime() + "] Message objet reçu\n");
@@ -280,8 +294,7 @@ public class JMSConsumerUI extends JFrame {
                 queueName = (String) queueSelector.getSelectedItem();
             }
 
-            ConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
-            testConn = factory.createConnection();
+            testConn = JMSResourceManager.forBroker(brokerUrl).createConnection();
             testConn.start();
 
             Session testSession = testConn.createSession(false, Session.AUTO_ACKNOWLEDGE);
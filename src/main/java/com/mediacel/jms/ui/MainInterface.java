@@ -1,12 +1,18 @@
 package com.medical.jms.ui;
 
+import com.medical.jms.model.MedicalResult;
+import com.medical.jms.rmi.DashboardSnapshot;
 import com.medical.jms.rmi.MedicalService;
+import com.medical.jms.rmi.MedicalServiceListener;
+import com.medical.jms.rmi.ServiceUpdate;
 import javax.swing.*;
 import java.awt.*;
 import java.rmi.Naming;
+import java.rmi.server.UnicastRemoteObject;
 
 public class MainInterface extends JFrame {
     private MedicalService rmiService;  // AJOUTÉ : Référence au service RMI
+    private DashboardSnapshot dashboard;  // Dernier instantané reçu (rafraîchissement conditionnel)
     private final DatabaseManager dbManager;
     private final ActiveMQManager mqManager;
 
@@ -50,6 +56,7 @@ public class MainInterface extends JFrame {
 
         if (rmiService != null) {
             logStatus("[✅] Connecté au service RMI");
+            subscribeToUpdates();
         } else {
             logStatus("[⚠️] Mode simulation (RMI non disponible)");
         }
@@ -59,6 +66,7 @@ public class MainInterface extends JFrame {
         try {
             String serviceUrl = "rmi://localhost:1099/MedicalService";
             rmiService = (MedicalService) Naming.lookup(serviceUrl);
+            dashboard = null;
             logStatus("[🔗] Connexion RMI établie");
         } catch (Exception e) {
             logStatus("[❌] Erreur RMI: " + e.getMessage());
@@ -67,6 +75,31 @@ public class MainInterface extends JFrame {
         }
     }
 
+    // Mises à jour poussées par le serveur : plus besoin d'interroger le service
+    private void subscribeToUpdates() {
+        try {
+            MedicalServiceListener listener = this::showUpdate;
+            UnicastRemoteObject.exportObject(listener, 0);
+            rmiService.subscribe(listener);
+            logStatus("[🔔] Abonné aux notifications RMI");
+        } catch (Exception e) {
+            logStatus("[⚠️] Notifications RMI indisponibles: " + e.getMessage());
+        }
+    }
+
+    private void showUpdate(ServiceUpdate update) {
+        for (MedicalResult alert : update.getNewCriticalAlerts()) {
+            logStatus("[🚨] Alerte critique: " + alert.getPatientName() + " - " + alert.getTestType() +
+                    " = " + alert.getValue() + " " + alert.getUnit());
+        }
+        if (update.getDroppedResults() > 0) {
+            logStatus("[ℹ️] " + update.getDroppedResults() + " résultat(s) regroupé(s) non détaillé(s)");
+        }
+        SwingUtilities.invokeLater(() -> setTitle(String.format(
+                "Système Médical - Dashboard (RMI + JMS) - %d résultats, %d critiques, %d alertes en attente",
+                update.getTotalResults(), update.getCriticalCount(), update.getPendingAlerts())));
+    }
+
     private JPanel createTopPanel() {
         JPanel panel = new JPanel();
         panel.setBackground(new Color(0, 102, 204));
@@ -232,9 +265,17 @@ public class MainInterface extends JFrame {
     private void showStatistics() {
         if (rmiService != null) {
             try {
-                String status = rmiService.getSystemStatus();
-                resultsArea.setText(status);
-                logStatus("[📊] Statistiques RMI récupérées");
+                // Un seul appel, et rien n'est transféré si rien n'a changé depuis le dernier
+                DashboardSnapshot latest = dashboard == null
+                        ? rmiService.getDashboardSnapshot(0)
+                        : rmiService.getDashboardSnapshot(0, dashboard.getVersion());
+                if (latest != null) {
+                    dashboard = latest;
+                    logStatus("[📊] Statistiques RMI récupérées");
+                } else {
+                    logStatus("[📊] Statistiques RMI inchangées");
+                }
+                resultsArea.setText(dashboard.getSystemStatus());
             } catch (Exception e) {
                 logStatus("[❌] Erreur statistiques: " + e.getMessage());
             }
@@ -1,5 +1,8 @@
 package com.medical.jms.ui;
 
+import com.medical.jms.model.QueryResult;
+import com.medical.jms.model.ResultQuery;
+import com.medical.jms.rmi.DashboardSnapshot;
 import com.medical.jms.rmi.MedicalService;
 import com.medical.jms.rmi.MedicalRecord;
 import com.medical.jms.rmi.MedicalStatistics;
@@ -12,6 +15,8 @@ import java.util.List;
 
 public class MainInterfaceRMIJMS extends JFrame {
 
+    private static final int CRITICAL_DISPLAY_LIMIT = 200;
+
     // Services
     private MedicalService rmiService;
     private ActiveMQManager jmsManager;
@@ -343,17 +348,26 @@ public class MainInterfaceRMIJMS extends JFrame {
 
         try {
             log("📊 Récupération des statistiques RMI...");
-            MedicalStatistics stats = rmiService.getStatistics();
+            DashboardSnapshot dashboard = rmiService.getDashboardSnapshot(0);
+            MedicalStatistics stats = dashboard.getStatistics();
 
             rmiResultsArea.setText("📈 STATISTIQUES MÉDICALES\n\n");
             rmiResultsArea.append(stats.toString() + "\n\n");
 
-            // Récupérer les alertes critiques
-            List<MedicalRecord> critical = rmiService.getCriticalResults();
-            if (!critical.isEmpty()) {
-                rmiResultsArea.append("🚨 ALERTES CRITIQUES (" + critical.size() + "):\n");
-                for (MedicalRecord record : critical) {
-                    rmiResultsArea.append("  • " + record.toString() + "\n");
+            // Alertes critiques : filtrées côté serveur, seules les colonnes affichées sont transférées
+            ResultQuery query = new ResultQuery(ResultQuery.Field.TIMESTAMP, ResultQuery.Field.PATIENT_NAME,
+                    ResultQuery.Field.TEST_TYPE, ResultQuery.Field.VALUE, ResultQuery.Field.UNIT);
+            query.setCritical(true);
+            query.setLimit(CRITICAL_DISPLAY_LIMIT);
+            QueryResult critical = rmiService.queryResults(query);
+            if (critical.size() > 0) {
+                rmiResultsArea.append("🚨 ALERTES CRITIQUES (" + critical.size() +
+                        (critical.isTruncated() ? " plus récentes" : "") + "):\n");
+                SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss");
+                for (int row = 0; row < critical.size(); row++) {
+                    rmiResultsArea.append(String.format("  • [%s] %s - %s: %.2f %s%n",
+                            time.format(critical.getTimestamp(row)), critical.getPatientName(row),
+                            critical.getTestType(row), critical.getValue(row), critical.getUnit(row)));
                 }
             } else {
                 rmiResultsArea.append("✅ Aucune alerte critique\n");
@@ -1,21 +1,37 @@
 package com.medical.jms.ui;
 
+import com.medical.jms.rmi.DashboardSnapshot;
 import com.medical.jms.rmi.MedicalService;
+import com.medical.jms.rmi.MedicalServiceListener;
 import com.medical.jms.rmi.MedicalRecord;
 import com.medical.jms.rmi.MedicalStatistics;
+import com.medical.jms.rmi.ServiceUpdate;
+import com.medical.jms.rmi.SlidingWindowStatistics;
+import com.medical.jms.rmi.UpdatePublisher;
+import com.medical.jms.rmi.WindowStatistics;
 import com.medical.jms.model.MedicalResult;  // IMPORT AJOUTÉ
+import com.medical.jms.model.QueryResult;
+import com.medical.jms.model.ResultPage;
+import com.medical.jms.model.ResultQuery;
 
 import javax.swing.*;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
 
 public class MockRMIServer implements MedicalService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private List<MedicalRecord> records = new ArrayList<>();
     private int recordCount = 0;
     private int criticalCount = 0;
     private int pendingAlerts = 0;
+    private final SlidingWindowStatistics windowedStatistics = new SlidingWindowStatistics();
+    private final UpdatePublisher updates = new UpdatePublisher();
 
     public MockRMIServer() {
         // Ajouter des données de test initiales
@@ -30,11 +46,21 @@ public class MockRMIServer implements MedicalService {
     private void addTestRecord(String patient, String test, double value, String unit, boolean critical) {
         MedicalRecord record = new MedicalRecord(patient, test, value, unit, critical);
         records.add(record);
+        windowedStatistics.record(record);
         recordCount++;
         if (critical) {
             criticalCount++;
             pendingAlerts++;
         }
+        publishUpdate(record);
+    }
+
+    // Version = nombre d'enregistrements, comme pour getDashboardSnapshot
+    private void publishUpdate(MedicalRecord record) {
+        if (updates.hasSubscribers()) {
+            updates.publish(recordCount, recordCount, criticalCount, pendingAlerts,
+                    Collections.singletonList(convertToMedicalResult(record)));
+        }
     }
 
     // ===== MÉTHODES EXISTANTES (déjà implémentées) =====
@@ -48,11 +74,13 @@ public class MockRMIServer implements MedicalService {
         // Créer le nouvel enregistrement
         MedicalRecord newRecord = new MedicalRecord(patient, test, value, unit, isCritical);
         records.add(newRecord);
+        windowedStatistics.record(newRecord);
         recordCount++;
         if (isCritical) {
             criticalCount++;
             pendingAlerts++;
         }
+        publishUpdate(newRecord);
 
         // Journalisation
         System.out.println("📡 [MOCK RMI] Résultat ajouté: " + patient);
@@ -177,12 +205,14 @@ public class MockRMIServer implements MedicalService {
         );
 
         records.add(record);
+        windowedStatistics.record(record);
         recordCount++;
 
         if (result.isCritical()) {
             criticalCount++;
             pendingAlerts++;
         }
+        publishUpdate(record);
 
         System.out.println(" [MOCK RMI] Test reçu: " + result.getPatientName());
 
@@ -202,6 +232,29 @@ public class MockRMIServer implements MedicalService {
         );
     }
 
+    @Override
+    public byte[] addMedicalResults(List<MedicalResult> results) throws RemoteException {
+        if (results == null) {
+            return new byte[0];
+        }
+
+        byte[] statuses = new byte[results.size()];
+        for (int i = 0; i < statuses.length; i++) {
+            MedicalResult result = results.get(i);
+            if (result == null || result.getPatientName() == null || result.getTestType() == null) {
+                statuses[i] = RESULT_REJECTED;
+                continue;
+            }
+            addTestRecord(result.getPatientName(), result.getTestType(), result.getValue(), result.getUnit(),
+                    result.isCritical());
+            // Pas de JMS en simulation
+            statuses[i] = result.isCritical() ? (byte) (RESULT_STORED | RESULT_CRITICAL) : RESULT_STORED;
+        }
+
+        System.out.println(" [MOCK RMI] Lot reçu: " + results.size() + " résultat(s)");
+        return statuses;
+    }
+
     @Override
     public int getTotalResults() throws RemoteException {
         return recordCount;
@@ -240,8 +293,115 @@ public class MockRMIServer implements MedicalService {
         return results;
     }
 
+    @Override
+    public ResultPage<MedicalRecord> getPatientResultsPage(String patient, String cursor, int pageSize)
+            throws RemoteException {
+        return pageRecords(record -> record.getPatientName().equalsIgnoreCase(patient), cursor, pageSize);
+    }
+
+    @Override
+    public ResultPage<MedicalRecord> getCriticalResultsPage(String cursor, int pageSize)
+            throws RemoteException {
+        return pageRecords(MedicalRecord::isCritical, cursor, pageSize);
+    }
+
+    @Override
+    public List<WindowStatistics> getWindowedStatistics(String testType) throws RemoteException {
+        List<WindowStatistics> windows = windowedStatistics.query(testType);
+        System.out.println("📊 [MOCK RMI] Statistiques glissantes: " + windows.size() + " fenêtres");
+        return windows;
+    }
+
+    @Override
+    public DashboardSnapshot getDashboardSnapshot(int recentLimit) throws RemoteException {
+        // Pas de cache en simulation : la version est le nombre d'enregistrements (ajout seul)
+        DashboardSnapshot snapshot = new DashboardSnapshot(recordCount, System.currentTimeMillis(), recordCount,
+                criticalCount, pendingAlerts, getStatistics(), getRecentResults(recentLimit), getSystemStatus());
+        System.out.println("📊 [MOCK RMI] Tableau de bord v" + snapshot.getVersion());
+        return snapshot;
+    }
+
+    @Override
+    public DashboardSnapshot getDashboardSnapshot(int recentLimit, long knownVersion) throws RemoteException {
+        return recordCount > knownVersion ? getDashboardSnapshot(recentLimit) : null;
+    }
+
+    @Override
+    public boolean subscribe(MedicalServiceListener listener) throws RemoteException {
+        System.out.println("📡 [MOCK RMI] Abonnement aux notifications");
+        return listener != null && updates.subscribe(listener, recordCount, recordCount, criticalCount, pendingAlerts);
+    }
+
+    @Override
+    public boolean unsubscribe(MedicalServiceListener listener) throws RemoteException {
+        return listener != null && updates.unsubscribe(listener);
+    }
+
+    @Override
+    public QueryResult queryResults(ResultQuery query) throws RemoteException {
+        ResultQuery actual = query != null ? query : new ResultQuery();
+        int limit = actual.effectiveLimit();
+        QueryResult.Rows rows = new QueryResult.Rows(actual.getFields(), limit);
+        String patientName = ResultQuery.searchKey(actual.getPatientName());
+        String testType = ResultQuery.searchKey(actual.getTestType());
+        boolean truncated = false;
+        for (int i = records.size() - 1; i >= 0; i--) {
+            MedicalRecord record = records.get(i);
+            if (actual.getPatientId() != null && !actual.getPatientId().equals(record.getPatientId())) continue;
+            if (patientName != null && !patientName.equals(ResultQuery.searchKey(record.getPatientName()))) continue;
+            if (testType != null && !testType.equals(ResultQuery.searchKey(record.getTestType()))) continue;
+            if (actual.getCritical() != null && actual.getCritical() != record.isCritical()) continue;
+            if (!actual.matchesValueAndTime(record.getValue(), record.getTimestamp())) continue;
+            if (rows.size() == limit) {
+                truncated = true;
+                break;
+            }
+            rows.add(record.getPatientId(), record.getPatientName(), record.getTestType(), record.getValue(),
+                    record.getUnit(), record.isCritical(), record.getTimestamp());
+        }
+        QueryResult result = rows.toResult(truncated, "mémoire");
+        System.out.println("🔎 [MOCK RMI] " + result);
+        return result;
+    }
+
     // ===== MÉTHODES UTILITAIRES PRIVÉES =====
 
+    // Mêmes règles que MedicalServiceImpl : curseur = position du prochain enregistrement sélectionné
+    private ResultPage<MedicalRecord> pageRecords(Predicate<MedicalRecord> filter, String cursor, int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            return ResultPage.empty();
+        }
+
+        int start = 0;
+        if (cursor != null) {
+            try {
+                start = Integer.parseInt(cursor);
+            } catch (NumberFormatException e) {
+                return ResultPage.empty();
+            }
+            if (start < 0) {
+                return ResultPage.empty();
+            }
+        }
+
+        List<MedicalRecord> page = new ArrayList<>();
+        int position = start;
+        while (position < records.size() && page.size() < pageSize) {
+            MedicalRecord record = records.get(position++);
+            if (filter.test(record)) {
+                page.add(record);
+            }
+        }
+
+        // Page suivante seulement s'il reste un enregistrement sélectionné
+        while (position < records.size() && !filter.test(records.get(position))) {
+            position++;
+        }
+        String nextCursor = position < records.size() ? String.valueOf(position) : null;
+        System.out.println("📄 [MOCK RMI] Page: " + page.size() + " enregistrement(s)");
+        return new ResultPage<>(page, nextCursor);
+    }
+
     private String getUnitForTest(String test) {
         if (test == null) return "unit";
 
@@ -386,11 +546,59 @@ public class MockRMIServer implements MedicalService {
             String sendResult = server.sendTestResult(testResult);
             System.out.println("   " + sendResult.split("\n")[0]);
 
+            // Test 11: Statistiques sur fenêtres glissantes
+            System.out.println("\n11. Test getWindowedStatistics():");
+            for (WindowStatistics window : server.getWindowedStatistics(SlidingWindowStatistics.ALL_TEST_TYPES)) {
+                System.out.println("   " + window);
+            }
+
+            // Test 12: Lot de résultats
+            System.out.println("\n12. Test addMedicalResults():");
+            List<MedicalResult> batch = new ArrayList<>();
+            batch.add(new MedicalResult("PAT_LOT1", "Patient Lot", "Glycémie", "1.10", "g/L", "", false));
+            batch.add(null);
+            System.out.println("   Statuts: " + Arrays.toString(server.addMedicalResults(batch)));
+
+            // Test 13: Tableau de bord en un seul appel
+            System.out.println("\n13. Test getDashboardSnapshot():");
+            DashboardSnapshot snapshot = server.getDashboardSnapshot(2);
+            System.out.println("   " + snapshot);
+            System.out.println("   Inchangé: " + (server.getDashboardSnapshot(2, snapshot.getVersion()) == null));
+
+            // Test 14: Notifications poussées
+            System.out.println("\n14. Test subscribe():");
+            List<ServiceUpdate> received = Collections.synchronizedList(new ArrayList<>());
+            MedicalServiceListener listener = received::add;
+            server.subscribe(listener);
+            server.addMedicalResult("Patient Abonné", "Glycémie", 1.50);
+            Thread.sleep(200);
+            server.unsubscribe(listener);
+            System.out.println("   Mises à jour reçues: " + received);
+
+            // Test 15: Requête filtrée et projetée
+            System.out.println("\n15. Test queryResults():");
+            ResultQuery query = new ResultQuery(ResultQuery.Field.PATIENT_NAME, ResultQuery.Field.VALUE);
+            query.setCritical(true);
+            QueryResult rows = server.queryResults(query);
+            for (int row = 0; row < rows.size(); row++) {
+                System.out.println("   " + rows.getPatientName(row) + ": " + rows.getValue(row));
+            }
+
+            // Test 16: Pagination (pages pleines, curseurs invalides)
+            System.out.println("\n16. Test getCriticalResultsPage():");
+            int criticalTotal = server.getCriticalResults().size();
+            ResultPage<MedicalRecord> full = server.getCriticalResultsPage(null, criticalTotal);
+            System.out.println("   Page pleine de " + full.size() + ", suite: " + full.hasMore() + " (attendu: false)");
+            System.out.println("   Curseur -1: " + server.getCriticalResultsPage("-1", 10).size() + " (attendu: 0)");
+            System.out.println("   Taille 5000: " + server.getCriticalResultsPage(null, 5000).size() + " (attendu: 0)");
+
             System.out.println("\ntest MOCK RMISERVER RÉUSSI!");
 
         } catch (RemoteException e) {
             System.err.println(" Erreur test: " + e.getMessage());
             e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
\ No newline at end of file